@@ -0,0 +1,410 @@
+import java.util.Arrays;
+
+/**
+ * The BitParallelPropagation class answers the same question as the
+ * Propagation class, but looks at 64 cells at a time. The open cells (CLEAR and
+ * not visited) of each row are kept as bits in long words, and so are the cells
+ * reached from the entries. The reached cells are spread along each row with a
+ * few additions and bit operations per word, and from each row to the rows
+ * above and below with a single AND per word. The rows are swept down and up
+ * again until the reached cells stop changing or an exit is reached. Bit i of
+ * word w of a row stands for the cell in column 64 x w + i.
+ *
+ * A Block over an OffHeapGrid is checked without anything per cell on the
+ * heap: the open cells of a row are read from the words of the grid when the
+ * row is swept, and the reached cells are kept in an OffHeapWords, so only a
+ * row or two of words is on the heap at any time.
+ *
+ * @author Liying Lu
+ *
+ */
+public class BitParallelPropagation {
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective from the given entry. It gives the same answer as
+	 * Propagation.isEffective(area, startRow, startCol).
+	 *
+	 * @param area     A Block to inspect.
+	 * @param startRow Starting row number of the Block.
+	 * @param startCol Starting column number of the Block.
+	 * @return True if the social distancing is effective in the Block, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area, int startRow, int startCol) {
+		// No path can be found if the entry is not valid
+		if (!area.isEntry(startRow, startCol))
+			return true;
+
+		int rows = area.getRows();
+		int cols = area.getCols();
+		// in a single column the entry is an exit too, so a path needs one more cell
+		if (cols == 1) {
+			boolean upOpen = area.isFree(startRow - 1, 0) && !area.isVisited(startRow - 1, 0);
+			boolean downOpen = area.isFree(startRow + 1, 0) && !area.isVisited(startRow + 1, 0);
+			return !upOpen && !downOpen;
+		}
+
+		if (area.getStorage() instanceof OffHeapGrid) {
+			OffHeapGrid grid = (OffHeapGrid) area.getStorage();
+			try (OffHeapWords reached = new OffHeapWords((long) rows * wordsPerRow(cols))) {
+				reached.set((long) startRow * wordsPerRow(cols), 1L);
+				return !reachesExit(grid, reached);
+			}
+		}
+		long[] open = openMask(area);
+		long[] reached = new long[open.length];
+		reached[startRow * wordsPerRow(cols)] = 1L;
+		return !reachesExit(open, reached, rows, cols);
+	}
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective for every entry at once, by spreading from all the
+	 * entries together. It gives the same answer as Propagation.isEffective(area).
+	 *
+	 * @param area A Block to inspect.
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area) {
+		if (area.getStorage() instanceof OffHeapGrid)
+			return isEffective((OffHeapGrid) area.getStorage());
+		long[] open = openMask(area);
+		return isEffective(open, new long[open.length], area.getRows(), area.getCols());
+	}
+
+	/**
+	 * This method does the same check as isEffective(area) for a Block over an
+	 * OffHeapGrid, off the heap: the reached cells are kept in an OffHeapWords that
+	 * is given back before the method returns, and the open cells are read from
+	 * the grid a row at a time.
+	 *
+	 * @param grid The grid to inspect.
+	 * @return True if no entry has a path to an exit, otherwise false.
+	 */
+	public static boolean isEffective(OffHeapGrid grid) {
+		int rows = grid.getRows();
+		int cols = grid.getCols();
+		int wordsPerRow = wordsPerRow(cols);
+		long[] open = new long[wordsPerRow];
+		long[] above = new long[wordsPerRow];
+		if (cols == 1) {
+			// in a single column any two open cells next to each other make a path
+			for (int row = 0; row < rows; row++) {
+				openRow(grid, row, open, 0);
+				if (row > 0 && (open[0] & above[0]) != 0)
+					return false;
+				above[0] = open[0];
+			}
+			return true;
+		}
+		try (OffHeapWords reached = new OffHeapWords((long) rows * wordsPerRow)) {
+			for (int row = 0; row < rows; row++) {
+				openRow(grid, row, open, 0);
+				reached.set((long) row * wordsPerRow, open[0] & 1L);
+			}
+			return !reachesExit(grid, reached);
+		}
+	}
+
+	/**
+	 * This method does the same check as isEffective(area) on the open cells of a
+	 * Block given as bits, so that a caller checking many layouts can reuse the
+	 * same arrays and does not need a Block at all.
+	 *
+	 * @param open    The open cells, row by row as returned by openMask.
+	 * @param reached An array at least as long as open, overwritten by the check.
+	 * @param rows    Number of rows.
+	 * @param cols    Number of columns.
+	 * @return True if no entry has a path to an exit, otherwise false.
+	 */
+	public static boolean isEffective(long[] open, long[] reached, int rows, int cols) {
+		if (cols == 1) {
+			// in a single column any two open cells next to each other make a path
+			for (int row = 1; row < rows; row++) {
+				if ((open[row] & open[row - 1]) != 0)
+					return false;
+			}
+			return true;
+		}
+		int wordsPerRow = wordsPerRow(cols);
+		Arrays.fill(reached, 0, rows * wordsPerRow, 0L);
+		for (int row = 0; row < rows; row++)
+			reached[row * wordsPerRow] = open[row * wordsPerRow] & 1L;
+		return !reachesExit(open, reached, rows, cols);
+	}
+
+	/**
+	 * This method returns the number of long words used for a row of the given
+	 * number of columns.
+	 *
+	 * @param cols Number of columns.
+	 * @return the number of words per row
+	 */
+	public static int wordsPerRow(int cols) {
+		return (cols + 63) >>> 6;
+	}
+
+	/**
+	 * This method returns the open cells (CLEAR and not visited) of a Block as
+	 * bits, row by row, with wordsPerRow(m) words for each row. A Block stored in a
+	 * PackedGrid is converted a word at a time.
+	 *
+	 * @param area Block to convert.
+	 * @return The open cells of the Block.
+	 */
+	public static long[] openMask(Block area) {
+		int rows = area.getRows();
+		int wordsPerRow = wordsPerRow(area.getCols());
+		long[] open = new long[rows * wordsPerRow];
+		for (int row = 0; row < rows; row++)
+			openRow(area, row, open, row * wordsPerRow);
+		return open;
+	}
+
+	/**
+	 * This method writes the open cells (CLEAR and not visited) of one row of a
+	 * Block as bits into wordsPerRow(m) words of the given array, starting at the
+	 * given index. A Block stored in a PackedGrid is converted a word at a time.
+	 *
+	 * @param area   Block to convert.
+	 * @param row    Row number.
+	 * @param open   Array to write the bits into.
+	 * @param offset Index of the first word of the row in the array.
+	 */
+	public static void openRow(Block area, int row, long[] open, int offset) {
+		int cols = area.getCols();
+		int wordsPerRow = wordsPerRow(cols);
+		Grid grid = area.getStorage();
+		if (grid instanceof OffHeapGrid) {
+			openRow((OffHeapGrid) grid, row, open, offset);
+		} else if (grid instanceof PackedGrid) {
+			PackedGrid packed = (PackedGrid) grid;
+			long lastWord = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+			for (int word = 0; word < wordsPerRow; word++) {
+				long bits = ~(packed.getStatusWord(row, word) | packed.getVisitedWord(row, word));
+				open[offset + word] = word == wordsPerRow - 1 ? bits & lastWord : bits;
+			}
+		} else {
+			Arrays.fill(open, offset, offset + wordsPerRow, 0L);
+			for (int col = 0; col < cols; col++) {
+				if (grid.getStatus(row, col) == 0 && !grid.isVisited(row, col))
+					open[offset + (col >>> 6)] |= 1L << col;
+			}
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that writes the open cells of one row
+	 * of an OffHeapGrid as bits, a word at a time.
+	 */
+	private static void openRow(OffHeapGrid grid, int row, long[] open, int offset) {
+		int cols = grid.getCols();
+		int wordsPerRow = wordsPerRow(cols);
+		long lastWord = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+		for (int word = 0; word < wordsPerRow; word++) {
+			long bits = ~(grid.getStatusWord(row, word) | grid.getVisitedWord(row, word));
+			open[offset + word] = word == wordsPerRow - 1 ? bits & lastWord : bits;
+		}
+	}
+
+	/**
+	 * This method spreads the reached cells to every open cell they connect to and
+	 * returns as soon as a cell in the last column is reached. Both arrays hold
+	 * the cells row by row as returned by openMask, and the reached cells must be
+	 * open. The reached cells are updated in place.
+	 *
+	 * @param open    The open cells.
+	 * @param reached The cells reached so far.
+	 * @param rows    Number of rows.
+	 * @param cols    Number of columns.
+	 * @return True if a cell in the last column is reached, otherwise false.
+	 */
+	public static boolean reachesExit(long[] open, long[] reached, int rows, int cols) {
+		if (cols == 0)
+			return false;
+		int wordsPerRow = wordsPerRow(cols);
+		int exitWord = (cols - 1) >>> 6;
+		long exitBit = 1L << (cols - 1);
+
+		for (int row = 0; row < rows; row++) {
+			spreadRow(open, reached, row * wordsPerRow, wordsPerRow);
+			if ((reached[row * wordsPerRow + exitWord] & exitBit) != 0)
+				return true;
+		}
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			// sweep down, then up
+			for (int row = 1; row < rows; row++) {
+				if (spreadFrom(open, reached, row * wordsPerRow, (row - 1) * wordsPerRow, wordsPerRow)) {
+					changed = true;
+					if ((reached[row * wordsPerRow + exitWord] & exitBit) != 0)
+						return true;
+				}
+			}
+			for (int row = rows - 2; row >= 0; row--) {
+				if (spreadFrom(open, reached, row * wordsPerRow, (row + 1) * wordsPerRow, wordsPerRow)) {
+					changed = true;
+					if ((reached[row * wordsPerRow + exitWord] & exitBit) != 0)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method serves as a helper method that does the same as
+	 * reachesExit(open, reached, rows, cols) on the open cells of an OffHeapGrid and
+	 * reached cells kept in an OffHeapWords, row by row as well. The row being
+	 * swept and its neighbour are copied to the heap, spread there and written
+	 * back if they changed.
+	 */
+	private static boolean reachesExit(OffHeapGrid grid, OffHeapWords reached) {
+		int rows = grid.getRows();
+		int cols = grid.getCols();
+		if (cols == 0)
+			return false;
+		int wordsPerRow = wordsPerRow(cols);
+		int exitWord = (cols - 1) >>> 6;
+		long exitBit = 1L << (cols - 1);
+		long[] open = new long[wordsPerRow];
+		long[] pair = new long[2 * wordsPerRow]; // the row, then its neighbour
+
+		for (int row = 0; row < rows; row++) {
+			openRow(grid, row, open, 0);
+			load(reached, row, pair, 0);
+			spreadRow(open, pair, 0, wordsPerRow);
+			store(reached, row, pair);
+			if ((pair[exitWord] & exitBit) != 0)
+				return true;
+		}
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			// sweep down, then up
+			for (int row = 1; row < rows; row++) {
+				if (spreadFrom(grid, reached, row, row - 1, open, pair)) {
+					changed = true;
+					if ((pair[exitWord] & exitBit) != 0)
+						return true;
+				}
+			}
+			for (int row = rows - 2; row >= 0; row--) {
+				if (spreadFrom(grid, reached, row, row + 1, open, pair)) {
+					changed = true;
+					if ((pair[exitWord] & exitBit) != 0)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method serves as a helper method that spreads the reached cells of a
+	 * neighbouring row of an OffHeapGrid into a row, and then along the row.
+	 *
+	 * @return True if the row has new reached cells, otherwise false.
+	 */
+	private static boolean spreadFrom(OffHeapGrid grid, OffHeapWords reached, int row, int from, long[] open,
+			long[] pair) {
+		int wordsPerRow = open.length;
+		load(reached, from, pair, wordsPerRow);
+		load(reached, row, pair, 0);
+		openRow(grid, row, open, 0);
+		if (!spreadFrom(open, pair, 0, wordsPerRow, wordsPerRow))
+			return false;
+		store(reached, row, pair);
+		return true;
+	}
+
+	/**
+	 * This method serves as a helper method that copies the reached cells of a row
+	 * to the heap, starting at the given index.
+	 */
+	private static void load(OffHeapWords reached, int row, long[] words, int offset) {
+		int wordsPerRow = words.length / 2;
+		for (int word = 0; word < wordsPerRow; word++)
+			words[offset + word] = reached.get((long) row * wordsPerRow + word);
+	}
+
+	/**
+	 * This method serves as a helper method that copies the first row of words
+	 * back to the reached cells of a row.
+	 */
+	private static void store(OffHeapWords reached, int row, long[] words) {
+		int wordsPerRow = words.length / 2;
+		for (int word = 0; word < wordsPerRow; word++)
+			reached.set((long) row * wordsPerRow + word, words[word]);
+	}
+
+	/**
+	 * This method serves as a helper method that spreads the reached cells of a
+	 * neighbouring row into a row, and then along the row.
+	 *
+	 * @return True if the row has new reached cells, otherwise false.
+	 */
+	private static boolean spreadFrom(long[] open, long[] reached, int row, int from, int wordsPerRow) {
+		boolean changed = false;
+		for (int word = 0; word < wordsPerRow; word++) {
+			long bits = reached[row + word] | (reached[from + word] & open[row + word]);
+			if (bits != reached[row + word]) {
+				reached[row + word] = bits;
+				changed = true;
+			}
+		}
+		if (changed)
+			spreadRow(open, reached, row, wordsPerRow);
+		return changed;
+	}
+
+	/**
+	 * This method serves as a helper method that spreads the reached cells of a
+	 * row to the whole runs of open cells they are in. A run that crosses a word
+	 * boundary is carried into the next word on the way right and into the
+	 * previous word on the way back.
+	 */
+	private static void spreadRow(long[] open, long[] reached, int row, int wordsPerRow) {
+		long carry = 0;
+		for (int word = 0; word < wordsPerRow; word++) {
+			long bits = (reached[row + word] | carry) & open[row + word];
+			bits = spreadWord(open[row + word], bits);
+			reached[row + word] = bits;
+			carry = bits >>> 63; // the last cell of the word reaches the first of the next one
+		}
+		carry = 0;
+		for (int word = wordsPerRow - 1; word >= 0; word--) {
+			long bits = reached[row + word];
+			long seeded = (bits | carry) & open[row + word];
+			if (seeded != bits) {
+				bits = spreadWord(open[row + word], seeded);
+				reached[row + word] = bits;
+			}
+			carry = bits << 63; // the first cell of the word reaches the last of the previous one
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that returns every run of open bits
+	 * containing at least one seed bit. Adding the seeds to the open bits carries
+	 * from the lowest seed of a run to the top of the run; doing the same on the
+	 * reversed bits fills the run down to its bottom.
+	 *
+	 * @param open  The open bits.
+	 * @param seeds The seed bits, all of them open.
+	 * @return The open runs holding a seed.
+	 */
+	private static long spreadWord(long open, long seeds) {
+		if (seeds == 0)
+			return 0;
+		long up = (((open + seeds) ^ open) & open) | seeds;
+		long reversedOpen = Long.reverse(open);
+		long reversedSeeds = Long.reverse(seeds);
+		long down = Long.reverse((((reversedOpen + reversedSeeds) ^ reversedOpen) & reversedOpen) | reversedSeeds);
+		return up | down;
+	}
+
+}
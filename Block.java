@@ -14,15 +14,29 @@
  * block shown above can have the following initial status values for
  * CLEAR/MARKED: and false for Visited.
  * 
+ * The cells themselves are kept by a Grid. A Block created from a Cell[][]
+ * keeps the cells as they are given, while a Block created from any other Grid
+ * (for example a PackedGrid for very large layouts) works the same way without
+ * any Cell objects.
+ * 
  * @author Liying Lu
  *
  */
 public class Block {
-	private Cell[][] grid;
+	private Grid storage;
+	private int rows;
+	private int cols;
 	private int currentCol = -1;
 	private int currentRow = -1;
 	private int startCol = -1;
 	private int startRow = -1;
+	private VisitMarks marks;
+
+	/**
+	 * The bits of getFreeNeighbours: the cell on the left, on the right, above and
+	 * below is free to move in.
+	 */
+	public static final int LEFT = 1, RIGHT = 2, UP = 4, DOWN = 8;
 
 	/**
 	 * A constructor that creates a new block by taking in a two-dimensional array
@@ -31,16 +45,26 @@ public class Block {
 	 * @param grid A n by m array of Cell
 	 */
 	public Block(Cell[][] grid) {
-		this.grid = grid;
+		setGrid(grid);
+	}
+
+	/**
+	 * A constructor that creates a new block on top of the given grid storage.
+	 * 
+	 * @param storage A n by m Grid holding the cells.
+	 */
+	public Block(Grid storage) {
+		setStorage(storage);
 	}
 
 	/**
-	 * A getter that returns the Grid.
+	 * A getter that returns the Grid. If the block was not created from a
+	 * Cell[][], the returned cells are views of the grid storage.
 	 * 
 	 * @return the grid
 	 */
 	public Cell[][] getGrid() {
-		return grid;
+		return storage.toCells();
 	}
 
 	/**
@@ -49,7 +73,56 @@ public class Block {
 	 * @param grid the grid to set
 	 */
 	public void setGrid(Cell[][] grid) {
-		this.grid = grid;
+		setStorage(new CellGrid(grid));
+	}
+
+	/**
+	 * A getter that returns the grid storage of the block.
+	 * 
+	 * @return the storage
+	 */
+	public Grid getStorage() {
+		return storage;
+	}
+
+	/**
+	 * A setter that sets the grid storage of the block.
+	 * 
+	 * @param storage the storage to set
+	 */
+	public void setStorage(Grid storage) {
+		this.storage = storage;
+		this.rows = storage.getRows();
+		this.cols = storage.getCols();
+		this.marks = null;
+	}
+
+	/**
+	 * A getter that returns the number of rows (n) of the block.
+	 * 
+	 * @return the number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns (m) of the block.
+	 * 
+	 * @return the number of columns
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * This method takes a snapshot of the block that can no longer be changed and
+	 * can be searched by many threads at the same time.
+	 * 
+	 * @return A FrozenBlock with the same cells as this block.
+	 */
+	public FrozenBlock freeze() {
+		return new FrozenBlock(this);
 	}
 
 	/**
@@ -63,7 +136,7 @@ public class Block {
 	public boolean isValid(int row, int col) {
 		// Checks that the row and column numbers are both greater or equals to zero
 		// and row is less than n, column is less than m.
-		return (row < grid.length) && (row >= 0) && (col < grid[0].length) && (col >= 0);
+		return (row < rows) && (row >= 0) && (col < cols) && (col >= 0);
 	}
 
 	/**
@@ -77,7 +150,7 @@ public class Block {
 	public int getStatus(int row, int col) {
 		// check that the cell is valid
 		if (isValid(row, col)) {
-			return grid[row][col].getStatus();
+			return storage.getStatus(row, col);
 		} else
 			return -1;
 	}
@@ -93,7 +166,7 @@ public class Block {
 	public boolean isVisited(int row, int col) {
 		// check that the cell is valid
 		if (isValid(row, col)) {
-			return grid[row][col].getVisited();
+			return storage.isVisited(row, col);
 		} else
 			return false;
 	}
@@ -111,7 +184,7 @@ public class Block {
 
 		// check that 0 <= row <= n-1 and column = 0
 		// also check that the cell is not visited and CLEAR
-		return (row >= 0) && (row < grid.length) && (col == 0) && !isVisited(row, col) && getStatus(row, col) == 0;
+		return (row >= 0) && (row < rows) && (col == 0) && !isVisited(row, col) && getStatus(row, col) == 0;
 
 	}
 
@@ -127,7 +200,7 @@ public class Block {
 	public boolean isExit(int row, int col) {
 		// check that 0 <= row <= n-1, and column = m-1
 		// also check that the cell is not visited and CLEAR
-		return (row >= 0) && (row < grid.length) && (col == grid[0].length - 1) && !isVisited(row, col)
+		return (row >= 0) && (row < rows) && (col == cols - 1) && !isVisited(row, col)
 				&& getStatus(row, col) == 0;
 	}
 
@@ -181,6 +254,78 @@ public class Block {
 		return getStatus(row, col) == 0 && isValid(row, col);
 	}
 
+	/**
+	 * A method that returns the index of a cell when the cells are numbered row by
+	 * row, i.e. row x m + column.
+	 * 
+	 * @param row Row index of the cell.
+	 * @param col Column index of the cell.
+	 * @return The index of the cell.
+	 */
+	public int indexOf(int row, int col) {
+		return row * cols + col;
+	}
+
+	/**
+	 * A getter that returns the marks used by the searches through this block to
+	 * remember the cells they visited, so that a search does not have to change
+	 * the visited value of the cells. The marks are created on first use.
+	 * 
+	 * @return the marks
+	 */
+	public VisitMarks getMarks() {
+		if (marks == null) {
+			if ((long) rows * cols > Integer.MAX_VALUE - 8)
+				throw new IllegalStateException("Block is too large to search: " + rows + " x " + cols);
+			marks = new VisitMarks(rows * cols);
+		}
+		return marks;
+	}
+
+	/**
+	 * A method that returns if a search can step into a given cell. The cell has
+	 * to be free to move in, not visited, and not marked by the search yet.
+	 * 
+	 * @param row   Row index of the cell.
+	 * @param col   Column index of the cell.
+	 * @param marks Cells visited by the search.
+	 * @return True if the cell is valid, CLEAR, not visited and not marked.
+	 */
+	public boolean isOpen(int row, int col, VisitMarks marks) {
+		return isFree(row, col) && !isVisited(row, col) && !marks.isMarked(indexOf(row, col));
+	}
+
+	/**
+	 * A setter that sets the status of a cell to 0 as CLEAR, or 1 as MARKED.
+	 * 
+	 * @param row    Row index of the cell.
+	 * @param col    Column index of the cell.
+	 * @param status the status to set
+	 */
+	public void setStatus(int row, int col, int status) {
+		if (!isValid(row, col))
+			throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is not in the block");
+		storage.setStatus(row, col, status);
+	}
+
+	/**
+	 * A getter that returns which of the four neighbours of a cell are free to
+	 * move in, as isFree answers for them: a sum of LEFT, RIGHT, UP and DOWN. The
+	 * searches use it to go through the free neighbours with a single bit trick
+	 * instead of a chain of checks. They come from Grid.getFreeNeighbours, which
+	 * looks them up in the table of a PackedGrid, an OffHeapGrid or a MortonGrid
+	 * and reads the four neighbours of a Block created from a Cell[][].
+	 *
+	 * @param row Row index of the cell.
+	 * @param col Column index of the cell.
+	 * @return The free neighbours of the cell, or 0 if the cell is not valid.
+	 */
+	public int getFreeNeighbours(int row, int col) {
+		if (!isValid(row, col))
+			return 0;
+		return storage.getFreeNeighbours(row, col);
+	}
+
 	/**
 	 * A setter that sets the startRow and startCol attributes of a block and
 	 * updates the currentRow and currentCol attributes.
@@ -225,8 +370,8 @@ public class Block {
 	public void moveLeft() {
 
 		if (isFree(currentRow, currentCol - 1)) { // check the next cell is valid
-			grid[currentRow][currentCol].setVisited(true); // sets the current cell as visited
-			grid[currentRow][currentCol].setStatus(0); // sets the current cell is as CLEAR
+			storage.setVisited(currentRow, currentCol, true); // sets the current cell as visited
+			setStatus(currentRow, currentCol, 0); // sets the current cell is as CLEAR
 			setCurrentCol(currentCol - 1); // move to the next cell by updating the column number;
 		}
 	}
@@ -238,8 +383,8 @@ public class Block {
 	public void moveRight() {
 
 		if (isFree(currentRow, currentCol + 1)) { // check the next cell is valid
-			grid[currentRow][currentCol].setVisited(true); // sets the current cell as visited
-			grid[currentRow][currentCol].setStatus(0); // sets the current cell is as CLEAR
+			storage.setVisited(currentRow, currentCol, true); // sets the current cell as visited
+			setStatus(currentRow, currentCol, 0); // sets the current cell is as CLEAR
 			setCurrentCol(currentCol + 1); // move to the next cell by updating the column number;
 		}
 	}
@@ -251,8 +396,8 @@ public class Block {
 	public void moveUp() {
 
 		if (isFree(currentRow - 1, currentCol)) { // check the next cell is valid
-			grid[currentRow][currentCol].setVisited(true); // sets the current cell as visited
-			grid[currentRow][currentCol].setStatus(0); // sets the current cell is as CLEAR
+			storage.setVisited(currentRow, currentCol, true); // sets the current cell as visited
+			setStatus(currentRow, currentCol, 0); // sets the current cell is as CLEAR
 			setCurrentRow(currentRow - 1); // move to the next cell by updating the column number;
 		}
 	}
@@ -264,8 +409,8 @@ public class Block {
 	public void moveDown() {
 
 		if (isFree(currentRow + 1, currentCol)) { // check the next cell is valid
-			grid[currentRow][currentCol].setVisited(true); // sets the current cell as visited
-			grid[currentRow][currentCol].setStatus(0); // sets the current cell is as CLEAR
+			storage.setVisited(currentRow, currentCol, true); // sets the current cell as visited
+			setStatus(currentRow, currentCol, 0); // sets the current cell is as CLEAR
 			setCurrentRow(currentRow + 1); // move to the next cell by updating the column number;
 		}
 	}
@@ -0,0 +1,61 @@
+/**
+ * A CellGrid is a Grid that keeps one Cell object for each cell, exactly as
+ * it is given as a two-dimensional array. This is the storage a Block uses when
+ * it is created from a Cell[][].
+ *
+ * @author Liying Lu
+ *
+ */
+public class CellGrid implements Grid {
+	private final Cell[][] cells;
+
+	/**
+	 * A constructor that wraps a two-dimensional array of Cell.
+	 *
+	 * @param cells A n by m array of Cell
+	 */
+	public CellGrid(Cell[][] cells) {
+		this.cells = cells;
+	}
+
+	@Override
+	public int getRows() {
+		return cells.length;
+	}
+
+	@Override
+	public int getCols() {
+		return cells.length == 0 ? 0 : cells[0].length;
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return cells[row][col].getStatus();
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		cells[row][col].setStatus(status);
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return cells[row][col].getVisited();
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		cells[row][col].setVisited(visited);
+	}
+
+	/**
+	 * This method returns the wrapped array itself.
+	 *
+	 * @return the cells
+	 */
+	@Override
+	public Cell[][] toCells() {
+		return cells;
+	}
+
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.Stack;
+
+/**
+ * A CellPath is a path through a Block kept as a stack of positions. Each
+ * position (row, column) is packed into a single long in a growable array, so
+ * pushing a position does not create any object, and a CellPath can be cleared
+ * and reused for the next search. The first position of the path is at index 0
+ * and the last one is at the top of the stack. For callers that work with the
+ * paths of pathCalc, toStack() returns the same path as a stack of ArrayLists.
+ *
+ * @author Liying Lu
+ *
+ */
+public class CellPath {
+	private long[] positions;
+	private int size;
+
+	/**
+	 * A constructor that creates an empty path.
+	 */
+	public CellPath() {
+		positions = new long[64];
+	}
+
+	/**
+	 * This method adds a position at the top of the path.
+	 *
+	 * @param row Row index of the position.
+	 * @param col Column index of the position.
+	 */
+	public void push(int row, int col) {
+		if (size == positions.length)
+			positions = Arrays.copyOf(positions, Math.max(size + 1, size + (size >> 1)));
+		positions[size++] = ((long) row << 32) | (col & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * This method removes the position at the top of the path.
+	 */
+	public void pop() {
+		if (size == 0)
+			throw new EmptyStackException();
+		size--;
+	}
+
+	/**
+	 * This method removes all the positions so that the path can be reused.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * A getter that returns the number of positions in the path.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * A method that returns if the path has no positions.
+	 *
+	 * @return True if the path is empty, otherwise false.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * A getter that returns the row index of a position.
+	 *
+	 * @param index Index of the position, 0 being the first one.
+	 * @return the row index
+	 */
+	public int getRow(int index) {
+		checkIndex(index);
+		return (int) (positions[index] >> 32);
+	}
+
+	/**
+	 * A getter that returns the column index of a position.
+	 *
+	 * @param index Index of the position, 0 being the first one.
+	 * @return the column index
+	 */
+	public int getCol(int index) {
+		checkIndex(index);
+		return (int) positions[index];
+	}
+
+	/**
+	 * A getter that returns the row index of the position at the top of the path.
+	 *
+	 * @return the row index
+	 */
+	public int peekRow() {
+		if (size == 0)
+			throw new EmptyStackException();
+		return getRow(size - 1);
+	}
+
+	/**
+	 * A getter that returns the column index of the position at the top of the
+	 * path.
+	 *
+	 * @return the column index
+	 */
+	public int peekCol() {
+		if (size == 0)
+			throw new EmptyStackException();
+		return getCol(size - 1);
+	}
+
+	/**
+	 * This method serves as a helper method that checks a position index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	/**
+	 * This method pushes every position of the path, from the first to the last,
+	 * as an ArrayList of row and column onto the given stack.
+	 *
+	 * @param stack Stack to push the positions onto.
+	 * @return the given stack
+	 */
+	public Stack<ArrayList<Integer>> pushTo(Stack<ArrayList<Integer>> stack) {
+		for (int i = 0; i < size; i++) {
+			ArrayList<Integer> position = new ArrayList<Integer>(2);
+			position.add(getRow(i));
+			position.add(getCol(i));
+			stack.push(position);
+		}
+		return stack;
+	}
+
+	/**
+	 * This method returns the path as a stack of ArrayLists of row and column, the
+	 * way pathCalc returns it.
+	 *
+	 * @return A new stack holding the path.
+	 */
+	public Stack<ArrayList<Integer>> toStack() {
+		return pushTo(new Stack<ArrayList<Integer>>());
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof CellPath))
+			return false;
+		CellPath path = (CellPath) other;
+		if (size != path.size)
+			return false;
+		for (int i = 0; i < size; i++) {
+			if (positions[i] != path.positions[i])
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++)
+			hash = 31 * hash + Long.hashCode(positions[i]);
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				text.append(", ");
+			text.append('[').append(getRow(i)).append(", ").append(getCol(i)).append(']');
+		}
+		return text.append(']').toString();
+	}
+
+}
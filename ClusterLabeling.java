@@ -0,0 +1,557 @@
+import java.util.Arrays;
+
+/**
+ * A ClusterLabeling finds the clusters of a grid, the connected regions of
+ * open cells (CLEAR and not visited) also called crowd pockets, together with
+ * the size and the bounding box of each cluster and whether it touches an entry
+ * (left column) or an exit (right column).
+ *
+ * The grid is labeled with the Hoshen-Kopelman algorithm in a single pass, one
+ * row at a time. Each open cell takes the label of its open left or upper
+ * neighbour, or a new label if it has neither; when both are open and have
+ * different labels, the two labels are joined in a union-find over the labels.
+ * The statistics of a cluster are kept on its root, whose first cell is the
+ * first of the cluster. Once a row is labeled, the labels are compacted: the
+ * clusters still on the row are numbered again from 0 in the order of their
+ * leftmost cell in the row, and the clusters that have no cell left on the row
+ * can no longer grow, so their statistics are moved to the finished clusters.
+ * The labels in use are therefore at most one per column whatever the number
+ * of rows, and the memory used is two rows of labels plus a few ints per
+ * cluster found, so grids that do not fit in memory as a Block can be streamed
+ * through addRow.
+ *
+ * The labels of a row only hold for that row: two cells of the row have the
+ * same label if they are in the same cluster as far as the rows added so far
+ * show, and two labels of a row may still be joined by a later row. Once every
+ * row is added, finish numbers the clusters from 0 to getClusterCount() - 1 in
+ * the order of their first cell, row by row, and getCluster turns a label of the
+ * last row into its cluster number. A caller that wants the cluster of every
+ * cell needs a label per cell anyway, which RegionLabeling gives.
+ *
+ * @author Liying Lu
+ *
+ */
+public class ClusterLabeling {
+	private static final byte ENTRY = 1;
+	private static final byte EXIT = 2;
+
+	/**
+	 * A RowListener is given the labels of each row as soon as the row is labeled
+	 * and compacted, with -1 for a cell that is not open. The array is reused for
+	 * a later row, so it has to be copied to be kept.
+	 */
+	public interface RowListener {
+		void labeled(int row, int[] labels);
+	}
+
+	private final int cols;
+	private int rows;
+	private int[] previous;
+	private int[] current;
+	// the labels of the rows being labeled
+	private int labels;
+	private int[] parent;
+	private int[] sizes;
+	private int[] minRows, maxRows, minCols, maxCols;
+	private byte[] touches;
+	private long[] firsts; // the first cell of each label, as row x m + column
+	private int[] renumbered; // the new number of each label while compacting
+	private int[] scratch;
+	// the clusters that are finished
+	private int clusterCount;
+	private int[] clusterSizes;
+	private int[] clusterMinRows, clusterMaxRows, clusterMinCols, clusterMaxCols;
+	private byte[] clusterTouches;
+	private long[] clusterFirsts;
+	private int[] clusters; // cluster number of each label of the last row once finished
+	private boolean finished;
+
+	/**
+	 * A constructor that labels every row of the given block and finishes.
+	 *
+	 * @param area Block to label.
+	 */
+	public ClusterLabeling(Block area) {
+		this(area, null);
+	}
+
+	/**
+	 * A constructor that labels every row of the given block, gives the labels of
+	 * each row to the listener and finishes.
+	 *
+	 * @param area     Block to label.
+	 * @param listener Listener of the labeled rows, or null.
+	 */
+	public ClusterLabeling(Block area, RowListener listener) {
+		this(area.getCols());
+		long[] open = new long[BitParallelPropagation.wordsPerRow(cols)];
+		for (int row = 0; row < area.getRows(); row++) {
+			BitParallelPropagation.openRow(area, row, open, 0);
+			int[] labeled = addRow(open);
+			if (listener != null)
+				listener.labeled(row, labeled);
+		}
+		finish();
+	}
+
+	/**
+	 * A constructor for a labeling of rows with the given number of columns,
+	 * added one at a time with addRow.
+	 *
+	 * @param m Number of columns.
+	 */
+	public ClusterLabeling(int m) {
+		if (m <= 0)
+			throw new IllegalArgumentException("Invalid number of columns: " + m);
+		cols = m;
+		previous = new int[m];
+		current = new int[m];
+		Arrays.fill(current, -1);
+		int capacity = 16;
+		parent = new int[capacity];
+		sizes = new int[capacity];
+		minRows = new int[capacity];
+		maxRows = new int[capacity];
+		minCols = new int[capacity];
+		maxCols = new int[capacity];
+		touches = new byte[capacity];
+		firsts = new long[capacity];
+		renumbered = new int[capacity];
+		scratch = new int[capacity];
+		clusterSizes = new int[capacity];
+		clusterMinRows = new int[capacity];
+		clusterMaxRows = new int[capacity];
+		clusterMinCols = new int[capacity];
+		clusterMaxCols = new int[capacity];
+		clusterTouches = new byte[capacity];
+		clusterFirsts = new long[capacity];
+	}
+
+	/**
+	 * This method labels the next row. Bit i of word w of open is set if the cell
+	 * in column 64 x w + i is open, as in a row of BitParallelPropagation.openMask;
+	 * bits past the last column are ignored.
+	 *
+	 * @param open The open cells of the row, in wordsPerRow(m) words.
+	 * @return The labels of the row, numbered from 0 in the order of their leftmost
+	 *         cell, valid until the next row is added.
+	 */
+	public int[] addRow(long[] open) {
+		if (finished)
+			throw new UnsupportedOperationException("ClusterLabeling is finished");
+		if (open.length < BitParallelPropagation.wordsPerRow(cols))
+			throw new IllegalArgumentException("Row has " + open.length + " words for " + cols + " columns");
+		int[] swap = previous;
+		previous = current;
+		current = swap;
+		int row = rows++;
+		for (int col = 0; col < cols; col++) {
+			if ((open[col >>> 6] & 1L << col) == 0) {
+				current[col] = -1;
+				continue;
+			}
+			int left = col > 0 ? current[col - 1] : -1;
+			int up = previous[col];
+			int label;
+			if (left < 0 && up < 0)
+				label = newLabel(row, col);
+			else if (left < 0)
+				label = find(up);
+			else if (up < 0 || up == left)
+				label = find(left);
+			else
+				label = union(left, up);
+			current[col] = label;
+			add(label, row, col);
+		}
+		compact();
+		return current;
+	}
+
+	/**
+	 * This method serves as a helper method that starts a new label with no cells
+	 * and returns it. A row uses at most one label per column, so the arrays never
+	 * grow past the number of columns.
+	 */
+	private int newLabel(int row, int col) {
+		if (labels == parent.length) {
+			int capacity = (int) Math.min(cols + 1L, 2L * labels);
+			parent = Arrays.copyOf(parent, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+			minRows = Arrays.copyOf(minRows, capacity);
+			maxRows = Arrays.copyOf(maxRows, capacity);
+			minCols = Arrays.copyOf(minCols, capacity);
+			maxCols = Arrays.copyOf(maxCols, capacity);
+			touches = Arrays.copyOf(touches, capacity);
+			firsts = Arrays.copyOf(firsts, capacity);
+			renumbered = Arrays.copyOf(renumbered, capacity);
+			scratch = Arrays.copyOf(scratch, capacity);
+		}
+		int label = labels++;
+		parent[label] = label;
+		sizes[label] = 0;
+		touches[label] = 0;
+		firsts[label] = (long) row * cols + col;
+		minRows[label] = maxRows[label] = row;
+		minCols[label] = maxCols[label] = col;
+		return label;
+	}
+
+	/**
+	 * This method serves as a helper method that adds a cell to the statistics
+	 * of the root label.
+	 */
+	private void add(int root, int row, int col) {
+		sizes[root]++;
+		maxRows[root] = row; // rows only grow
+		minCols[root] = Math.min(minCols[root], col);
+		maxCols[root] = Math.max(maxCols[root], col);
+		if (col == 0)
+			touches[root] |= ENTRY;
+		if (col == cols - 1)
+			touches[root] |= EXIT;
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of a label and
+	 * halves the path to it on the way.
+	 */
+	private int find(int label) {
+		while (parent[label] != label) {
+			parent[label] = parent[parent[label]];
+			label = parent[label];
+		}
+		return label;
+	}
+
+	/**
+	 * This method serves as a helper method that joins the clusters of two labels
+	 * and returns the root of both, the root whose first cell comes first, which
+	 * keeps the statistics of both.
+	 */
+	private int union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB)
+			return rootA;
+		int root = firsts[rootA] < firsts[rootB] ? rootA : rootB;
+		int other = root == rootA ? rootB : rootA;
+		parent[other] = root;
+		sizes[root] += sizes[other];
+		minRows[root] = Math.min(minRows[root], minRows[other]);
+		maxRows[root] = Math.max(maxRows[root], maxRows[other]);
+		minCols[root] = Math.min(minCols[root], minCols[other]);
+		maxCols[root] = Math.max(maxCols[root], maxCols[other]);
+		touches[root] |= touches[other];
+		return root;
+	}
+
+	/**
+	 * This method serves as a helper method that compacts the labels once a row
+	 * is labeled: the clusters on the row are numbered again in the order of their
+	 * leftmost cell, and every other cluster is finished.
+	 */
+	private void compact() {
+		Arrays.fill(renumbered, 0, labels, -1);
+		int count = 0;
+		for (int col = 0; col < cols; col++) {
+			if (current[col] < 0)
+				continue;
+			int root = find(current[col]);
+			if (renumbered[root] < 0)
+				renumbered[root] = count++;
+			current[col] = renumbered[root];
+		}
+		for (int label = 0; label < labels; label++) {
+			if (parent[label] == label && renumbered[label] < 0)
+				addCluster(label);
+		}
+		// move the statistics of the roots on the row to their new number
+		move(sizes);
+		move(minRows);
+		move(maxRows);
+		move(minCols);
+		move(maxCols);
+		for (int label = 0; label < labels; label++) {
+			if (parent[label] == label && renumbered[label] >= 0)
+				scratch[renumbered[label]] = touches[label];
+		}
+		for (int label = 0; label < count; label++)
+			touches[label] = (byte) scratch[label];
+		long[] moved = new long[count];
+		for (int label = 0; label < labels; label++) {
+			if (parent[label] == label && renumbered[label] >= 0)
+				moved[renumbered[label]] = firsts[label];
+		}
+		System.arraycopy(moved, 0, firsts, 0, count);
+		labels = count;
+		for (int label = 0; label < count; label++)
+			parent[label] = label;
+	}
+
+	/**
+	 * This method serves as a helper method that moves the values of the roots on
+	 * the row to their new number.
+	 */
+	private void move(int[] values) {
+		for (int label = 0; label < labels; label++) {
+			if (parent[label] == label && renumbered[label] >= 0)
+				scratch[renumbered[label]] = values[label];
+		}
+		System.arraycopy(scratch, 0, values, 0, labels);
+	}
+
+	/**
+	 * This method serves as a helper method that adds the statistics of a root
+	 * label to the finished clusters.
+	 */
+	private void addCluster(int root) {
+		if (clusterCount == clusterSizes.length) {
+			if (clusterCount == Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("Too many clusters");
+			int capacity = (int) Math.min(Integer.MAX_VALUE - 8L, 2L * clusterCount);
+			clusterSizes = Arrays.copyOf(clusterSizes, capacity);
+			clusterMinRows = Arrays.copyOf(clusterMinRows, capacity);
+			clusterMaxRows = Arrays.copyOf(clusterMaxRows, capacity);
+			clusterMinCols = Arrays.copyOf(clusterMinCols, capacity);
+			clusterMaxCols = Arrays.copyOf(clusterMaxCols, capacity);
+			clusterTouches = Arrays.copyOf(clusterTouches, capacity);
+			clusterFirsts = Arrays.copyOf(clusterFirsts, capacity);
+		}
+		int cluster = clusterCount++;
+		clusterSizes[cluster] = sizes[root];
+		clusterMinRows[cluster] = minRows[root];
+		clusterMaxRows[cluster] = maxRows[root];
+		clusterMinCols[cluster] = minCols[root];
+		clusterMaxCols[cluster] = maxCols[root];
+		clusterTouches[cluster] = touches[root];
+		clusterFirsts[cluster] = firsts[root];
+	}
+
+	/**
+	 * This method ends the labeling: the clusters still on the last row are
+	 * finished too, and every cluster is numbered in the order of its first cell.
+	 * No row can be added afterwards. Calling it again does nothing.
+	 */
+	public void finish() {
+		if (finished)
+			return;
+		int first = clusterCount;
+		for (int label = 0; label < labels; label++)
+			addCluster(label);
+		// the clusters are finished in no particular order, so each is moved to the
+		// rank of its first cell
+		long[] sorted = Arrays.copyOf(clusterFirsts, clusterCount);
+		Arrays.sort(sorted);
+		int[] ranks = new int[clusterCount];
+		for (int cluster = 0; cluster < clusterCount; cluster++)
+			ranks[cluster] = Arrays.binarySearch(sorted, clusterFirsts[cluster]);
+		clusterSizes = sort(clusterSizes, ranks);
+		clusterMinRows = sort(clusterMinRows, ranks);
+		clusterMaxRows = sort(clusterMaxRows, ranks);
+		clusterMinCols = sort(clusterMinCols, ranks);
+		clusterMaxCols = sort(clusterMaxCols, ranks);
+		byte[] sortedTouches = new byte[clusterCount];
+		for (int cluster = 0; cluster < clusterCount; cluster++)
+			sortedTouches[ranks[cluster]] = clusterTouches[cluster];
+		clusterTouches = sortedTouches;
+		clusters = new int[labels];
+		for (int label = 0; label < labels; label++)
+			clusters[label] = ranks[first + label];
+		clusterFirsts = null;
+		parent = sizes = minRows = maxRows = minCols = maxCols = renumbered = scratch = null;
+		touches = null;
+		firsts = null;
+		previous = current = null;
+		finished = true;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the values of the
+	 * clusters moved to their rank.
+	 */
+	private int[] sort(int[] values, int[] ranks) {
+		int[] sorted = new int[ranks.length];
+		for (int cluster = 0; cluster < ranks.length; cluster++)
+			sorted[ranks[cluster]] = values[cluster];
+		return sorted;
+	}
+
+	/**
+	 * This method serves as a helper method that checks that the labeling is
+	 * finished.
+	 */
+	private void checkFinished() {
+		if (!finished)
+			throw new UnsupportedOperationException("ClusterLabeling is not finished");
+	}
+
+	/**
+	 * This method serves as a helper method that checks that the labeling is
+	 * finished and that the cluster number is valid.
+	 */
+	private void check(int cluster) {
+		checkFinished();
+		if (cluster < 0 || cluster >= clusterCount)
+			throw new IndexOutOfBoundsException("Invalid cluster: " + cluster);
+	}
+
+	/**
+	 * A getter that returns the number of rows added.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns.
+	 *
+	 * @return the cols
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of labels of the last row added, one per
+	 * cluster on the row, which is never more than the number of columns.
+	 *
+	 * @return the labels
+	 */
+	public int getLabelCount() {
+		return labels;
+	}
+
+	/**
+	 * A getter that returns the number of clusters.
+	 *
+	 * @return the number of clusters
+	 */
+	public int getClusterCount() {
+		checkFinished();
+		return clusterCount;
+	}
+
+	/**
+	 * A getter that returns the cluster of a label of the last row added.
+	 *
+	 * @param label A label of the last row, -1 for a cell that is not open.
+	 * @return The cluster number, or -1.
+	 */
+	public int getCluster(int label) {
+		checkFinished();
+		if (label == -1)
+			return -1;
+		if (label < 0 || label >= labels)
+			throw new IndexOutOfBoundsException("Invalid label: " + label);
+		return clusters[label];
+	}
+
+	/**
+	 * A getter that returns the number of cells in a cluster.
+	 *
+	 * @param cluster Cluster number.
+	 * @return the size of the cluster
+	 */
+	public int getSize(int cluster) {
+		check(cluster);
+		return clusterSizes[cluster];
+	}
+
+	/**
+	 * This method returns the number of clusters of each size: element s is the
+	 * number of clusters of s cells.
+	 *
+	 * @return The size distribution, as long as the largest cluster plus one.
+	 */
+	public int[] getSizeDistribution() {
+		checkFinished();
+		int largest = 0;
+		for (int cluster = 0; cluster < clusterCount; cluster++)
+			largest = Math.max(largest, clusterSizes[cluster]);
+		int[] distribution = new int[largest + 1];
+		for (int cluster = 0; cluster < clusterCount; cluster++)
+			distribution[clusterSizes[cluster]]++;
+		return distribution;
+	}
+
+	/**
+	 * A getter that returns the top row of the bounding box of a cluster.
+	 *
+	 * @param cluster Cluster number.
+	 * @return the smallest row of the cluster
+	 */
+	public int getMinRow(int cluster) {
+		check(cluster);
+		return clusterMinRows[cluster];
+	}
+
+	/**
+	 * A getter that returns the bottom row of the bounding box of a cluster.
+	 *
+	 * @param cluster Cluster number.
+	 * @return the largest row of the cluster
+	 */
+	public int getMaxRow(int cluster) {
+		check(cluster);
+		return clusterMaxRows[cluster];
+	}
+
+	/**
+	 * A getter that returns the left column of the bounding box of a cluster.
+	 *
+	 * @param cluster Cluster number.
+	 * @return the smallest column of the cluster
+	 */
+	public int getMinCol(int cluster) {
+		check(cluster);
+		return clusterMinCols[cluster];
+	}
+
+	/**
+	 * A getter that returns the right column of the bounding box of a cluster.
+	 *
+	 * @param cluster Cluster number.
+	 * @return the largest column of the cluster
+	 */
+	public int getMaxCol(int cluster) {
+		check(cluster);
+		return clusterMaxCols[cluster];
+	}
+
+	/**
+	 * A method that returns if a cluster has a cell in the left column.
+	 *
+	 * @param cluster Cluster number.
+	 * @return True if the cluster touches an entry.
+	 */
+	public boolean hasEntry(int cluster) {
+		check(cluster);
+		return (clusterTouches[cluster] & ENTRY) != 0;
+	}
+
+	/**
+	 * A method that returns if a cluster has a cell in the right column.
+	 *
+	 * @param cluster Cluster number.
+	 * @return True if the cluster touches an exit.
+	 */
+	public boolean hasExit(int cluster) {
+		check(cluster);
+		return (clusterTouches[cluster] & EXIT) != 0;
+	}
+
+	/**
+	 * A method that returns if a cluster links an entry to a different exit
+	 * cell, like RegionLabeling.isLinked.
+	 *
+	 * @param cluster Cluster number.
+	 * @return True if a person entering the cluster can leave it through an exit.
+	 */
+	public boolean isLinked(int cluster) {
+		return hasEntry(cluster) && hasExit(cluster) && clusterSizes[cluster] >= 2;
+	}
+
+}
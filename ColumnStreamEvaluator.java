@@ -0,0 +1,255 @@
+import java.util.Arrays;
+
+/**
+ * A ColumnStreamEvaluator checks the social distancing of a layout that is
+ * given one column at a time, from the entry column on the left to the exit
+ * column on the right, without ever holding the whole layout. It answers the
+ * same question as Propagation.isEffective(area) for the Block made of the
+ * columns added so far.
+ *
+ * Only the last column added, the frontier, is kept. Each open cell (CLEAR and
+ * not visited) of the frontier has a label, and two frontier cells have the same
+ * label if they are connected through the columns added so far; each label
+ * also knows if it is reachable from an entry. A new column is joined to the
+ * frontier with a union-find over the rows of the old and the new column: a
+ * new open cell is joined with the open cell above it and with the open cell to
+ * its left. The new cells then take the first row of their set as label, and a
+ * set is reachable if it holds a reachable old label or, for the first column,
+ * any cell at all. The memory used is a few arrays of the number of rows,
+ * whatever the number of columns, and adding a column takes time linear in the
+ * number of rows.
+ *
+ * Once no frontier cell is reachable, no later cell can be reached either, so
+ * the layout is effective whatever the remaining columns are.
+ *
+ * @author Liying Lu
+ *
+ */
+public class ColumnStreamEvaluator {
+	private final int rows;
+	private int columns;
+	private int[] labels; // label of each frontier row, -1 if not open
+	private boolean[] reachable; // by label
+	private int reachableCount; // reachable labels of the frontier
+	private boolean pairInFirstColumn;
+
+	// scratch space for joining a column
+	private final int[] parent;
+	private final boolean[] reached;
+	private final int[] first;
+	private int[] nextLabels;
+	private boolean[] nextReachable;
+
+	/**
+	 * A constructor for an evaluator of columns with the given number of rows.
+	 *
+	 * @param n Number of rows.
+	 */
+	public ColumnStreamEvaluator(int n) {
+		if (n <= 0 || n > (Integer.MAX_VALUE - 8) / 2)
+			throw new IllegalArgumentException("Invalid number of rows: " + n);
+		rows = n;
+		labels = new int[n];
+		reachable = new boolean[n];
+		nextLabels = new int[n];
+		nextReachable = new boolean[n];
+		parent = new int[2 * n];
+		reached = new boolean[2 * n];
+		first = new int[2 * n];
+		Arrays.fill(labels, -1);
+	}
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective for every entry, by streaming its columns through an
+	 * evaluator. It gives the same answer as Propagation.isEffective(area).
+	 *
+	 * @param area A Block to inspect.
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area) {
+		int rows = area.getRows();
+		Grid grid = area.getStorage();
+		ColumnStreamEvaluator evaluator = new ColumnStreamEvaluator(rows);
+		long[] open = new long[(rows + 63) >>> 6];
+		for (int col = 0; col < area.getCols(); col++) {
+			Arrays.fill(open, 0L);
+			for (int row = 0; row < rows; row++) {
+				if (grid.getStatus(row, col) == 0 && !grid.isVisited(row, col))
+					open[row >>> 6] |= 1L << row;
+			}
+			evaluator.addColumn(open);
+		}
+		return evaluator.isEffective();
+	}
+
+	/**
+	 * This method adds the next column. Bit i of word w of open is set if the cell
+	 * in row 64 x w + i is open; bits past the last row are ignored.
+	 *
+	 * @param open The open cells of the column, in (n + 63) / 64 words.
+	 */
+	public void addColumn(long[] open) {
+		if (open.length < (rows + 63) >>> 6)
+			throw new IllegalArgumentException("Column has " + open.length + " words for " + rows + " rows");
+		// the old frontier uses elements 0 to n - 1, each row pointing at its label,
+		// and the new column uses elements n to 2n - 1
+		for (int row = 0; row < rows; row++) {
+			int label = labels[row];
+			parent[row] = label >= 0 ? label : row;
+			reached[row] = label == row && reachable[label];
+		}
+		boolean entry = columns == 0;
+		for (int row = 0; row < rows; row++) {
+			int cell = rows + row;
+			parent[cell] = cell;
+			if ((open[row >>> 6] & 1L << row) == 0)
+				continue;
+			reached[cell] = entry;
+			if (row > 0 && isOpen(open, row - 1)) {
+				union(cell - 1, cell);
+				if (entry)
+					pairInFirstColumn = true;
+			}
+			if (labels[row] >= 0)
+				union(labels[row], cell);
+		}
+
+		// give each set of the new column the first of its rows as label
+		Arrays.fill(first, -1);
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			nextReachable[row] = false;
+			if (!isOpen(open, row)) {
+				nextLabels[row] = -1;
+				continue;
+			}
+			int root = find(rows + row);
+			if (first[root] < 0) {
+				first[root] = row;
+				nextReachable[row] = reached[root];
+				if (reached[root])
+					count++;
+			}
+			nextLabels[row] = first[root];
+		}
+		int[] swapLabels = labels;
+		labels = nextLabels;
+		nextLabels = swapLabels;
+		boolean[] swapReachable = reachable;
+		reachable = nextReachable;
+		nextReachable = swapReachable;
+		reachableCount = count;
+		columns++;
+	}
+
+	/**
+	 * This method serves as a helper method that returns if a row of a column is
+	 * open.
+	 */
+	private boolean isOpen(long[] open, int row) {
+		return (open[row >>> 6] & 1L << row) != 0;
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of an element
+	 * and halves the path to it on the way.
+	 */
+	private int find(int element) {
+		while (parent[element] != element) {
+			parent[element] = parent[parent[element]];
+			element = parent[element];
+		}
+		return element;
+	}
+
+	/**
+	 * This method serves as a helper method that joins the sets of two elements.
+	 */
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB)
+			return;
+		parent[rootB] = rootA;
+		reached[rootA] |= reached[rootB];
+	}
+
+	/**
+	 * A getter that returns the number of rows.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns added so far.
+	 *
+	 * @return the columns
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block made
+	 * of the columns added so far is effective for every entry, taking the last
+	 * column added as the exit column. With no column added there is no path.
+	 *
+	 * @return True if no entry has a path to an exit, otherwise false.
+	 */
+	public boolean isEffective() {
+		// in a single column the entry is an exit too, so a path needs two cells
+		if (columns == 1)
+			return !pairInFirstColumn;
+		return reachableCount == 0;
+	}
+
+	/**
+	 * A method that returns if a cell of the last column added is open and can be
+	 * reached from an entry.
+	 *
+	 * @param row Row number of the cell.
+	 * @return True if the cell can be reached, otherwise false.
+	 */
+	public boolean isReachable(int row) {
+		if (row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("Invalid row: " + row);
+		return labels[row] >= 0 && reachable[labels[row]];
+	}
+
+	/**
+	 * A getter that returns the number of cells of the last column added that
+	 * can be reached from an entry.
+	 *
+	 * @return the number of reachable frontier cells
+	 */
+	public int getReachableCount() {
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			if (isReachable(row))
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * This method returns the cells of the last column added that can be reached
+	 * from an entry as a bitmask: bit i of word w is set if the cell in row 64 x w
+	 * + i can be reached.
+	 *
+	 * @return A bitmask of (n + 63) / 64 words.
+	 */
+	public long[] getReachable() {
+		long[] mask = new long[(rows + 63) >>> 6];
+		for (int row = 0; row < rows; row++) {
+			if (isReachable(row))
+				mask[row >>> 6] |= 1L << row;
+		}
+		return mask;
+	}
+
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/**
+ * A CriticalCells is the list of the open cells (CLEAR and not visited) of a
+ * Block that are choke points: marking any single one of them cuts every path
+ * from an entry to an exit, i.e. makes Propagation.isEffective(area) true. A
+ * Block that is already effective has no critical cells.
+ *
+ * Instead of marking each cell in turn and searching the Block again, the
+ * cells are found with a single depth first search, so the whole report takes
+ * time linear in the number of cells. The search runs over the open cells
+ * together with a source joined to every entry and a sink joined to every exit,
+ * and gives every node the time it was reached (disc) and the earliest time
+ * reachable from its subtree through one edge that is not in the search tree
+ * (low). A cell on the tree path from the source to the sink cuts them apart
+ * exactly when its child on that path has a low that is not earlier than the
+ * cell itself, as in Tarjan's articulation point algorithm. The search keeps
+ * its own stack, so it does not depend on the size of the Java stack.
+ *
+ * In a block with a single column every cell is both an entry and an exit, and
+ * a path needs two cells, so there a cell is critical if it is part of the only
+ * run of two or three open cells and marking it leaves no two open cells next
+ * to each other.
+ *
+ * @author Liying Lu
+ *
+ */
+public class CriticalCells {
+	private final Block area;
+	private final int rows;
+	private final int cols;
+	private final int[] critical;
+
+	/**
+	 * A constructor that finds the critical cells of the given block. The block
+	 * is not changed.
+	 *
+	 * @param area Block to inspect.
+	 */
+	public CriticalCells(Block area) {
+		this.area = area;
+		rows = area.getRows();
+		cols = area.getCols();
+		if ((long) rows * cols > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to inspect: " + rows + " x " + cols);
+		Grid grid = area.getStorage();
+		boolean[] open = new boolean[rows * cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++)
+				open[row * cols + col] = grid.getStatus(row, col) == 0 && !grid.isVisited(row, col);
+		}
+		critical = cols == 1 ? singleColumn(open) : articulationPoints(open);
+	}
+
+	/**
+	 * This method serves as a helper method that finds the critical cells of a
+	 * block with a single column.
+	 */
+	private int[] singleColumn(boolean[] open) {
+		int runs = 0;
+		int first = -1;
+		int length = 0;
+		for (int row = 0; row < rows; row++) {
+			if (!open[row])
+				continue;
+			int run = 1;
+			while (row + run < rows && open[row + run])
+				run++;
+			if (run >= 2) {
+				runs++;
+				first = row;
+				length = run;
+			}
+			row += run;
+		}
+		if (runs != 1 || length > 3)
+			return new int[0];
+		if (length == 2)
+			return new int[] { first, first + 1 };
+		return new int[] { first + 1 };
+	}
+
+	/**
+	 * This method serves as a helper method that runs the depth first search from
+	 * the source and returns the cells that cut the source from the sink, in
+	 * increasing order.
+	 */
+	private int[] articulationPoints(boolean[] open) {
+		int cells = open.length;
+		int source = cells;
+		int sink = cells + 1;
+		int[] disc = new int[cells + 2];
+		int[] low = new int[cells + 2];
+		int[] parent = new int[cells + 2];
+		int[] next = new int[cells + 2]; // the next neighbour to try
+		int[] stack = new int[cells + 2];
+		Arrays.fill(disc, -1);
+
+		int time = 0;
+		int top = 0;
+		disc[source] = low[source] = time++;
+		parent[source] = -1;
+		stack[top++] = source;
+		while (top > 0) {
+			int node = stack[top - 1];
+			int degree = node >= cells ? rows : 6;
+			if (next[node] < degree) {
+				int neighbour = neighbour(open, node, next[node]++);
+				if (neighbour < 0)
+					continue;
+				if (disc[neighbour] < 0) {
+					parent[neighbour] = node;
+					disc[neighbour] = low[neighbour] = time++;
+					stack[top++] = neighbour;
+				} else if (neighbour != parent[node]) {
+					low[node] = Math.min(low[node], disc[neighbour]);
+				}
+			} else {
+				top--;
+				if (parent[node] >= 0)
+					low[parent[node]] = Math.min(low[parent[node]], low[node]);
+			}
+		}
+		if (disc[sink] < 0)
+			return new int[0]; // already effective
+
+		int[] found = new int[cells];
+		int count = 0;
+		for (int child = sink, cell = parent[sink]; cell != source; child = cell, cell = parent[cell]) {
+			if (low[child] >= disc[cell])
+				found[count++] = cell;
+		}
+		found = Arrays.copyOf(found, count);
+		Arrays.sort(found);
+		return found;
+	}
+
+	/**
+	 * This method serves as a helper method that returns a neighbour of a node,
+	 * or -1 if that neighbour is not open. The neighbours of a cell are the cells
+	 * to its left, right, up and down, the source for an entry and the sink for
+	 * an exit; the neighbours of the source and the sink are the open cells of the
+	 * left and the right column.
+	 */
+	private int neighbour(boolean[] open, int node, int index) {
+		int cells = open.length;
+		if (node == cells)
+			return open[index * cols] ? index * cols : -1;
+		if (node == cells + 1)
+			return open[index * cols + cols - 1] ? index * cols + cols - 1 : -1;
+		int col = node % cols;
+		switch (index) {
+		case 0:
+			return col > 0 && open[node - 1] ? node - 1 : -1;
+		case 1:
+			return col < cols - 1 && open[node + 1] ? node + 1 : -1;
+		case 2:
+			return node >= cols && open[node - cols] ? node - cols : -1;
+		case 3:
+			return node + cols < cells && open[node + cols] ? node + cols : -1;
+		case 4:
+			return col == 0 ? cells : -1;
+		default:
+			return col == cols - 1 ? cells + 1 : -1;
+		}
+	}
+
+	/**
+	 * A getter that returns the block the critical cells were found for.
+	 *
+	 * @return the area
+	 */
+	public Block getArea() {
+		return area;
+	}
+
+	/**
+	 * A getter that returns the number of critical cells.
+	 *
+	 * @return the number of critical cells
+	 */
+	public int size() {
+		return critical.length;
+	}
+
+	/**
+	 * A getter that returns the row number of a critical cell. The cells are
+	 * ordered row by row.
+	 *
+	 * @param index Position of the cell in the list, from 0 to size() - 1.
+	 * @return the row of the cell
+	 */
+	public int getRow(int index) {
+		return critical[index] / cols;
+	}
+
+	/**
+	 * A getter that returns the column number of a critical cell.
+	 *
+	 * @param index Position of the cell in the list, from 0 to size() - 1.
+	 * @return the column of the cell
+	 */
+	public int getCol(int index) {
+		return critical[index] % cols;
+	}
+
+	/**
+	 * A method that returns if a cell is critical.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return True if marking the cell alone makes the Block effective, otherwise
+	 *         false.
+	 */
+	public boolean contains(int row, int col) {
+		if (!area.isValid(row, col))
+			return false;
+		return Arrays.binarySearch(critical, row * cols + col) >= 0;
+	}
+
+	/**
+	 * This method returns the critical cells as a bitmask over the cells numbered
+	 * row by row (row x m + column): bit i of word w is set if cell 64 x w + i is
+	 * critical.
+	 *
+	 * @return A bitmask of (n x m + 63) / 64 words.
+	 */
+	public long[] toBitmask() {
+		long[] mask = new long[(int) (((long) rows * cols + 63) >>> 6)];
+		for (int cell : critical)
+			mask[cell >>> 6] |= 1L << cell;
+		return mask;
+	}
+
+}
@@ -0,0 +1,503 @@
+import java.util.Arrays;
+
+/**
+ * A DynamicRegions keeps the connected regions of a Block current while its
+ * cells change one at a time, so that "is the Block effective" can be answered
+ * after every change without searching the Block again. Like RegionLabeling, a
+ * region is a set of open cells (CLEAR and not visited) connected by moves up,
+ * down, left and right, and every region knows its size and how many entry and
+ * exit cells it contains.
+ *
+ * Changes have to go through setStatus and setVisited of this class, which
+ * write the cell of the Block and then update the regions:
+ *
+ * When a cell opens, the regions around it are joined. The largest of them
+ * keeps its number, and the cells of the smaller ones are relabeled, so a cell
+ * is relabeled at most log2(n x m) times while cells only open.
+ *
+ * When a cell closes, its region may fall apart into up to four pieces, one for
+ * each open neighbour. A search is started from every neighbour, and the
+ * searches take one step each in turn. Two searches that meet are the same
+ * piece. As soon as all the pieces but one are searched to the end, the last
+ * piece keeps the region number and the others get new numbers. The work is
+ * bounded by the size of the smaller pieces, and when the region stays in one
+ * piece, which is the common case, the searches usually meet after a few steps.
+ *
+ * @author Liying Lu
+ *
+ */
+public class DynamicRegions {
+	private final Block area;
+	private final Grid grid;
+	private final int rows;
+	private final int cols;
+	private final int[] labels;
+	private int[] sizes = new int[16];
+	private int[] entries = new int[16];
+	private int[] exits = new int[16];
+	private int[] freeIds = new int[16];
+	private int freeCount;
+	private int regionCount;
+	private int nextId;
+	private int linkedCount;
+
+	// state of the searches started when a cell closes
+	private final int[] stamps;
+	private int stampBase;
+	private final int[][] queues = new int[4][16];
+	private final int[] heads = new int[4];
+	private final int[] tails = new int[4];
+	private final int[] groups = new int[4];
+	private int[] relabelQueue = new int[16];
+
+	/**
+	 * A constructor that labels the regions of the given block once. Later changes
+	 * have to be made through this object to keep the regions current.
+	 *
+	 * @param area Block to follow.
+	 */
+	public DynamicRegions(Block area) {
+		this.area = area;
+		this.grid = area.getStorage();
+		this.rows = area.getRows();
+		this.cols = area.getCols();
+		if ((long) rows * cols > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to follow: " + rows + " x " + cols);
+		RegionLabeling regions = new RegionLabeling(area);
+		labels = new int[rows * cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++)
+				labels[row * cols + col] = regions.getLabel(row, col);
+		}
+		regionCount = regions.getRegionCount();
+		nextId = regionCount;
+		grow(nextId);
+		for (int region = 0; region < regionCount; region++) {
+			sizes[region] = regions.getSize(region);
+			entries[region] = regions.getEntries(region);
+			exits[region] = regions.getExits(region);
+			if (regions.isLinked(region))
+				linkedCount++;
+		}
+		stamps = new int[rows * cols];
+	}
+
+	/**
+	 * A getter that returns the block followed by this object.
+	 *
+	 * @return the area
+	 */
+	public Block getArea() {
+		return area;
+	}
+
+	/**
+	 * A setter that sets the status of a cell of the block to 0 as CLEAR, or 1 as
+	 * MARKED, and updates the regions.
+	 *
+	 * @param row    Row number of the cell.
+	 * @param col    Column number of the cell.
+	 * @param status the status to set
+	 */
+	public void setStatus(int row, int col, int status) {
+		checkCell(row, col);
+		area.setStatus(row, col, status);
+		update(row, col);
+	}
+
+	/**
+	 * A setter that sets if a cell of the block is visited before, and updates the
+	 * regions.
+	 *
+	 * @param row     Row number of the cell.
+	 * @param col     Column number of the cell.
+	 * @param visited the visited to set
+	 */
+	public void setVisited(int row, int col, boolean visited) {
+		checkCell(row, col);
+		grid.setVisited(row, col, visited);
+		update(row, col);
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block is
+	 * effective for every entry. It gives the same answer as
+	 * Propagation.isEffective(area) in constant time.
+	 *
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public boolean isEffective() {
+		return linkedCount == 0;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block is
+	 * effective from the given entry. It gives the same answer as
+	 * Propagation.isEffective(area, startRow, startCol) in constant time.
+	 *
+	 * @param startRow Starting row number of the Block.
+	 * @param startCol Starting column number of the Block.
+	 * @return True if the social distancing is effective in the Block, otherwise
+	 *         false.
+	 */
+	public boolean isEffective(int startRow, int startCol) {
+		if (startCol != 0)
+			return true; // not an entry
+		int region = getLabel(startRow, startCol);
+		return region < 0 || !isLinked(region);
+	}
+
+	/**
+	 * A getter that returns the number of regions.
+	 *
+	 * @return the number of regions
+	 */
+	public int getRegionCount() {
+		return regionCount;
+	}
+
+	/**
+	 * A getter that returns the number of regions that link an entry to an exit.
+	 *
+	 * @return the number of linked regions
+	 */
+	public int getLinkedCount() {
+		return linkedCount;
+	}
+
+	/**
+	 * A getter that returns the region of a cell. MARKED, visited and invalid
+	 * cells are not in any region and return -1. Unlike RegionLabeling, the
+	 * region numbers are not consecutive and a number may be reused after its
+	 * region is gone.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return The region number of the cell, or -1.
+	 */
+	public int getLabel(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols)
+			return -1;
+		return labels[row * cols + col];
+	}
+
+	/**
+	 * A getter that returns the number of cells in a region.
+	 *
+	 * @param region Region number.
+	 * @return the size of the region
+	 */
+	public int getSize(int region) {
+		return sizes[region];
+	}
+
+	/**
+	 * A method that returns if a region links an entry to a different exit cell,
+	 * in the same way as RegionLabeling.isLinked.
+	 *
+	 * @param region Region number.
+	 * @return True if a person entering the region can leave it through an exit.
+	 */
+	public boolean isLinked(int region) {
+		return entries[region] > 0 && exits[region] > 0 && sizes[region] >= 2;
+	}
+
+	/**
+	 * This method serves as a helper method that refuses a cell outside the block.
+	 */
+	private void checkCell(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols)
+			throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is outside the block");
+	}
+
+	/**
+	 * This method serves as a helper method that opens or closes a cell in the
+	 * regions if its status or visited flag changed whether it is open.
+	 */
+	private void update(int row, int col) {
+		int cell = row * cols + col;
+		boolean open = grid.getStatus(row, col) == 0 && !grid.isVisited(row, col);
+		if (open && labels[cell] < 0)
+			open(cell);
+		else if (!open && labels[cell] >= 0)
+			close(cell);
+	}
+
+	/**
+	 * This method serves as a helper method that joins the regions around a cell
+	 * that has just opened, relabeling the smaller regions into the largest.
+	 */
+	private void open(int cell) {
+		int largest = -1;
+		for (int direction = 0; direction < 4; direction++) {
+			int next = neighbour(cell, direction);
+			if (next >= 0 && labels[next] >= 0 && (largest < 0 || sizes[labels[next]] > sizes[largest]))
+				largest = labels[next];
+		}
+		if (largest < 0) {
+			largest = newRegion();
+		} else if (isLinked(largest)) {
+			linkedCount--;
+		}
+		labels[cell] = largest;
+		count(largest, cell, 1);
+		for (int direction = 0; direction < 4; direction++) {
+			int next = neighbour(cell, direction);
+			if (next < 0 || labels[next] < 0 || labels[next] == largest)
+				continue;
+			int smaller = labels[next];
+			if (isLinked(smaller))
+				linkedCount--;
+			relabel(next, smaller, largest);
+			sizes[largest] += sizes[smaller];
+			entries[largest] += entries[smaller];
+			exits[largest] += exits[smaller];
+			freeRegion(smaller);
+		}
+		if (isLinked(largest))
+			linkedCount++;
+	}
+
+	/**
+	 * This method serves as a helper method that gives the cells of a region
+	 * reachable from the given cell a new region number.
+	 */
+	private void relabel(int start, int from, int to) {
+		int tail = 0;
+		labels[start] = to;
+		relabelQueue[tail++] = start;
+		for (int head = 0; head < tail; head++) {
+			int cell = relabelQueue[head];
+			for (int direction = 0; direction < 4; direction++) {
+				int next = neighbour(cell, direction);
+				if (next < 0 || labels[next] != from)
+					continue;
+				labels[next] = to;
+				if (tail == relabelQueue.length)
+					relabelQueue = Arrays.copyOf(relabelQueue, 2 * tail);
+				relabelQueue[tail++] = next;
+			}
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that takes a cell that has just closed
+	 * out of its region, and splits the region if the cell was holding it
+	 * together.
+	 */
+	private void close(int cell) {
+		int region = labels[cell];
+		if (isLinked(region))
+			linkedCount--;
+		labels[cell] = -1;
+		count(region, cell, -1);
+
+		// start one search from every open neighbour
+		if (stampBase > Integer.MAX_VALUE - 8) {
+			Arrays.fill(stamps, 0);
+			stampBase = 0;
+		}
+		stampBase += 4;
+		int searches = 0;
+		for (int direction = 0; direction < 4; direction++) {
+			int next = neighbour(cell, direction);
+			if (next < 0 || labels[next] < 0)
+				continue;
+			stamps[next] = stampBase + searches;
+			queues[searches][0] = next;
+			heads[searches] = 0;
+			tails[searches] = 1;
+			groups[searches] = searches;
+			searches++;
+		}
+
+		if (searches >= 2)
+			split(region, searches);
+		if (sizes[region] == 0)
+			freeRegion(region);
+		else if (isLinked(region))
+			linkedCount++;
+	}
+
+	/**
+	 * This method serves as a helper method that runs the searches started by
+	 * close in turn until at most one piece of the region is left unfinished, then
+	 * gives every other piece a region number of its own.
+	 */
+	private void split(int region, int searches) {
+		while (true) {
+			int pieces = 0;
+			int unfinished = 0;
+			for (int s = 0; s < searches; s++) {
+				if (group(s) != s)
+					continue;
+				pieces++;
+				if (!isFinished(s, searches))
+					unfinished++;
+			}
+			if (pieces == 1)
+				return; // the searches all met, the region is still in one piece
+			if (unfinished <= 1)
+				break;
+			for (int s = 0; s < searches; s++) {
+				if (heads[s] < tails[s])
+					step(s);
+			}
+		}
+
+		// the unfinished piece, or else the largest one, keeps the region number
+		int keep = -1;
+		for (int s = 0; s < searches; s++) {
+			if (group(s) == s && (keep < 0 || !isFinished(s, searches)
+					|| (isFinished(keep, searches) && pieceSize(s, searches) > pieceSize(keep, searches))))
+				keep = s;
+		}
+		for (int s = 0; s < searches; s++) {
+			if (group(s) != s || s == keep)
+				continue;
+			int piece = newRegion();
+			for (int t = 0; t < searches; t++) {
+				if (group(t) != s)
+					continue;
+				for (int i = 0; i < tails[t]; i++) {
+					int cell = queues[t][i];
+					labels[cell] = piece;
+					count(piece, cell, 1);
+					count(region, cell, -1);
+				}
+			}
+			if (isLinked(piece))
+				linkedCount++;
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that takes one cell from the queue of
+	 * a search and adds its open neighbours that no search has reached yet. A
+	 * neighbour already reached by another search joins the two searches.
+	 */
+	private void step(int s) {
+		int cell = queues[s][heads[s]++];
+		for (int direction = 0; direction < 4; direction++) {
+			int next = neighbour(cell, direction);
+			if (next < 0 || labels[next] < 0)
+				continue;
+			int owner = stamps[next] - stampBase;
+			if (owner >= 0 && owner < 4) {
+				int a = group(owner);
+				int b = group(s);
+				if (a != b)
+					groups[Math.max(a, b)] = Math.min(a, b);
+				continue;
+			}
+			stamps[next] = stampBase + s;
+			if (tails[s] == queues[s].length)
+				queues[s] = Arrays.copyOf(queues[s], 2 * tails[s]);
+			queues[s][tails[s]++] = next;
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that returns the first search of the
+	 * group a search belongs to.
+	 */
+	private int group(int s) {
+		while (groups[s] != s)
+			s = groups[s];
+		return s;
+	}
+
+	/**
+	 * This method serves as a helper method that returns if every search of a
+	 * group has run out of cells.
+	 */
+	private boolean isFinished(int group, int searches) {
+		for (int s = 0; s < searches; s++) {
+			if (group(s) == group && heads[s] < tails[s])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the number of cells
+	 * reached by the searches of a group.
+	 */
+	private int pieceSize(int group, int searches) {
+		int size = 0;
+		for (int s = 0; s < searches; s++) {
+			if (group(s) == group)
+				size += tails[s];
+		}
+		return size;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the index of the
+	 * neighbour of a cell in the given direction (left, right, up, down), or -1 if
+	 * it is outside the block.
+	 */
+	private int neighbour(int cell, int direction) {
+		switch (direction) {
+		case 0:
+			return cell % cols == 0 ? -1 : cell - 1;
+		case 1:
+			return cell % cols == cols - 1 ? -1 : cell + 1;
+		case 2:
+			return cell < cols ? -1 : cell - cols;
+		default:
+			return cell + cols >= labels.length ? -1 : cell + cols;
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that adds a cell to the counts of a
+	 * region, or takes it away when sign is -1.
+	 */
+	private void count(int region, int cell, int sign) {
+		sizes[region] += sign;
+		if (cell % cols == 0)
+			entries[region] += sign;
+		if (cell % cols == cols - 1)
+			exits[region] += sign;
+	}
+
+	/**
+	 * This method serves as a helper method that returns an unused region number
+	 * with empty counts.
+	 */
+	private int newRegion() {
+		int region = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+		grow(nextId);
+		sizes[region] = 0;
+		entries[region] = 0;
+		exits[region] = 0;
+		regionCount++;
+		return region;
+	}
+
+	/**
+	 * This method serves as a helper method that lets a region number be reused.
+	 */
+	private void freeRegion(int region) {
+		if (freeCount == freeIds.length)
+			freeIds = Arrays.copyOf(freeIds, 2 * freeCount);
+		freeIds[freeCount++] = region;
+		regionCount--;
+	}
+
+	/**
+	 * This method serves as a helper method that makes room for the given number
+	 * of region numbers.
+	 */
+	private void grow(int count) {
+		if (count <= sizes.length)
+			return;
+		int length = Math.max(count, 2 * sizes.length);
+		sizes = Arrays.copyOf(sizes, length);
+		entries = Arrays.copyOf(entries, length);
+		exits = Arrays.copyOf(exits, length);
+	}
+
+}
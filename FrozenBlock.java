@@ -0,0 +1,110 @@
+/**
+ * A FrozenBlock is a snapshot of a Block that can no longer be changed. The
+ * cells are copied into a frozen PackedGrid, and every method that would change
+ * the cells or move through the block throws an UnsupportedOperationException.
+ * Because the searches of Propagation and RecursivePropagation only read the
+ * Block and keep the cells they visit in the marks returned by getMarks(), and
+ * every thread gets its own marks from a FrozenBlock, many threads can search
+ * the same FrozenBlock at the same time.
+ *
+ * @author Liying Lu
+ *
+ */
+public class FrozenBlock extends Block {
+	private final ThreadLocal<VisitMarks> threadMarks;
+	private final boolean frozen;
+
+	/**
+	 * A constructor that takes a snapshot of the cells of a block. Later changes
+	 * to the given block do not change the snapshot.
+	 *
+	 * @param area Block to take a snapshot of.
+	 */
+	public FrozenBlock(Block area) {
+		super(PackedGrid.copyOf(area.getStorage()).freeze());
+		final int size = area.getRows() * area.getCols();
+		threadMarks = ThreadLocal.withInitial(() -> new VisitMarks(size));
+		frozen = true;
+	}
+
+	/**
+	 * A getter that returns the marks of the calling thread, so that searches from
+	 * different threads do not share their visited cells.
+	 *
+	 * @return the marks of the calling thread
+	 */
+	@Override
+	public VisitMarks getMarks() {
+		return threadMarks.get();
+	}
+
+	/**
+	 * This method serves as a helper method that refuses to change the block once
+	 * the snapshot is taken.
+	 */
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new UnsupportedOperationException("The block is frozen");
+	}
+
+	@Override
+	public void setGrid(Cell[][] grid) {
+		checkNotFrozen();
+		super.setGrid(grid);
+	}
+
+	@Override
+	public void setStorage(Grid storage) {
+		checkNotFrozen();
+		super.setStorage(storage);
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		checkNotFrozen();
+		super.setStatus(row, col, status);
+	}
+
+	@Override
+	public void setCurrentCol(int currentCol) {
+		checkNotFrozen();
+		super.setCurrentCol(currentCol);
+	}
+
+	@Override
+	public void setCurrentRow(int currentRow) {
+		checkNotFrozen();
+		super.setCurrentRow(currentRow);
+	}
+
+	@Override
+	public void setStart(int row, int col) {
+		checkNotFrozen();
+		super.setStart(row, col);
+	}
+
+	@Override
+	public void moveLeft() {
+		checkNotFrozen();
+		super.moveLeft();
+	}
+
+	@Override
+	public void moveRight() {
+		checkNotFrozen();
+		super.moveRight();
+	}
+
+	@Override
+	public void moveUp() {
+		checkNotFrozen();
+		super.moveUp();
+	}
+
+	@Override
+	public void moveDown() {
+		checkNotFrozen();
+		super.moveDown();
+	}
+
+}
@@ -0,0 +1,107 @@
+/**
+ * A Grid is the storage behind a Block. It keeps the status (CLEAR=0/MARKED=1)
+ * and the visited flag of every cell of an n x m rectangular grid. The Block
+ * does all the bounds checking, so a Grid can assume that the row and column
+ * indexes it is given are always valid. Different implementations trade
+ * flexibility for memory: CellGrid keeps one Cell object per cell, while
+ * PackedGrid keeps the status and visited flags as bits.
+ *
+ * @author Liying Lu
+ *
+ */
+public interface Grid {
+
+	/**
+	 * A getter that returns the number of rows (n) of the grid.
+	 *
+	 * @return the number of rows
+	 */
+	int getRows();
+
+	/**
+	 * A getter that returns the number of columns (m) of the grid.
+	 *
+	 * @return the number of columns
+	 */
+	int getCols();
+
+	/**
+	 * A getter that returns the status of a cell.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return CLEAR=0/MARKED=1
+	 */
+	int getStatus(int row, int col);
+
+	/**
+	 * A setter that sets the status of a cell to 0 as CLEAR, or 1 as MARKED.
+	 *
+	 * @param row    Row number of the cell.
+	 * @param col    Column number of the cell.
+	 * @param status the status to set
+	 */
+	void setStatus(int row, int col, int status);
+
+	/**
+	 * This method checks if a cell is visited.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return True if the cell is visited before, otherwise false.
+	 */
+	boolean isVisited(int row, int col);
+
+	/**
+	 * A setter that sets if a cell is visited before.
+	 *
+	 * @param row     Row number of the cell.
+	 * @param col     Column number of the cell.
+	 * @param visited the visited to set
+	 */
+	void setVisited(int row, int col, boolean visited);
+
+	/**
+	 * A getter that returns which of the four neighbours of a cell are CLEAR, as a
+	 * sum of Block.LEFT, Block.RIGHT, Block.UP and Block.DOWN; a neighbour outside
+	 * of the grid is never CLEAR. The default implementation reads the four
+	 * neighbours on every call. PackedGrid, OffHeapGrid and MortonGrid keep a
+	 * table of four bits per cell instead, which their setStatus changes with the
+	 * cell, so the table is right whether the cell is changed through a Block, a
+	 * GridCell or the grid itself.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return The CLEAR neighbours of the cell.
+	 */
+	default int getFreeNeighbours(int row, int col) {
+		int free = 0;
+		if (col > 0 && getStatus(row, col - 1) == 0)
+			free |= Block.LEFT;
+		if (col + 1 < getCols() && getStatus(row, col + 1) == 0)
+			free |= Block.RIGHT;
+		if (row > 0 && getStatus(row - 1, col) == 0)
+			free |= Block.UP;
+		if (row + 1 < getRows() && getStatus(row + 1, col) == 0)
+			free |= Block.DOWN;
+		return free;
+	}
+
+	/**
+	 * This method returns the grid as a two-dimensional array of Cell for the
+	 * callers that still work with Cell[][]. The default implementation returns
+	 * views: reading or writing one of the returned cells reads or writes this
+	 * grid.
+	 *
+	 * @return A n by m array of Cell backed by this grid.
+	 */
+	default Cell[][] toCells() {
+		Cell[][] cells = new Cell[getRows()][getCols()];
+		for (int row = 0; row < cells.length; row++) {
+			for (int col = 0; col < cells[row].length; col++) {
+				cells[row][col] = new GridCell(this, row, col);
+			}
+		}
+		return cells;
+	}
+}
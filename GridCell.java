@@ -0,0 +1,49 @@
+/**
+ * A GridCell is a Cell that does not keep its own status and visited values.
+ * It reads and writes them from one cell of a Grid instead, so that a grid that
+ * is not made of Cell objects can still be handed out as a Cell[][].
+ *
+ * @author Liying Lu
+ *
+ */
+public class GridCell extends Cell {
+	private final Grid grid;
+	private final int row;
+	private final int col;
+
+	/**
+	 * A constructor that creates a view of the cell at the given row and column
+	 * of a grid.
+	 *
+	 * @param grid Grid that stores the cell.
+	 * @param row  Row number of the cell.
+	 * @param col  Column number of the cell.
+	 */
+	public GridCell(Grid grid, int row, int col) {
+		super(0);
+		this.grid = grid;
+		this.row = row;
+		this.col = col;
+	}
+
+	@Override
+	public int getStatus() {
+		return grid.getStatus(row, col);
+	}
+
+	@Override
+	public boolean getVisited() {
+		return grid.isVisited(row, col);
+	}
+
+	@Override
+	public void setStatus(int status) {
+		grid.setStatus(row, col, status);
+	}
+
+	@Override
+	public void setVisited(boolean visited) {
+		grid.setVisited(row, col, visited);
+	}
+
+}
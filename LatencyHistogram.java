@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+/**
+ * A LatencyHistogram counts measured durations (or any other non-negative
+ * values) in buckets, so that percentiles of millions of values can be read
+ * without keeping the values. Values below 32 get a bucket each; above that
+ * every power of two is split into 32 buckets, so a percentile is never off by
+ * more than about 3% of its value. Recording a value does not create any
+ * object. A LatencyHistogram is not safe for use by many threads at once; each
+ * thread should record into its own histogram and add them up afterwards.
+ *
+ * @author Liying Lu
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * This method counts a value.
+	 *
+	 * @param value Value to count, such as a duration in nanoseconds.
+	 */
+	public void record(long value) {
+		if (value < 0)
+			throw new IllegalArgumentException("Value must not be negative: " + value);
+		counts[bucketOf(value)]++;
+		count++;
+		total += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * This method adds all the values counted by another histogram to this one.
+	 *
+	 * @param other Histogram to add.
+	 */
+	public void add(LatencyHistogram other) {
+		for (int bucket = 0; bucket < counts.length; bucket++)
+			counts[bucket] += other.counts[bucket];
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * This method forgets all the counted values.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * A getter that returns the number of counted values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * A getter that returns the smallest counted value, or 0 if there is none.
+	 *
+	 * @return the smallest value
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * A getter that returns the largest counted value, or 0 if there is none.
+	 *
+	 * @return the largest value
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * A getter that returns the mean of the counted values, or 0 if there is none.
+	 *
+	 * @return the mean
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * This method returns a value that the given percentage of the counted values
+	 * do not exceed, rounded up to the largest value of its bucket, but never more
+	 * than the largest counted value.
+	 *
+	 * @param percentile Percentage from 0 to 100.
+	 * @return The value at the percentile, or 0 if no value is counted.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank)
+				return Math.min(max, highestValueOf(bucket));
+		}
+		return max;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the bucket of a value.
+	 */
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * This method serves as a helper method that returns the largest value that
+	 * falls in a bucket.
+	 */
+	private static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A MappedGrid is a read-only Grid kept in a layout file that is mapped into
+ * memory, so a Block can be opened on a very large layout without reading the
+ * file or creating any object per cell: opening only checks the header and maps
+ * the file, and the operating system loads the parts of the file that are read.
+ *
+ * A layout file holds a header of HEADER_SIZE bytes followed by the status bits
+ * of the cells, in the same order as a PackedGrid: row by row, every row
+ * starting on a new 64 bit word, bit i of word w of a row being the cell in
+ * column 64 x w + i, with 1 for MARKED. If the header says so, the visited bits
+ * follow in the same order; otherwise no cell is visited. All the numbers are
+ * little endian. The header is:
+ *
+ * bytes 0 to 3 - the MAGIC number.
+ *
+ * bytes 4 to 7 - the VERSION of the format.
+ *
+ * bytes 8 to 11 - the number of rows (n).
+ *
+ * bytes 12 to 15 - the number of columns (m).
+ *
+ * bytes 16 to 19 - the flags: HAS_VISITED if the visited bits follow.
+ *
+ * bytes 20 to 31 - zero.
+ *
+ * A file is mapped as a single buffer, so its bits must fit in 2 GB, about 17
+ * billion cells. Since the grid cannot be changed, the searches of Propagation
+ * and RecursivePropagation work on a Block over it, but the moves of the Block
+ * do not; PackedGrid.copyOf makes a copy that can be changed.
+ *
+ * @author Liying Lu
+ *
+ */
+public class MappedGrid implements Grid {
+	public static final int MAGIC = 0x4B4C4231; // "1BLK" read as little endian bytes
+	public static final int VERSION = 1;
+	public static final int HAS_VISITED = 1;
+	public static final int HEADER_SIZE = 32;
+
+	private final int rows;
+	private final int cols;
+	private final int wordsPerRow;
+	private final MappedByteBuffer buffer;
+	private final int visitedOffset; // -1 if the file has no visited bits
+
+	/**
+	 * This method serves as a private constructor for open.
+	 */
+	private MappedGrid(int rows, int cols, MappedByteBuffer buffer, boolean hasVisited) {
+		this.rows = rows;
+		this.cols = cols;
+		this.wordsPerRow = (cols + 63) >>> 6;
+		this.buffer = buffer;
+		this.visitedOffset = hasVisited ? HEADER_SIZE + rows * wordsPerRow * 8 : -1;
+	}
+
+	/**
+	 * This method maps a layout file into memory and returns it as a grid. The
+	 * mapping stays valid after the method returns; if the file is changed while
+	 * it is mapped, the grid reads the changed cells.
+	 *
+	 * @param file Layout file written by write.
+	 * @return The grid of the layout.
+	 * @throws IOException if the file cannot be read or is not a layout file.
+	 */
+	public static MappedGrid open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_SIZE)
+				throw new IOException("Not a layout file: " + file);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0)
+					throw new IOException("Not a layout file: " + file);
+			}
+			if (header.getInt(0) != MAGIC)
+				throw new IOException("Not a layout file: " + file);
+			if (header.getInt(4) != VERSION)
+				throw new IOException("Unknown layout file version " + header.getInt(4) + ": " + file);
+			int rows = header.getInt(8);
+			int cols = header.getInt(12);
+			int flags = header.getInt(16);
+			if (rows < 0 || cols < 0)
+				throw new IOException("Invalid layout size " + rows + " x " + cols + ": " + file);
+			boolean hasVisited = (flags & HAS_VISITED) != 0;
+			long expected = fileSize(rows, cols, hasVisited);
+			if (expected > Integer.MAX_VALUE)
+				throw new IOException("Layout file is too large to map: " + file);
+			if (length != expected)
+				throw new IOException("Layout file has " + length + " bytes instead of " + expected + ": " + file);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return new MappedGrid(rows, cols, buffer, hasVisited);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that returns the number of bytes of a
+	 * layout file.
+	 */
+	private static long fileSize(int rows, int cols, boolean hasVisited) {
+		long bytes = (long) rows * ((cols + 63) >>> 6) * 8;
+		return HEADER_SIZE + (hasVisited ? 2 * bytes : bytes);
+	}
+
+	/**
+	 * This method writes the cells of a two-dimensional array of Cell to a layout
+	 * file, replacing the file if it exists.
+	 *
+	 * @param cells A n by m array of Cell.
+	 * @param file  File to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(Cell[][] cells, Path file) throws IOException {
+		write(new CellGrid(cells), file);
+	}
+
+	/**
+	 * This method writes the cells of any grid to a layout file, replacing the
+	 * file if it exists. The visited bits are only written if a cell is visited.
+	 * The file is written a row at a time, and a PackedGrid a word at a time.
+	 *
+	 * @param grid Grid to write.
+	 * @param file File to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(Grid grid, Path file) throws IOException {
+		int rows = grid.getRows();
+		int cols = grid.getCols();
+		boolean hasVisited = false;
+		for (int row = 0; row < rows && !hasVisited; row++) {
+			for (int col = 0; col < cols && !hasVisited; col++)
+				hasVisited = grid.isVisited(row, col);
+		}
+		if (fileSize(rows, cols, hasVisited) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Grid is too large for a layout file: " + rows + " x " + cols);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(hasVisited ? HAS_VISITED : 0);
+			header.position(HEADER_SIZE).flip();
+			writeFully(channel, header);
+			writeBits(grid, channel, false);
+			if (hasVisited)
+				writeBits(grid, channel, true);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that writes the status or the visited
+	 * bits of a grid, one row at a time.
+	 */
+	private static void writeBits(Grid grid, FileChannel channel, boolean visited) throws IOException {
+		int cols = grid.getCols();
+		int wordsPerRow = (cols + 63) >>> 6;
+		ByteBuffer row = ByteBuffer.allocate(wordsPerRow * 8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int r = 0; r < grid.getRows(); r++) {
+			row.clear();
+			for (int word = 0; word < wordsPerRow; word++) {
+				if (grid instanceof PackedGrid) {
+					// same bits in the same order, a word at a time
+					PackedGrid packed = (PackedGrid) grid;
+					row.putLong(visited ? packed.getVisitedWord(r, word) : packed.getStatusWord(r, word));
+					continue;
+				}
+				long bits = 0;
+				for (int col = word << 6; col < Math.min(cols, (word + 1) << 6); col++) {
+					boolean set = visited ? grid.isVisited(r, col) : grid.getStatus(r, col) != 0;
+					if (set)
+						bits |= 1L << col;
+				}
+				row.putLong(bits);
+			}
+			row.flip();
+			writeFully(channel, row);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that writes a whole buffer.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of long words used for each row.
+	 *
+	 * @return the wordsPerRow
+	 */
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * A getter that returns 64 status bits of a row at once, like
+	 * PackedGrid.getStatusWord.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the status bits, 1 for MARKED
+	 */
+	public long getStatusWord(int row, int word) {
+		return buffer.getLong(HEADER_SIZE + (row * wordsPerRow + word) * 8);
+	}
+
+	/**
+	 * A getter that returns 64 visited bits of a row at once, like
+	 * PackedGrid.getVisitedWord.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the visited bits, 1 for visited
+	 */
+	public long getVisitedWord(int row, int word) {
+		if (visitedOffset < 0)
+			return 0;
+		return buffer.getLong(visitedOffset + (row * wordsPerRow + word) * 8);
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return (int) (getStatusWord(row, col >>> 6) >>> col) & 1;
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		throw new UnsupportedOperationException("The grid is read-only");
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return (getVisitedWord(row, col >>> 6) & (1L << col)) != 0;
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		throw new UnsupportedOperationException("The grid is read-only");
+	}
+
+}
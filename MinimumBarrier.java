@@ -0,0 +1,435 @@
+import java.util.Arrays;
+
+/**
+ * A MinimumBarrier is a smallest set of open cells (CLEAR and not visited) of a
+ * Block that, once MARKED, makes the social distancing effective for every
+ * entry, i.e. makes Propagation.isEffective(area) true.
+ *
+ * By Menger's theorem the smallest number of cells that cut every path from an
+ * entry to an exit is the largest number of such paths that share no cell. The
+ * paths are found as a maximum flow where every open cell can carry one unit:
+ * each cell is split into an in node and an out node joined by an edge of
+ * capacity 1, the out node of a cell leads to the in nodes of its open
+ * neighbours, the source leads to the in node of every entry and the out node
+ * of every exit leads to the sink. A first flow is found in linear time by
+ * walking paths from the entries with the left hand on the wall, which on a
+ * grid usually finds every path already, and the flow is then finished with
+ * Dinic's algorithm, one breadth first search and one blocking flow per phase,
+ * which also proves that no more paths are left. The graph is never
+ * built: the edges of a node are worked out from the cell, and the flow is kept
+ * as three arrays, whether a cell carries a unit, where the unit comes from and
+ * where it goes. Once no more flow can be pushed, the barrier is the set of
+ * cells whose in node can still be reached from the source but whose out node
+ * cannot.
+ *
+ * In a block with a single column every cell is both an entry and an exit, and
+ * a path needs two cells, so there the barrier is every second cell of each run
+ * of open cells.
+ *
+ * @author Liying Lu
+ *
+ */
+public class MinimumBarrier {
+	private static final int NONE = -1;
+	private static final int SOURCE = -2;
+	private static final int SINK = -3;
+
+	private final Block area;
+	private final int rows;
+	private final int cols;
+	private final int[] barrier;
+
+	// the flow, one unit at most per cell
+	private boolean[] open;
+	private boolean[] through;
+	private int[] inFlow;
+	private int[] outFlow;
+
+	// state of a phase of Dinic's algorithm over the nodes 2 x cell (in), 2 x
+	// cell + 1 (out), source and sink
+	private int source;
+	private int sink;
+	private int[] levels;
+	private byte[] arcs;
+	private int[] queue;
+
+	/**
+	 * A constructor that finds a smallest barrier of the given block. The block
+	 * is not changed.
+	 *
+	 * @param area Block to find a barrier for.
+	 */
+	public MinimumBarrier(Block area) {
+		this.area = area;
+		rows = area.getRows();
+		cols = area.getCols();
+		if ((long) rows * cols > (Integer.MAX_VALUE - 8) / 2)
+			throw new IllegalArgumentException("Block is too large to cut: " + rows + " x " + cols);
+		int cells = rows * cols;
+		Grid grid = area.getStorage();
+		open = new boolean[cells];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++)
+				open[row * cols + col] = grid.getStatus(row, col) == 0 && !grid.isVisited(row, col);
+		}
+		if (cols == 1) {
+			barrier = singleColumn();
+		} else {
+			barrier = maximumFlow();
+		}
+		open = null;
+		through = null;
+		inFlow = null;
+		outFlow = null;
+		levels = null;
+		arcs = null;
+		queue = null;
+	}
+
+	/**
+	 * This method serves as a helper method that picks every second cell of each
+	 * run of open cells of a single column.
+	 */
+	private int[] singleColumn() {
+		int[] found = new int[rows / 2];
+		int count = 0;
+		int run = 0;
+		for (int row = 0; row < rows; row++) {
+			run = open[row] ? run + 1 : 0;
+			if (run % 2 == 0 && run > 0)
+				found[count++] = row;
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * This method serves as a helper method that runs Dinic's algorithm and
+	 * returns the cells of the cut it leaves.
+	 */
+	private int[] maximumFlow() {
+		int cells = open.length;
+		through = new boolean[cells];
+		inFlow = new int[cells];
+		outFlow = new int[cells];
+		Arrays.fill(inFlow, NONE);
+		Arrays.fill(outFlow, NONE);
+		source = 2 * cells;
+		sink = 2 * cells + 1;
+		levels = new int[2 * cells + 2];
+		arcs = new byte[2 * cells + 2];
+		queue = new int[2 * cells + 2];
+		int[] stack = new int[2 * cells + 2];
+		int[] sourceArc = new int[1];
+
+		int flow = topmostPaths();
+		while (levelGraph()) {
+			Arrays.fill(arcs, (byte) 0);
+			sourceArc[0] = 0;
+			flow += blockingFlow(stack, sourceArc);
+		}
+
+		// the cut: cells whose in node is reached from the source and out node is
+		// not, after the last search found no path to the sink
+		int[] found = new int[flow];
+		int count = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			if (levels[2 * cell] >= 0 && levels[2 * cell + 1] < 0)
+				found[count++] = cell;
+		}
+		return found;
+	}
+
+	/**
+	 * This method serves as a helper method that finds a first set of paths that
+	 * share no cell before Dinic's algorithm starts. The entries are tried from
+	 * the top row down, and each path keeps its left hand on the wall: at every
+	 * cell it tries to turn left first, then to go straight, then to turn right,
+	 * so that it hugs the paths above it. A cell is entered at most once by all
+	 * the searches together, so this takes time linear in the number of cells,
+	 * and on a grid it usually finds all or nearly all of the paths. The paths
+	 * are stored as flow.
+	 */
+	private int topmostPaths() {
+		int[] rowSteps = { -1, 0, 1, 0 }; // up, right, down, left
+		int[] colSteps = { 0, 1, 0, -1 };
+		boolean[] seen = new boolean[open.length];
+		int[] path = queue; // not in use yet
+		byte[] headings = arcs;
+		byte[] tries = new byte[open.length];
+		int found = 0;
+		for (int row = 0; row < rows; row++) {
+			int entry = row * cols;
+			if (!open[entry] || seen[entry])
+				continue;
+			int length = 0;
+			seen[entry] = true;
+			path[length] = entry;
+			headings[length] = 1; // going right
+			tries[length++] = 0;
+			while (length > 0) {
+				int cell = path[length - 1];
+				if (cell % cols == cols - 1)
+					break; // an exit
+				if (tries[length - 1] == 3) {
+					length--; // a dead end, never to be entered again
+					continue;
+				}
+				int heading = (headings[length - 1] + 3 + tries[length - 1]++) & 3;
+				int nextRow = cell / cols + rowSteps[heading];
+				int nextCol = cell % cols + colSteps[heading];
+				if (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols)
+					continue;
+				int next = nextRow * cols + nextCol;
+				if (!open[next] || seen[next])
+					continue;
+				seen[next] = true;
+				path[length] = next;
+				headings[length] = (byte) heading;
+				tries[length++] = 0;
+			}
+			if (length == 0)
+				continue;
+			found++;
+			inFlow[path[0]] = SOURCE;
+			for (int i = 0; i < length; i++) {
+				through[path[i]] = true;
+				if (i + 1 < length) {
+					outFlow[path[i]] = path[i + 1];
+					inFlow[path[i + 1]] = path[i];
+				}
+			}
+			outFlow[path[length - 1]] = SINK;
+		}
+		return found;
+	}
+
+	/**
+	 * This method serves as a helper method that gives every node its distance
+	 * from the source in the residual graph, or -1. It returns if the sink was
+	 * reached.
+	 */
+	private boolean levelGraph() {
+		Arrays.fill(levels, -1);
+		int head = 0;
+		int tail = 0;
+		levels[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int node = queue[head++];
+			if (levels[sink] >= 0 && levels[node] >= levels[sink])
+				break; // no shorter path to the sink is left
+			int degree = node == source ? rows : degree(node);
+			for (int arc = 0; arc < degree; arc++) {
+				int next = target(node, arc);
+				if (next < 0 || levels[next] >= 0)
+					continue;
+				levels[next] = levels[node] + 1;
+				if (next != sink)
+					queue[tail++] = next;
+			}
+		}
+		return levels[sink] >= 0;
+	}
+
+	/**
+	 * This method serves as a helper method that pushes units along the paths of
+	 * the level graph until none is left, going forward from the last arc tried
+	 * at every node. It returns the number of units pushed.
+	 */
+	private int blockingFlow(int[] stack, int[] sourceArc) {
+		int pushed = 0;
+		int top = 0;
+		stack[top++] = source;
+		while (top > 0) {
+			int node = stack[top - 1];
+			int next = -1;
+			if (node == source) {
+				// the source has an arc to every row, too many for a byte
+				while (sourceArc[0] < rows && next < 0) {
+					int entry = sourceArc[0] * cols;
+					if (open[entry] && levels[2 * entry] == 1)
+						next = 2 * entry;
+					else
+						sourceArc[0]++;
+				}
+			} else {
+				int degree = degree(node);
+				while (arcs[node] < degree && next < 0) {
+					int candidate = target(node, arcs[node]);
+					if (candidate >= 0 && levels[candidate] == levels[node] + 1)
+						next = candidate;
+					else
+						arcs[node]++;
+				}
+			}
+			if (next < 0) {
+				levels[node] = -1; // dead end
+				top--;
+				if (top > 0)
+					advance(stack[top - 1], sourceArc);
+				continue;
+			}
+			if (next != sink) {
+				stack[top++] = next;
+				continue;
+			}
+			// a path to the sink: push one unit along it and start over
+			stack[top] = sink;
+			augment(stack, top + 1);
+			pushed++;
+			top = 1; // the arcs used up are skipped when they are tried again
+		}
+		return pushed;
+	}
+
+	/**
+	 * This method serves as a helper method that moves a node on to its next arc.
+	 */
+	private void advance(int node, int[] sourceArc) {
+		if (node == source)
+			sourceArc[0]++;
+		else
+			arcs[node]++;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the number of arcs of a
+	 * node other than the source: an in node has two (through the cell, back to
+	 * where its unit came from), an out node six (four neighbours, the sink, back
+	 * through the cell).
+	 */
+	private static int degree(int node) {
+		return (node & 1) == 0 ? 2 : 6;
+	}
+
+	/**
+	 * This method serves as a helper method that returns where an arc of a node
+	 * leads in the residual graph, or -1 if it has no capacity left.
+	 */
+	private int target(int node, int arc) {
+		if (node == source) {
+			int entry = arc * cols;
+			return open[entry] ? 2 * entry : -1;
+		}
+		int cell = node >>> 1;
+		if ((node & 1) == 0) { // in node
+			if (arc == 0)
+				return through[cell] ? -1 : node + 1;
+			return inFlow[cell] >= 0 ? 2 * inFlow[cell] + 1 : -1;
+		}
+		int col = cell % cols;
+		switch (arc) {
+		case 0:
+			return col > 0 && open[cell - 1] ? 2 * (cell - 1) : -1;
+		case 1:
+			return col < cols - 1 && open[cell + 1] ? 2 * (cell + 1) : -1;
+		case 2:
+			return cell >= cols && open[cell - cols] ? 2 * (cell - cols) : -1;
+		case 3:
+			return cell + cols < open.length && open[cell + cols] ? 2 * (cell + cols) : -1;
+		case 4:
+			return col == cols - 1 ? sink : -1;
+		default:
+			return through[cell] ? node - 1 : -1;
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that pushes one unit along the given
+	 * path of nodes from the source to the sink. Every variable is only changed by
+	 * the two arcs next to one node, in path order, so a unit taken away from a
+	 * cell is taken away before a new one is given to it.
+	 */
+	private void augment(int[] path, int length) {
+		for (int i = 0; i + 1 < length; i++) {
+			int from = path[i];
+			int to = path[i + 1];
+			if (from == source) {
+				inFlow[to >>> 1] = SOURCE;
+			} else if (to == sink) {
+				outFlow[from >>> 1] = SINK;
+			} else if ((from & 1) == 0) { // from an in node
+				int cell = from >>> 1;
+				if (to == from + 1) {
+					through[cell] = true;
+				} else { // back along the unit that came in
+					int previous = to >>> 1;
+					if (outFlow[previous] == cell)
+						outFlow[previous] = NONE;
+					if (inFlow[cell] == previous)
+						inFlow[cell] = NONE;
+				}
+			} else { // from an out node
+				int cell = from >>> 1;
+				if (to == from - 1) {
+					through[cell] = false;
+				} else {
+					outFlow[cell] = to >>> 1;
+					inFlow[to >>> 1] = cell;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A getter that returns the block the barrier was found for.
+	 *
+	 * @return the area
+	 */
+	public Block getArea() {
+		return area;
+	}
+
+	/**
+	 * A getter that returns the number of cells in the barrier, which is also the
+	 * largest number of paths from an entry to an exit that share no cell.
+	 *
+	 * @return the size of the barrier
+	 */
+	public int size() {
+		return barrier.length;
+	}
+
+	/**
+	 * A getter that returns the row number of a cell of the barrier.
+	 *
+	 * @param index Position of the cell in the barrier, from 0 to size() - 1.
+	 * @return the row of the cell
+	 */
+	public int getRow(int index) {
+		return barrier[index] / cols;
+	}
+
+	/**
+	 * A getter that returns the column number of a cell of the barrier.
+	 *
+	 * @param index Position of the cell in the barrier, from 0 to size() - 1.
+	 * @return the column of the cell
+	 */
+	public int getCol(int index) {
+		return barrier[index] % cols;
+	}
+
+	/**
+	 * A method that returns if a cell is in the barrier.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return True if the cell is in the barrier, otherwise false.
+	 */
+	public boolean contains(int row, int col) {
+		if (!area.isValid(row, col))
+			return false;
+		return Arrays.binarySearch(barrier, row * cols + col) >= 0;
+	}
+
+	/**
+	 * This method marks every cell of the barrier as MARKED in the block, which
+	 * makes the social distancing of the block effective.
+	 */
+	public void apply() {
+		for (int cell : barrier)
+			area.setStatus(cell / cols, cell % cols, 1);
+	}
+
+}
@@ -0,0 +1,358 @@
+/**
+ * A MortonGrid is a Grid that stores the status and the visited flag of every
+ * cell as a single bit, like a PackedGrid, but in Z-order (Morton order)
+ * instead of row by row. The index of a cell is made by interleaving the bits
+ * of its column and of its row, the column taking the even bits and the row the
+ * odd bits, so every 64 bit word holds an 8 x 8 square of cells, every 64 words
+ * a 64 x 64 square, and so on. A move up or down then usually stays in the same
+ * word or in a word close by, where in a PackedGrid it jumps a whole row of
+ * words ahead or back.
+ *
+ * When the grid is not square, only the low bits of the row and the column are
+ * interleaved, as many as the smaller side needs, and the remaining high bits of
+ * the larger side are put on top: the grid is a row or a column of Z-ordered
+ * squares. Both sides are rounded up to a power of two, so the grid takes at
+ * most four times the bits of a PackedGrid.
+ *
+ * Like a PackedGrid, the grid keeps the free neighbours of every cell in four
+ * bits per cell, changed by setStatus, here in Z-order as well: the four bits
+ * of the cell at an index are bits 4 x index to 4 x index + 3 of the table.
+ *
+ * The cell indexes can be used directly: index gives the index of a cell, and
+ * up, down, left and right give the index of a neighbour with a few bit
+ * operations, without going back to the row and the column. The Grid methods
+ * work on rows and columns like any other grid, so a Block over a MortonGrid
+ * can be searched by every propagation engine.
+ *
+ * @author Liying Lu
+ *
+ */
+public class MortonGrid implements Grid {
+	private static final long EVEN_BITS = 0x5555555555555555L;
+
+	private final int rows;
+	private final int cols;
+	private final int shared; // number of low bits interleaved from both the row and the column
+	private final long rowMask; // the bits of an index that come from the row
+	private final long colMask; // the bits of an index that come from the column
+	private final long[] rowBits; // the row part of the index of each row
+	private final long[] colBits; // the column part of the index of each column
+	private final long[] status;
+	private final long[] visited;
+	private final long[] freeNeighbours; // four bits per cell, 16 cells per word
+
+	/**
+	 * A constructor that creates a grid of the given size where every cell is
+	 * CLEAR and not visited.
+	 *
+	 * @param rows Number of rows (n) of the grid.
+	 * @param cols Number of columns (m) of the grid.
+	 */
+	public MortonGrid(int rows, int cols) {
+		if (rows < 0 || cols < 0)
+			throw new IllegalArgumentException("Negative grid size: " + rows + " x " + cols);
+		this.rows = rows;
+		this.cols = cols;
+		int rowBitCount = bits(rows);
+		int colBitCount = bits(cols);
+		shared = Math.min(rowBitCount, colBitCount);
+		int total = rowBitCount + colBitCount;
+		long low = shared == 0 ? 0 : -1L >>> (64 - 2 * shared); // the interleaved bits
+		long high = total == 2 * shared ? 0 : (-1L >>> (64 - total)) & ~low; // the bits of the larger side
+		colMask = (low & EVEN_BITS) | (colBitCount > rowBitCount ? high : 0);
+		rowMask = (low & ~EVEN_BITS) | (rowBitCount > colBitCount ? high : 0);
+		long words = ((1L << total) + 63) >>> 6;
+		if (rows == 0 || cols == 0)
+			words = 0;
+		if (4 * words > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Grid is too large: " + rows + " x " + cols);
+		status = new long[(int) words];
+		visited = new long[(int) words];
+		freeNeighbours = new long[(int) (4 * words)];
+		// the index of a cell is the row part or the column part, so a lookup of
+		// each replaces the interleaving on every access
+		this.rowBits = new long[rows];
+		this.colBits = new long[cols];
+		for (int row = 0; row < rows; row++)
+			this.rowBits[row] = interleave(row, 0);
+		for (int col = 0; col < cols; col++)
+			this.colBits[col] = interleave(0, col);
+		// every cell is CLEAR, so every neighbour inside the grid is free
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int free = (col > 0 ? Block.LEFT : 0) | (col + 1 < cols ? Block.RIGHT : 0)
+						| (row > 0 ? Block.UP : 0) | (row + 1 < rows ? Block.DOWN : 0);
+				long index = index(row, col);
+				freeNeighbours[(int) (index >>> 4)] |= (long) free << ((index & 15) << 2);
+			}
+		}
+	}
+
+	/**
+	 * A constructor that creates a grid with the same status and visited values
+	 * as the given two-dimensional array of Cell.
+	 *
+	 * @param cells A n by m array of Cell
+	 */
+	public MortonGrid(Cell[][] cells) {
+		this(cells.length, cells.length == 0 ? 0 : cells[0].length);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				setStatus(row, col, cells[row][col].getStatus());
+				setVisited(row, col, cells[row][col].getVisited());
+			}
+		}
+	}
+
+	/**
+	 * This method creates a MortonGrid with the same status and visited values as
+	 * any other grid.
+	 *
+	 * @param grid Grid to copy.
+	 * @return A new MortonGrid holding a copy of the grid.
+	 */
+	public static MortonGrid copyOf(Grid grid) {
+		MortonGrid copy = new MortonGrid(grid.getRows(), grid.getCols());
+		for (int row = 0; row < copy.rows; row++) {
+			for (int col = 0; col < copy.cols; col++) {
+				copy.setStatus(row, col, grid.getStatus(row, col));
+				copy.setVisited(row, col, grid.isVisited(row, col));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the number of bits needed
+	 * for the indexes 0 to size - 1.
+	 */
+	private static int bits(int size) {
+		return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+	/**
+	 * This method serves as a helper method that spreads the low 32 bits of a
+	 * number over the even bits of a long.
+	 */
+	private static long spread(long bits) {
+		bits &= 0xFFFFFFFFL;
+		bits = (bits | bits << 16) & 0x0000FFFF0000FFFFL;
+		bits = (bits | bits << 8) & 0x00FF00FF00FF00FFL;
+		bits = (bits | bits << 4) & 0x0F0F0F0F0F0F0F0FL;
+		bits = (bits | bits << 2) & 0x3333333333333333L;
+		bits = (bits | bits << 1) & EVEN_BITS;
+		return bits;
+	}
+
+	/**
+	 * This method serves as a helper method that gathers the even bits of a long
+	 * into its low 32 bits, the reverse of spread.
+	 */
+	private static int gather(long bits) {
+		bits &= EVEN_BITS;
+		bits = (bits | bits >>> 1) & 0x3333333333333333L;
+		bits = (bits | bits >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+		bits = (bits | bits >>> 4) & 0x00FF00FF00FF00FFL;
+		bits = (bits | bits >>> 8) & 0x0000FFFF0000FFFFL;
+		bits = (bits | bits >>> 16) & 0x00000000FFFFFFFFL;
+		return (int) bits;
+	}
+
+	/**
+	 * This method returns the Z-order index of a cell.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return the index of the cell
+	 */
+	public long index(int row, int col) {
+		return rowBits[row] | colBits[col];
+	}
+
+	/**
+	 * This method serves as a helper method that interleaves the bits of a row
+	 * and a column into an index.
+	 */
+	private long interleave(int row, int col) {
+		long low = (1L << shared) - 1;
+		long z = spread(row & low) << 1 | spread(col & low);
+		// only one side has bits left over
+		return z | (long) (row >>> shared) << 2 * shared | (long) (col >>> shared) << 2 * shared;
+	}
+
+	/**
+	 * This method returns the row number of the cell at a Z-order index.
+	 *
+	 * @param index Index of the cell.
+	 * @return the row of the cell
+	 */
+	public int getRow(long index) {
+		long low = (1L << shared) - 1;
+		int row = gather(index >>> 1) & (int) low;
+		if (rowMask >>> 2 * shared != 0)
+			row |= (int) (index >>> 2 * shared) << shared;
+		return row;
+	}
+
+	/**
+	 * This method returns the column number of the cell at a Z-order index.
+	 *
+	 * @param index Index of the cell.
+	 * @return the column of the cell
+	 */
+	public int getCol(long index) {
+		long low = (1L << shared) - 1;
+		int col = gather(index) & (int) low;
+		if (colMask >>> 2 * shared != 0)
+			col |= (int) (index >>> 2 * shared) << shared;
+		return col;
+	}
+
+	/**
+	 * This method returns the index of the cell above the cell at the given index.
+	 * The cell must not be in the top row.
+	 *
+	 * @param index Index of the cell.
+	 * @return the index of the neighbour
+	 */
+	public long up(long index) {
+		// subtracting 1 borrows through the column bits, which are cleared
+		return (((index & rowMask) - 1) & rowMask) | (index & colMask);
+	}
+
+	/**
+	 * This method returns the index of the cell below the cell at the given index.
+	 * The cell must not be in the bottom row.
+	 *
+	 * @param index Index of the cell.
+	 * @return the index of the neighbour
+	 */
+	public long down(long index) {
+		// adding 1 carries through the column bits, which are set
+		return (((index | colMask) + 1) & rowMask) | (index & colMask);
+	}
+
+	/**
+	 * This method returns the index of the cell on the left of the cell at the
+	 * given index. The cell must not be in the left column.
+	 *
+	 * @param index Index of the cell.
+	 * @return the index of the neighbour
+	 */
+	public long left(long index) {
+		return (((index & colMask) - 1) & colMask) | (index & rowMask);
+	}
+
+	/**
+	 * This method returns the index of the cell on the right of the cell at the
+	 * given index. The cell must not be in the right column.
+	 *
+	 * @param index Index of the cell.
+	 * @return the index of the neighbour
+	 */
+	public long right(long index) {
+		return (((index | rowMask) + 1) & colMask) | (index & rowMask);
+	}
+
+	/**
+	 * A getter that returns the status of the cell at a Z-order index.
+	 *
+	 * @param index Index of the cell.
+	 * @return CLEAR=0/MARKED=1
+	 */
+	public int getStatus(long index) {
+		return (int) (status[(int) (index >>> 6)] >>> index) & 1;
+	}
+
+	/**
+	 * This method checks if the cell at a Z-order index is visited.
+	 *
+	 * @param index Index of the cell.
+	 * @return True if the cell is visited before, otherwise false.
+	 */
+	public boolean isVisited(long index) {
+		return (visited[(int) (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getCols() {
+		return cols;
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return getStatus(index(row, col));
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		long index = index(row, col);
+		int word = (int) (index >>> 6);
+		boolean free = status == 0;
+		if (((this.status[word] & 1L << index) == 0) == free)
+			return;
+		if (free)
+			this.status[word] &= ~(1L << index);
+		else
+			this.status[word] |= 1L << index;
+		// the cell is the right neighbour of the cell on its left, and so on
+		if (col > 0)
+			setFreeNeighbour(left(index), Block.RIGHT, free);
+		if (col + 1 < cols)
+			setFreeNeighbour(right(index), Block.LEFT, free);
+		if (row > 0)
+			setFreeNeighbour(up(index), Block.DOWN, free);
+		if (row + 1 < rows)
+			setFreeNeighbour(down(index), Block.UP, free);
+	}
+
+	/**
+	 * This method serves as a helper method that sets or clears one of the free
+	 * neighbours of the cell at an index in the table.
+	 */
+	private void setFreeNeighbour(long index, int neighbour, boolean free) {
+		int word = (int) (index >>> 4);
+		long bit = (long) neighbour << ((index & 15) << 2);
+		if (free)
+			freeNeighbours[word] |= bit;
+		else
+			freeNeighbours[word] &= ~bit;
+	}
+
+	/**
+	 * A getter that returns the free neighbours of the cell at a Z-order index,
+	 * like getFreeNeighbours.
+	 *
+	 * @param index Index of the cell.
+	 * @return The CLEAR neighbours of the cell.
+	 */
+	public int getFreeNeighbours(long index) {
+		return (int) (freeNeighbours[(int) (index >>> 4)] >>> ((index & 15) << 2)) & 15;
+	}
+
+	@Override
+	public int getFreeNeighbours(int row, int col) {
+		return getFreeNeighbours(index(row, col));
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return isVisited(index(row, col));
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		long index = index(row, col);
+		int word = (int) (index >>> 6);
+		if (visited)
+			this.visited[word] |= 1L << index;
+		else
+			this.visited[word] &= ~(1L << index);
+	}
+
+}
@@ -0,0 +1,384 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An OccupancyPipeline takes a stream of cell status changes, applies them to a
+ * Block and raises an alert as soon as the Block stops being effective, and
+ * again when it is effective again. The changes arrive in batches: each batch is
+ * coalesced so that a cell changed many times in a burst is only changed once,
+ * to its last status, and then applied to a DynamicRegions, which keeps the
+ * answer of Propagation.isEffective(area) current without searching the Block
+ * again. When the answer changes, the Listener is told, together with a
+ * shortest path from an entry to an exit if the Block is no longer effective.
+ *
+ * The changes can come from a BlockingQueue of Event, or from lines of text of
+ * the form "row col status" read from a file or a socket. The time from the
+ * arrival of every change to the end of the evaluation of its batch is kept in
+ * a LatencyHistogram.
+ *
+ * @author Liying Lu
+ *
+ */
+public class OccupancyPipeline {
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+
+	/**
+	 * An Event is one cell status change together with the time it arrived, as
+	 * given by System.nanoTime().
+	 */
+	public static final class Event {
+		/**
+		 * An Event that ends run(queue) when it is taken from the queue.
+		 */
+		public static final Event END = new Event(-1, -1, -1, 0);
+
+		public final int row;
+		public final int col;
+		public final int status;
+		public final long arrivalNanos;
+
+		/**
+		 * A constructor that takes in the cell, its new status and the time the
+		 * change arrived.
+		 *
+		 * @param row          Row number of the cell.
+		 * @param col          Column number of the cell.
+		 * @param status       0 if CLEAR, 1 if MARKED
+		 * @param arrivalNanos System.nanoTime() when the change arrived.
+		 */
+		public Event(int row, int col, int status, long arrivalNanos) {
+			this.row = row;
+			this.col = col;
+			this.status = status;
+			this.arrivalNanos = arrivalNanos;
+		}
+
+		/**
+		 * A constructor that takes in the cell and its new status, arriving now.
+		 *
+		 * @param row    Row number of the cell.
+		 * @param col    Column number of the cell.
+		 * @param status 0 if CLEAR, 1 if MARKED
+		 */
+		public Event(int row, int col, int status) {
+			this(row, col, status, System.nanoTime());
+		}
+	}
+
+	/**
+	 * A Listener is told every time the Block goes from effective to not effective
+	 * or back.
+	 */
+	public interface Listener {
+		/**
+		 * This method is called after the batch that changed the answer.
+		 *
+		 * @param effective    The new answer of Propagation.isEffective(area).
+		 * @param path         A shortest path from an entry to an exit when the Block
+		 *                     is not effective, otherwise null.
+		 * @param latencyNanos Time from the arrival of the oldest change of the
+		 *                     batch to the end of its evaluation.
+		 */
+		void transition(boolean effective, CellPath path, long latencyNanos);
+	}
+
+	private final Block area;
+	private final DynamicRegions regions;
+	private final Listener listener;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final int[] stamps;
+	private int batch;
+	private boolean effective;
+	private long events;
+	private long applied;
+	private long rejected;
+	private long batches;
+	private long transitions;
+
+	// the batch being collected by run
+	private final int[] rows;
+	private final int[] cols;
+	private final int[] statuses;
+	private final long[] arrivals;
+	private final int[] values = new int[3];
+
+	/**
+	 * A constructor that follows the given block with batches of up to
+	 * DEFAULT_BATCH_SIZE changes.
+	 *
+	 * @param area     Block to apply the changes to.
+	 * @param listener Listener to tell about the transitions.
+	 */
+	public OccupancyPipeline(Block area, Listener listener) {
+		this(area, listener, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * A constructor that follows the given block with batches of up to the given
+	 * number of changes.
+	 *
+	 * @param area      Block to apply the changes to.
+	 * @param listener  Listener to tell about the transitions.
+	 * @param batchSize Largest number of changes evaluated together.
+	 */
+	public OccupancyPipeline(Block area, Listener listener, int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		this.area = area;
+		this.regions = new DynamicRegions(area);
+		this.listener = listener;
+		this.stamps = new int[area.getRows() * area.getCols()];
+		this.effective = regions.isEffective();
+		rows = new int[batchSize];
+		cols = new int[batchSize];
+		statuses = new int[batchSize];
+		arrivals = new long[batchSize];
+	}
+
+	/**
+	 * This method applies a batch of changes and evaluates the Block once. When
+	 * the same cell is changed more than once in the batch, only its last change
+	 * is applied. Changes of cells outside the block are counted as rejected and
+	 * skipped.
+	 *
+	 * @param rows     Row number of the cell of each change.
+	 * @param cols     Column number of the cell of each change.
+	 * @param statuses New status of each change.
+	 * @param arrivals System.nanoTime() when each change arrived.
+	 * @param count    Number of changes in the batch.
+	 * @return True if the Block is effective after the batch, otherwise false.
+	 */
+	public boolean apply(int[] rows, int[] cols, int[] statuses, long[] arrivals, int count) {
+		if (++batch == 0) {
+			Arrays.fill(stamps, 0);
+			batch = 1;
+		}
+		// the last change of a cell wins, so go through the batch backwards
+		for (int i = count - 1; i >= 0; i--) {
+			int row = rows[i];
+			int col = cols[i];
+			if (!area.isValid(row, col)) {
+				rejected++;
+				continue;
+			}
+			int cell = area.indexOf(row, col);
+			if (stamps[cell] == batch)
+				continue;
+			stamps[cell] = batch;
+			regions.setStatus(row, col, statuses[i]);
+			applied++;
+		}
+		events += count;
+		batches++;
+
+		boolean now = regions.isEffective();
+		CellPath path = null;
+		if (now != effective && !now)
+			path = offendingPath();
+		long end = System.nanoTime();
+		long oldest = end;
+		for (int i = 0; i < count; i++) {
+			latencies.record(Math.max(0, end - arrivals[i]));
+			oldest = Math.min(oldest, arrivals[i]);
+		}
+		if (now != effective) {
+			effective = now;
+			transitions++;
+			if (listener != null)
+				listener.transition(now, path, end - oldest);
+		}
+		return now;
+	}
+
+	/**
+	 * This method takes changes from the queue until Event.END is taken. Every
+	 * batch holds the changes waiting in the queue when the batch starts, up to
+	 * the batch size, so a burst of changes is evaluated once.
+	 *
+	 * @param queue Queue to take the changes from.
+	 * @return The number of changes taken.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public long run(BlockingQueue<Event> queue) throws InterruptedException {
+		long taken = 0;
+		while (true) {
+			Event event = queue.take();
+			int count = 0;
+			while (event != null && event != Event.END) {
+				rows[count] = event.row;
+				cols[count] = event.col;
+				statuses[count] = event.status;
+				arrivals[count] = event.arrivalNanos;
+				count++;
+				event = count < rows.length ? queue.poll() : null;
+			}
+			if (count > 0) {
+				apply(rows, cols, statuses, arrivals, count);
+				taken += count;
+			}
+			if (event == Event.END)
+				return taken;
+		}
+	}
+
+	/**
+	 * This method reads changes as lines of "row col status" until the end of the
+	 * input. Blank lines and lines starting with # are skipped. Every batch holds
+	 * the lines that can be read without waiting, up to the batch size, and each
+	 * change arrives when its line is read. For a socket, pass a BufferedReader
+	 * over socket.getInputStream().
+	 *
+	 * @param reader Reader to read the changes from.
+	 * @return The number of changes read.
+	 * @throws IOException if the reader fails or a line is not three integers.
+	 */
+	public long run(BufferedReader reader) throws IOException {
+		long taken = 0;
+		int count = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (parse(line, count))
+				count++;
+			if (count == rows.length || (count > 0 && !reader.ready())) {
+				apply(rows, cols, statuses, arrivals, count);
+				taken += count;
+				count = 0;
+			}
+		}
+		if (count > 0) {
+			apply(rows, cols, statuses, arrivals, count);
+			taken += count;
+		}
+		return taken;
+	}
+
+	/**
+	 * This method serves as a helper method that parses a line "row col status"
+	 * into the given slot of the batch. It returns false for a blank or comment
+	 * line. A number too large for an int makes the change refer to no cell, so
+	 * that it is rejected instead of changing the wrong cell.
+	 */
+	private boolean parse(String line, int slot) throws IOException {
+		int found = 0;
+		boolean outOfRange = false;
+		int i = 0;
+		int length = line.length();
+		while (i < length) {
+			char c = line.charAt(i);
+			if (Character.isWhitespace(c) || c == ',') {
+				i++;
+				continue;
+			}
+			if (found == 0 && c == '#')
+				return false;
+			int sign = 1;
+			if (c == '-') {
+				sign = -1;
+				i++;
+			}
+			int start = i;
+			long value = 0;
+			while (i < length && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+				value = value * 10 + line.charAt(i++) - '0';
+				if (value > Integer.MAX_VALUE) {
+					outOfRange = true;
+					value = 0; // keep reading the digits without overflowing
+				}
+			}
+			if (i == start || found == 3)
+				throw new IOException("Not a \"row col status\" line: " + line);
+			values[found++] = sign * (int) value;
+		}
+		if (found == 0)
+			return false;
+		if (found != 3)
+			throw new IOException("Not a \"row col status\" line: " + line);
+		rows[slot] = outOfRange ? -1 : values[0];
+		cols[slot] = values[1];
+		statuses[slot] = values[2];
+		arrivals[slot] = System.nanoTime();
+		return true;
+	}
+
+	/**
+	 * This method serves as a helper method that returns a shortest path from an
+	 * entry whose region links it to an exit.
+	 */
+	private CellPath offendingPath() {
+		for (int row = 0; row < area.getRows(); row++) {
+			if (!regions.isEffective(row, 0))
+				return Propagation.shortestPath(area, row, 0);
+		}
+		return null;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block is
+	 * effective after the changes applied so far.
+	 *
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public boolean isEffective() {
+		return effective;
+	}
+
+	/**
+	 * A getter that returns the time from the arrival of every change to the end
+	 * of the evaluation of its batch, in nanoseconds.
+	 *
+	 * @return the latencies
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/**
+	 * A getter that returns the number of changes received.
+	 *
+	 * @return the number of changes
+	 */
+	public long getEventCount() {
+		return events;
+	}
+
+	/**
+	 * A getter that returns the number of changes applied to the Block after the
+	 * bursts are coalesced.
+	 *
+	 * @return the number of changes applied
+	 */
+	public long getAppliedCount() {
+		return applied;
+	}
+
+	/**
+	 * A getter that returns the number of changes of cells outside the block.
+	 *
+	 * @return the number of changes rejected
+	 */
+	public long getRejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * A getter that returns the number of batches evaluated.
+	 *
+	 * @return the number of batches
+	 */
+	public long getBatchCount() {
+		return batches;
+	}
+
+	/**
+	 * A getter that returns the number of times the answer changed.
+	 *
+	 * @return the number of transitions
+	 */
+	public long getTransitionCount() {
+		return transitions;
+	}
+
+}
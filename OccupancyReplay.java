@@ -0,0 +1,408 @@
+import java.util.Arrays;
+
+/**
+ * An OccupancyReplay answers, for a whole log of timestamped cell status
+ * changes, whether a Block was effective after every change, without searching
+ * the Block once per change. The log is processed offline, all at once:
+ *
+ * Every change splits time into a new slot, and every cell is open (CLEAR and
+ * not visited) during some ranges of slots. Each range is stored on the
+ * O(log slots) nodes of a segment tree over the slots that cover it. The tree is
+ * then walked depth first: entering a node opens its cells in a union-find
+ * that joins every open cell with its open neighbours, and leaving the node
+ * undoes exactly those joins. The union-find uses union by rank and no path
+ * compression, so each join is undone in constant time. At a leaf the
+ * union-find holds exactly the cells open during that slot, and every region
+ * knows if it has an entry cell and an exit cell, so the slot is effective if
+ * no region links an entry to a different exit cell, as in RegionLabeling.
+ * Since cells only open on the way down, a node where a region already links
+ * an entry to an exit is not effective for all the slots below it, which are
+ * then skipped.
+ *
+ * The answers are kept as the intervals of time during which an entry had a
+ * path to an exit. The state at a timestamp is the state after all the changes
+ * with that timestamp.
+ *
+ * @author Liying Lu
+ *
+ */
+public class OccupancyReplay {
+	private final int rows;
+	private final int cols;
+	private final int slots;
+	private final boolean[] effective;
+	private final long[] starts;
+	private final long[] ends;
+
+	// union-find over the cells with undo: the parent of a closed cell is -1, and
+	// a root keeps its rank above two flags telling if it has an entry or an exit
+	private static final int ENTRY = 1;
+	private static final int EXIT = 2;
+	private final int[] parent;
+	private final int[] meta;
+	private int linkedCount;
+	private int[] undoSteps = new int[64];
+	private int[] undoMetas = new int[64];
+	private int[] undoLinked = new int[64];
+	private int undoTop;
+
+	// cells stored on each node of the segment tree over leaves slots, a power of
+	// two: node 1 is the root, the children of node k are 2k and 2k + 1, and slot
+	// i is node leaves + i. The cells of node k are nodeCells[nodeStarts[k - 1]]
+	// to nodeCells[nodeStarts[k] - 1] once they are all stored, in order.
+	private final int leaves;
+	private final int[] nodeStarts;
+	private int[] nodeCells;
+
+	/**
+	 * A constructor that replays the given log of changes against the cells of the
+	 * given block. The block itself is not changed. Change i sets the status of
+	 * cell (rows[i], cols[i]) to statuses[i] at time times[i], and the times must
+	 * not decrease.
+	 *
+	 * @param area     Block holding the layout before the first change.
+	 * @param times    Time of each change.
+	 * @param rows     Row number of the cell of each change.
+	 * @param cols     Column number of the cell of each change.
+	 * @param statuses New status of each change, 0 if CLEAR, 1 if MARKED.
+	 * @param count    Number of changes in the log.
+	 */
+	public OccupancyReplay(Block area, long[] times, int[] rows, int[] cols, int[] statuses, int count) {
+		this.rows = area.getRows();
+		this.cols = area.getCols();
+		if ((long) this.rows * this.cols > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to replay: " + this.rows + " x " + this.cols);
+		// the slots are rounded up to a power of two and the tree takes twice as many
+		if (count < 0 || count >= 1 << 29)
+			throw new IllegalArgumentException("Bad number of changes: " + count);
+		int cells = this.rows * this.cols;
+		slots = count + 1; // slot 0 is before the first change, slot i + 1 after change i
+		Grid grid = area.getStorage();
+
+		parent = new int[cells];
+		meta = new int[cells];
+		Arrays.fill(parent, -1);
+		leaves = Integer.highestOneBit(slots) == slots ? slots : Integer.highestOneBit(slots) << 1;
+		nodeStarts = new int[2 * leaves + 1];
+
+		// find the ranges of slots during which each cell is open
+		int[] rangeCells = new int[16];
+		int[] rangeFirsts = new int[16];
+		int[] rangeLasts = new int[16];
+		int ranges = 0;
+		int[] openSince = new int[cells];
+		boolean[] visited = new boolean[cells];
+		for (int row = 0; row < this.rows; row++) {
+			for (int col = 0; col < this.cols; col++) {
+				int cell = row * this.cols + col;
+				visited[cell] = grid.isVisited(row, col);
+				openSince[cell] = grid.getStatus(row, col) == 0 && !visited[cell] ? 0 : -1;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			if (i > 0 && times[i] < times[i - 1])
+				throw new IllegalArgumentException("Change " + i + " is earlier than the change before it");
+			if (rows[i] < 0 || rows[i] >= this.rows || cols[i] < 0 || cols[i] >= this.cols)
+				throw new IndexOutOfBoundsException(
+						"Change " + i + " is outside the block: (" + rows[i] + ", " + cols[i] + ")");
+			int cell = rows[i] * this.cols + cols[i];
+			boolean nowOpen = statuses[i] == 0 && !visited[cell];
+			if (nowOpen && openSince[cell] < 0) {
+				openSince[cell] = i + 1;
+			} else if (!nowOpen && openSince[cell] >= 0) {
+				if (ranges == rangeCells.length) {
+					rangeCells = Arrays.copyOf(rangeCells, 2 * ranges);
+					rangeFirsts = Arrays.copyOf(rangeFirsts, 2 * ranges);
+					rangeLasts = Arrays.copyOf(rangeLasts, 2 * ranges);
+				}
+				rangeCells[ranges] = cell;
+				rangeFirsts[ranges] = openSince[cell];
+				rangeLasts[ranges++] = i + 1;
+				openSince[cell] = -1;
+			}
+		}
+
+		// store the ranges on the tree cell by cell, so that the cells of a node are
+		// in order: count them first, then fill them in
+		int[] byCell = new int[cells + 1];
+		for (int range = 0; range < ranges; range++)
+			byCell[rangeCells[range] + 1]++;
+		for (int cell = 0; cell < cells; cell++)
+			byCell[cell + 1] += byCell[cell];
+		int[] order = new int[ranges];
+		for (int range = 0; range < ranges; range++)
+			order[byCell[rangeCells[range]]++] = range;
+		for (int pass = 0; pass < 2; pass++) {
+			int next = 0;
+			for (int cell = 0; cell < cells; cell++) {
+				for (; next < ranges && rangeCells[order[next]] == cell; next++)
+					addRange(rangeFirsts[order[next]], rangeLasts[order[next]], cell, pass == 1);
+				if (openSince[cell] >= 0)
+					addRange(openSince[cell], slots, cell, pass == 1);
+			}
+			if (pass == 0) {
+				for (int node = 0; node < 2 * leaves; node++)
+					nodeStarts[node + 1] += nodeStarts[node];
+				nodeCells = new int[nodeStarts[2 * leaves]];
+			}
+		}
+
+		effective = new boolean[slots];
+		solve(1, 0, leaves);
+
+		// turn the slots without an effective layout into intervals of time
+		int intervals = 0;
+		long[] foundStarts = new long[16];
+		long[] foundEnds = new long[16];
+		for (int slot = 0; slot < slots; slot++) {
+			if (effective[slot])
+				continue;
+			long start = slot == 0 ? Long.MIN_VALUE : times[slot - 1];
+			long end = slot == count ? Long.MAX_VALUE : times[slot];
+			if (start == end)
+				continue; // replaced by a change with the same time
+			if (intervals > 0 && foundEnds[intervals - 1] == start) {
+				foundEnds[intervals - 1] = end;
+				continue;
+			}
+			if (intervals == foundStarts.length) {
+				foundStarts = Arrays.copyOf(foundStarts, 2 * intervals);
+				foundEnds = Arrays.copyOf(foundEnds, 2 * intervals);
+			}
+			foundStarts[intervals] = start;
+			foundEnds[intervals] = end;
+			intervals++;
+		}
+		starts = Arrays.copyOf(foundStarts, intervals);
+		ends = Arrays.copyOf(foundEnds, intervals);
+	}
+
+	/**
+	 * This method serves as a helper method that finds the nodes of the segment
+	 * tree that cover the slots from first to last - 1, going up from the leaves.
+	 * The first time it only counts the cells of each node in nodeStarts[node + 1].
+	 * Once nodeStarts holds where the cells of each node start, it stores the
+	 * cell, moving the start of the node forward, so that afterwards
+	 * nodeStarts[node] holds the end of the node, i.e. the start of node + 1.
+	 */
+	private void addRange(int first, int last, int cell, boolean store) {
+		for (int low = first + leaves, high = last + leaves; low < high; low >>>= 1, high >>>= 1) {
+			if ((low & 1) != 0)
+				addNode(low++, cell, store);
+			if ((high & 1) != 0)
+				addNode(--high, cell, store);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that counts or stores a cell on one
+	 * node of the segment tree.
+	 */
+	private void addNode(int node, int cell, boolean store) {
+		if (store)
+			nodeCells[nodeStarts[node]++] = cell;
+		else
+			nodeStarts[node + 1]++;
+	}
+
+	/**
+	 * This method serves as a helper method that opens the cells of a node,
+	 * answers the slots below it, and undoes the changes to the union-find.
+	 */
+	private void solve(int node, int low, int high) {
+		if (low >= slots)
+			return; // past the last slot
+		int mark = undoTop;
+		for (int item = nodeStarts[node - 1]; item < nodeStarts[node]; item++)
+			openCell(nodeCells[item]);
+		if (node == 1) {
+			// the cells open for the whole log are never closed again, so their paths
+			// to the roots can be compressed and forgotten by the undo
+			for (int cell = 0; cell < parent.length; cell++) {
+				if (parent[cell] >= 0)
+					parent[cell] = find(cell);
+			}
+			undoTop = 0;
+		}
+		if (linkedCount > 0) {
+			// opening more cells below cannot cut the path
+			Arrays.fill(effective, low, Math.min(high, slots), false);
+		} else if (high - low == 1) {
+			effective[low] = true;
+		} else {
+			int middle = (low + high) >>> 1;
+			solve(2 * node, low, middle);
+			solve(2 * node + 1, middle, high);
+		}
+		undo(mark);
+	}
+
+	/**
+	 * This method serves as a helper method that opens a cell and joins it with
+	 * its open neighbours.
+	 */
+	private void openCell(int cell) {
+		push(-1 - cell, 0);
+		parent[cell] = cell;
+		int col = cell % cols;
+		meta[cell] = (col == 0 ? ENTRY : 0) | (col == cols - 1 ? EXIT : 0);
+		if (col > 0 && parent[cell - 1] >= 0)
+			union(cell, cell - 1);
+		if (col < cols - 1 && parent[cell + 1] >= 0)
+			union(cell, cell + 1);
+		if (cell >= cols && parent[cell - cols] >= 0)
+			union(cell, cell - cols);
+		if (cell + cols < parent.length && parent[cell + cols] >= 0)
+			union(cell, cell + cols);
+	}
+
+	/**
+	 * This method serves as a helper method that joins the regions of two cells.
+	 * The root with the higher rank becomes the root of both.
+	 */
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB)
+			return;
+		if (meta[rootA] < meta[rootB]) { // compares the ranks, kept in the high bits
+			int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		int old = meta[rootA];
+		push(rootB, old);
+		linkedCount -= (isLinked(old) ? 1 : 0) + (isLinked(meta[rootB]) ? 1 : 0);
+		parent[rootB] = rootA;
+		int rank = Math.max(old >>> 2, (meta[rootB] >>> 2) + 1);
+		meta[rootA] = rank << 2 | (old | meta[rootB]) & (ENTRY | EXIT);
+		if (isLinked(meta[rootA]))
+			linkedCount++;
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of a cell.
+	 */
+	private int find(int cell) {
+		while (parent[cell] != cell)
+			cell = parent[cell];
+		return cell;
+	}
+
+	/**
+	 * This method serves as a helper method that returns if the region of a root
+	 * links an entry to a different exit cell, as in RegionLabeling.isLinked. A
+	 * root of rank 0 is a region of a single cell.
+	 */
+	private static boolean isLinked(int meta) {
+		return (meta & (ENTRY | EXIT)) == (ENTRY | EXIT) && meta >>> 2 > 0;
+	}
+
+	/**
+	 * This method serves as a helper method that remembers how to undo one step:
+	 * -1 - cell for opening a cell, or the root that was joined below another
+	 * together with the old rank and flags of the other root.
+	 */
+	private void push(int step, int oldMeta) {
+		if (undoTop == undoSteps.length) {
+			undoSteps = Arrays.copyOf(undoSteps, 2 * undoTop);
+			undoMetas = Arrays.copyOf(undoMetas, 2 * undoTop);
+			undoLinked = Arrays.copyOf(undoLinked, 2 * undoTop);
+		}
+		undoSteps[undoTop] = step;
+		undoMetas[undoTop] = oldMeta;
+		undoLinked[undoTop++] = linkedCount;
+	}
+
+	/**
+	 * This method serves as a helper method that undoes the steps back to the
+	 * given mark.
+	 */
+	private void undo(int mark) {
+		while (undoTop > mark) {
+			int step = undoSteps[--undoTop];
+			linkedCount = undoLinked[undoTop];
+			if (step < 0) {
+				parent[-1 - step] = -1;
+				continue;
+			}
+			meta[parent[step]] = undoMetas[undoTop];
+			parent[step] = step;
+		}
+	}
+
+	/**
+	 * A getter that returns the number of rows of the replayed block.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns of the replayed block.
+	 *
+	 * @return the cols
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of changes replayed.
+	 *
+	 * @return the number of changes
+	 */
+	public int getChangeCount() {
+		return slots - 1;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block was
+	 * effective for every entry right after the given change, i.e. if
+	 * Propagation.isEffective(area) was true then.
+	 *
+	 * @param change Index of the change, or -1 for the layout before the first
+	 *               change.
+	 * @return True if no entry of the Block had a path to an exit, otherwise
+	 *         false.
+	 */
+	public boolean isEffectiveAfter(int change) {
+		return effective[change + 1];
+	}
+
+	/**
+	 * A getter that returns the number of intervals of time during which an entry
+	 * had a path to an exit.
+	 *
+	 * @return the number of intervals
+	 */
+	public int getIntervalCount() {
+		return starts.length;
+	}
+
+	/**
+	 * A getter that returns the time an interval starts. The first interval starts
+	 * at Long.MIN_VALUE if the layout was not effective before the first change.
+	 *
+	 * @param interval Index of the interval.
+	 * @return the first time of the interval
+	 */
+	public long getIntervalStart(int interval) {
+		return starts[interval];
+	}
+
+	/**
+	 * A getter that returns the time an interval ends, i.e. the time of the change
+	 * that made the layout effective again, or Long.MAX_VALUE if it still was not
+	 * effective after the last change.
+	 *
+	 * @param interval Index of the interval.
+	 * @return the first time after the interval
+	 */
+	public long getIntervalEnd(int interval) {
+		return ends[interval];
+	}
+
+}
@@ -0,0 +1,242 @@
+/**
+ * An OffHeapGrid is a Grid that keeps the status and the visited flag of every
+ * cell as bits outside of the Java heap, in the same order as a PackedGrid: row
+ * by row, every row starting on a new 64 bit word. The table of the free
+ * neighbours of every cell, four bits per cell that setStatus keeps up to date
+ * as in a PackedGrid, is kept outside of the heap too. The heap only holds a few
+ * small objects whatever the size of the grid, so the garbage collector never
+ * has to scan or copy the cells and its pauses do not grow with the layout, and
+ * the grid is not limited by the 2 billion elements of a Java array.
+ *
+ * The bits are kept in OffHeapWords, direct buffers of at most CHUNK_WORDS
+ * words each. Direct buffers are still capped by -XX:MaxDirectMemorySize, which
+ * is the maximum heap size (-Xmx) unless it is set, so a layout larger than the
+ * heap needs that flag, for example -XX:MaxDirectMemorySize=64g; without it
+ * creating the grid throws an OutOfMemoryError. The memory is given back when
+ * the grid is closed; it must not be closed while a search is still reading
+ * it. Any use of a closed grid throws an IllegalStateException.
+ *
+ * Only BitParallelPropagation.isEffective, and Propagation.isEffective(area)
+ * which hands a Block over an OffHeapGrid to it, search the grid off the heap:
+ * they read the status and visited words directly and keep the cells they reach
+ * in an OffHeapWords, so they check a grid much larger than the heap. Every
+ * other search keeps a mark or a label per cell on the heap (Block.getMarks,
+ * RegionLabeling, BitParallelPropagation.openMask), so it needs a heap as large
+ * as those and cannot go past 2^31 cells.
+ *
+ * @author Liying Lu
+ *
+ */
+public class OffHeapGrid implements Grid, AutoCloseable {
+	public static final int CHUNK_SHIFT = OffHeapWords.CHUNK_SHIFT;
+	public static final int CHUNK_WORDS = OffHeapWords.CHUNK_WORDS;
+
+	private final int rows;
+	private final int cols;
+	private final int wordsPerRow;
+	private OffHeapWords status;
+	private OffHeapWords visited;
+	private OffHeapWords freeNeighbours; // four bits per cell, 16 cells per word
+
+	/**
+	 * A constructor that creates a grid of the given size where every cell is
+	 * CLEAR and not visited.
+	 *
+	 * @param rows Number of rows (n) of the grid.
+	 * @param cols Number of columns (m) of the grid.
+	 */
+	public OffHeapGrid(int rows, int cols) {
+		if (rows < 0 || cols < 0)
+			throw new IllegalArgumentException("Negative grid size: " + rows + " x " + cols);
+		this.rows = rows;
+		this.cols = cols;
+		this.wordsPerRow = (cols + 63) >>> 6;
+		long words = (long) rows * wordsPerRow;
+		long nibbleWords = ((long) rows * cols + 15) >>> 4;
+		try {
+			status = new OffHeapWords(words);
+			visited = new OffHeapWords(words);
+			freeNeighbours = new OffHeapWords(nibbleWords);
+		} catch (OutOfMemoryError e) {
+			close();
+			throw e;
+		}
+		// every cell is CLEAR, so every neighbour inside the grid is free; the
+		// table is written a word of 16 cells at a time
+		int row = 0;
+		int col = 0;
+		for (long word = 0; word < nibbleWords; word++) {
+			long nibbles = 0;
+			for (int nibble = 0; nibble < 16 && row < rows; nibble++) {
+				int free = (col > 0 ? Block.LEFT : 0) | (col + 1 < cols ? Block.RIGHT : 0)
+						| (row > 0 ? Block.UP : 0) | (row + 1 < rows ? Block.DOWN : 0);
+				nibbles |= (long) free << (nibble << 2);
+				if (++col == cols) {
+					col = 0;
+					row++;
+				}
+			}
+			freeNeighbours.set(word, nibbles);
+		}
+	}
+
+	/**
+	 * This method creates an OffHeapGrid with the same status and visited values
+	 * as any other grid.
+	 *
+	 * @param grid Grid to copy.
+	 * @return A new OffHeapGrid holding a copy of the grid.
+	 */
+	public static OffHeapGrid copyOf(Grid grid) {
+		OffHeapGrid copy = new OffHeapGrid(grid.getRows(), grid.getCols());
+		for (int row = 0; row < copy.rows; row++) {
+			for (int col = 0; col < copy.cols; col++) {
+				copy.setStatus(row, col, grid.getStatus(row, col));
+				copy.setVisited(row, col, grid.isVisited(row, col));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * This method gives the memory of the grid back. The grid cannot be used
+	 * afterwards. Closing a grid again does nothing.
+	 */
+	@Override
+	public void close() {
+		OffHeapWords[] old = { status, visited, freeNeighbours };
+		status = null;
+		visited = null;
+		freeNeighbours = null;
+		for (OffHeapWords words : old) {
+			if (words != null)
+				words.close();
+		}
+	}
+
+	/**
+	 * A method that returns if the grid is closed.
+	 *
+	 * @return True if the memory of the grid was given back, otherwise false.
+	 */
+	public boolean isClosed() {
+		return status == null;
+	}
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of long words used for each row.
+	 *
+	 * @return the wordsPerRow
+	 */
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * A getter that returns 64 status bits of a row at once, like
+	 * PackedGrid.getStatusWord.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the status bits, 1 for MARKED
+	 */
+	public long getStatusWord(int row, int word) {
+		return check(status).get((long) row * wordsPerRow + word);
+	}
+
+	/**
+	 * A getter that returns 64 visited bits of a row at once, like
+	 * PackedGrid.getVisitedWord.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the visited bits, 1 for visited
+	 */
+	public long getVisitedWord(int row, int word) {
+		return check(visited).get((long) row * wordsPerRow + word);
+	}
+
+	/**
+	 * This method serves as a helper method that refuses to use a closed grid.
+	 */
+	private static OffHeapWords check(OffHeapWords words) {
+		if (words == null)
+			throw new IllegalStateException("The grid is closed");
+		return words;
+	}
+
+	/**
+	 * This method serves as a helper method that sets or clears a bit of a word.
+	 */
+	private static void set(OffHeapWords words, long word, int col, boolean bit) {
+		long bits = words.get(word);
+		words.set(word, bit ? bits | 1L << col : bits & ~(1L << col));
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return (int) (getStatusWord(row, col >>> 6) >>> col) & 1;
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		boolean free = status == 0;
+		if ((getStatus(row, col) == 0) == free)
+			return;
+		set(check(this.status), (long) row * wordsPerRow + (col >>> 6), col, !free);
+		// the cell is the right neighbour of the cell on its left, and so on
+		long cell = (long) row * cols + col;
+		if (col > 0)
+			setFreeNeighbour(cell - 1, Block.RIGHT, free);
+		if (col + 1 < cols)
+			setFreeNeighbour(cell + 1, Block.LEFT, free);
+		if (row > 0)
+			setFreeNeighbour(cell - cols, Block.DOWN, free);
+		if (row + 1 < rows)
+			setFreeNeighbour(cell + cols, Block.UP, free);
+	}
+
+	/**
+	 * This method serves as a helper method that sets or clears one of the free
+	 * neighbours of a cell in the table.
+	 */
+	private void setFreeNeighbour(long cell, int neighbour, boolean free) {
+		long word = cell >>> 4;
+		long bit = (long) neighbour << ((cell & 15) << 2);
+		long nibbles = freeNeighbours.get(word);
+		freeNeighbours.set(word, free ? nibbles | bit : nibbles & ~bit);
+	}
+
+	/**
+	 * A getter that returns the free neighbours of a cell from the table.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return The CLEAR neighbours of the cell.
+	 */
+	@Override
+	public int getFreeNeighbours(int row, int col) {
+		long cell = (long) row * cols + col;
+		return (int) (check(freeNeighbours).get(cell >>> 4) >>> ((cell & 15) << 2)) & 15;
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return (getVisitedWord(row, col >>> 6) & (1L << col)) != 0;
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		set(check(this.visited), (long) row * wordsPerRow + (col >>> 6), col, visited);
+	}
+
+}
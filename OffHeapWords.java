@@ -0,0 +1,162 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An OffHeapWords is an array of long words kept outside of the Java heap, in
+ * direct buffers of at most CHUNK_WORDS words each, so it is not limited by the
+ * 2 billion elements of a Java array and the garbage collector never scans it.
+ * A new array is filled with zeros. OffHeapGrid keeps its bits in it, and
+ * BitParallelPropagation keeps the cells it reaches in a grid of that kind.
+ *
+ * Direct buffers are capped by -XX:MaxDirectMemorySize, which is the maximum
+ * heap size (-Xmx) unless it is set; creating an array past the cap throws an
+ * OutOfMemoryError. The memory is given back when the array is closed, and any
+ * use of a closed array throws an IllegalStateException.
+ *
+ * @author Liying Lu
+ *
+ */
+public class OffHeapWords implements AutoCloseable {
+	public static final int CHUNK_SHIFT = 27;
+	public static final int CHUNK_WORDS = 1 << CHUNK_SHIFT; // 1 GB per chunk
+
+	private final long size;
+	private ByteBuffer[] chunks;
+
+	/**
+	 * A constructor that creates an array of the given number of words, all 0.
+	 *
+	 * @param size Number of words.
+	 */
+	public OffHeapWords(long size) {
+		if (size < 0)
+			throw new IllegalArgumentException("Negative number of words: " + size);
+		this.size = size;
+		chunks = new ByteBuffer[(int) ((size + CHUNK_WORDS - 1) >>> CHUNK_SHIFT)];
+		try {
+			for (int chunk = 0; chunk < chunks.length; chunk++) {
+				int bytes = (int) Math.min(CHUNK_WORDS, size - ((long) chunk << CHUNK_SHIFT)) * 8;
+				// a new direct buffer is filled with zeros
+				chunks[chunk] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+			}
+		} catch (OutOfMemoryError e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * A getter that returns the number of words.
+	 *
+	 * @return the size
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * A getter that returns a word.
+	 *
+	 * @param index Index of the word.
+	 * @return the word
+	 */
+	public long get(long index) {
+		return check()[(int) (index >>> CHUNK_SHIFT)].getLong(((int) index & (CHUNK_WORDS - 1)) << 3);
+	}
+
+	/**
+	 * A setter that sets a word.
+	 *
+	 * @param index Index of the word.
+	 * @param bits  the word to set
+	 */
+	public void set(long index, long bits) {
+		check()[(int) (index >>> CHUNK_SHIFT)].putLong(((int) index & (CHUNK_WORDS - 1)) << 3, bits);
+	}
+
+	/**
+	 * This method sets every word to 0.
+	 */
+	public void clear() {
+		for (ByteBuffer chunk : check()) {
+			for (int offset = 0; offset < chunk.capacity(); offset += 8)
+				chunk.putLong(offset, 0L);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that refuses to use a closed array.
+	 */
+	private ByteBuffer[] check() {
+		ByteBuffer[] current = chunks;
+		if (current == null)
+			throw new IllegalStateException("The words are closed");
+		return current;
+	}
+
+	/**
+	 * A method that returns if the array is closed.
+	 *
+	 * @return True if the memory of the array was given back, otherwise false.
+	 */
+	public boolean isClosed() {
+		return chunks == null;
+	}
+
+	/**
+	 * This method gives the memory of the array back. The array cannot be used
+	 * afterwards. Closing an array again does nothing.
+	 */
+	@Override
+	public void close() {
+		ByteBuffer[] old = chunks;
+		chunks = null;
+		if (old == null)
+			return;
+		for (ByteBuffer chunk : old)
+			free(chunk);
+	}
+
+	/**
+	 * This method serves as a helper method that frees the memory of a direct
+	 * buffer at once through sun.misc.Unsafe.invokeCleaner. If that is not
+	 * available, the memory is freed once the buffer is garbage collected.
+	 */
+	private static void free(ByteBuffer buffer) {
+		if (buffer == null || Cleaner.UNSAFE == null)
+			return;
+		try {
+			Cleaner.INVOKE_CLEANER.invoke(Cleaner.UNSAFE, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// left to the garbage collector
+		}
+	}
+
+	/**
+	 * The Cleaner holds sun.misc.Unsafe and its invokeCleaner method, looked up
+	 * once when an array is first closed. Both are null if they cannot be found.
+	 */
+	private static final class Cleaner {
+		private static final Object UNSAFE;
+		private static final Method INVOKE_CLEANER;
+
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				unsafe = theUnsafe.get(null);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				invokeCleaner = null;
+			}
+			UNSAFE = invokeCleaner == null ? null : unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+		}
+	}
+
+}
@@ -10,16 +10,31 @@
  */
 import static org.junit.Assert.*;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Stack;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -1013,4 +1028,1957 @@ public class P5Tester {
 
 	}
 
+//*************************************PackedGrid Class Tests****************************
+
+	void packedGrid_CheckSameAsCells(Cell[][] cells) {
+		Block expected = new Block(cells);
+		Block b = new Block(new PackedGrid(cells));
+		String errMsg1 = String.format("PackedGrid status/visited is incorrect");
+		for (int row = -1; row <= expected.getRows(); row++) {
+			for (int col = -1; col <= expected.getCols(); col++) {
+				assertEquals(errMsg1, expected.getStatus(row, col), b.getStatus(row, col));
+				assertEquals(errMsg1, expected.isVisited(row, col), b.isVisited(row, col));
+			}
+		}
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckSameAsCells_00() {
+		packedGrid_CheckSameAsCells(gV);
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckSameAsCells_01() {
+		packedGrid_CheckSameAsCells(gP[3]);
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckWideRows() {
+		PackedGrid grid = new PackedGrid(3, 130);
+		grid.setStatus(1, 64, 1);
+		grid.setVisited(2, 129, true);
+		String errMsg1 = String.format("PackedGrid wide rows are incorrect");
+		assertEquals(errMsg1, 3, grid.getWordsPerRow());
+		assertEquals(errMsg1, 1, grid.getStatus(1, 64));
+		assertEquals(errMsg1, 0, grid.getStatus(1, 63));
+		assertEquals(errMsg1, 0, grid.getStatus(0, 64));
+		assertEquals(errMsg1, true, grid.isVisited(2, 129));
+		assertEquals(errMsg1, false, grid.isVisited(2, 128));
+		grid.setStatus(1, 64, 0);
+		assertEquals(errMsg1, 0, grid.getStatus(1, 64));
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckGetGridView() {
+		Block b = new Block(new PackedGrid(gV));
+		Cell[][] cells = b.getGrid();
+		String errMsg1 = String.format("PackedGrid getGrid() view is incorrect");
+		assertEquals(errMsg1, 6, cells.length);
+		assertEquals(errMsg1, 4, cells[0].length);
+		assertEquals(errMsg1, 1, cells[1][0].getStatus());
+		cells[1][0].setStatus(0);
+		cells[4][2].setVisited(true);
+		assertEquals(errMsg1, 0, b.getStatus(1, 0));
+		assertEquals(errMsg1, true, b.isVisited(4, 2));
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckMoves() {
+		Block b = new Block(new PackedGrid(gU));
+		b.setCurrentRow(3);
+		b.setCurrentCol(2);
+		b.moveUp();
+		String errMsg1 = String.format("PackedGrid moveUp() is incorrect");
+		assertEquals(errMsg1, 2, b.getCurrentRow());
+		assertEquals(errMsg1, true, b.isVisited(3, 2));
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckPathCalc_02() {
+		Block b = new Block(new PackedGrid(gP[2]));
+		loadStack();
+		Stack<ArrayList<Integer>> stack = Propagation.pathCalc(b, 1, 0);
+		String errMsg1 = String.format("Propagation pathCalc() on a PackedGrid is incorrect");
+		assertEquals(errMsg1, true, isSameStack(s1, stack));
+	}
+
+	@Test(timeout = 1000)
+	public void packedGrid_CheckRecursivePathCalc_03() {
+		Block b = new Block(new PackedGrid(gP[3]));
+		loadStack();
+		Stack<ArrayList<Integer>> stack = new Stack<>();
+		stack = RecursivePropagation.recursivePathCalc(b, 1, 0, stack);
+		String errMsg1 = String.format("RecursivePropagation recursivePathCalc() on a PackedGrid is incorrect");
+		assertEquals(errMsg1, true, isSameStack(s2, stack));
+	}
+
+//*****************************Propagation All Entries Tests*****************************
+
+	/**
+	 * Creates a random grid where each cell is MARKED with the given probability
+	 * and a few CLEAR cells are already visited.
+	 */
+	private static Cell[][] randomGrid(int rows, int cols, double density, long seed) {
+		Random random = new Random(seed);
+		Cell[][] cells = new Cell[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				cells[i][j] = new Cell(random.nextDouble() < density ? 1 : 0, random.nextInt(50) == 0);
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Copies a grid so that a destructive search can run on the copy.
+	 */
+	private static Cell[][] copyGrid(Cell[][] cells) {
+		Cell[][] copy = new Cell[cells.length][];
+		for (int i = 0; i < cells.length; i++) {
+			copy[i] = new Cell[cells[i].length];
+			for (int j = 0; j < cells[i].length; j++) {
+				copy[i][j] = new Cell(cells[i][j].getStatus(), cells[i][j].getVisited());
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Answers isEffective for every entry with one pathCalc per entry.
+	 */
+	private static boolean[] entryEffectivenessByPathCalc(Cell[][] cells) {
+		boolean[] effective = new boolean[cells.length];
+		for (int i = 0; i < cells.length; i++) {
+			effective[i] = Propagation.isEffective(new Block(copyGrid(cells)), i, 0);
+		}
+		return effective;
+	}
+
+	void propagation_CheckAllEntries(Cell[][] cells) {
+		boolean[] expected = entryEffectivenessByPathCalc(cells);
+		boolean allEffective = true;
+		for (boolean effective : expected)
+			allEffective &= effective;
+		String errMsg1 = String.format("Propagation entryEffectiveness() is incorrect");
+		assertArrayEquals(errMsg1, expected, Propagation.entryEffectiveness(new Block(copyGrid(cells))));
+		assertEquals(errMsg1, allEffective, Propagation.isEffective(new Block(copyGrid(cells))));
+	}
+
+	@Test(timeout = 1000)
+	public void propagation_CheckAllEntries_00() {
+		for (int a = 0; a < gP.length; a++)
+			propagation_CheckAllEntries(gP[a]);
+	}
+
+	@Test(timeout = 5000)
+	public void propagation_CheckAllEntries_01() {
+		for (int seed = 0; seed < 200; seed++)
+			propagation_CheckAllEntries(randomGrid(1 + seed % 17, 1 + seed % 13, 0.4, seed));
+	}
+
+	@Test(timeout = 5000)
+	public void propagation_CheckAllEntries_02() {
+		for (int seed = 0; seed < 20; seed++)
+			propagation_CheckAllEntries(randomGrid(40, 60, 0.45, seed));
+	}
+
+//*****************************Reusable Propagation Tests********************************
+
+	private static void assertUnchanged(String errMsg, Cell[][] expected, Block b) {
+		assertEquals(errMsg, -1, b.getStartRow());
+		assertEquals(errMsg, -1, b.getCurrentRow());
+		for (int i = 0; i < expected.length; i++) {
+			for (int j = 0; j < expected[i].length; j++) {
+				assertEquals(errMsg, expected[i][j].getStatus(), b.getStatus(i, j));
+				assertEquals(errMsg, expected[i][j].getVisited(), b.isVisited(i, j));
+			}
+		}
+	}
+
+	@Test(timeout = 1000)
+	public void propagation_CheckPathCalcReusesBlock() {
+		Cell[][] expected = copyGrid(gP[3]);
+		Block b = new Block(gP[3]);
+		String errMsg1 = String.format("Propagation pathCalc() changed the Block");
+		for (int i = 0; i < 1000; i++) {
+			loadStack();
+			assertEquals(errMsg1, true, isSameStack(s2, Propagation.pathCalc(b, 1, 0)));
+			assertEquals(errMsg1, false, Propagation.isEffective(b, 1, 0));
+			s2.clear();
+		}
+		assertUnchanged(errMsg1, expected, b);
+	}
+
+	@Test(timeout = 1000)
+	public void recursivePropagation_CheckReusesBlock() {
+		Cell[][] expected = copyGrid(gP[2]);
+		Block b = new Block(gP[2]);
+		String errMsg1 = String.format("RecursivePropagation changed the Block");
+		for (int i = 0; i < 1000; i++) {
+			loadStack();
+			Stack<ArrayList<Integer>> stack = new Stack<>();
+			assertEquals(errMsg1, true, isSameStack(s1, RecursivePropagation.recursivePathCalc(b, 1, 0, stack)));
+			assertEquals(errMsg1, false, RecursivePropagation.recursiveIsEffective(b, 1, 0));
+			assertEquals(errMsg1, true, RecursivePropagation.recursiveIsEffective(b, 5, 0));
+			s1.clear();
+			s2.clear();
+		}
+		assertUnchanged(errMsg1, expected, b);
+	}
+
+	@Test(timeout = 1000)
+	public void visitMarks_CheckReset() {
+		VisitMarks marks = new VisitMarks(4);
+		marks.reset();
+		marks.mark(2);
+		String errMsg1 = String.format("VisitMarks reset() is incorrect");
+		assertEquals(errMsg1, true, marks.isMarked(2));
+		assertEquals(errMsg1, false, marks.isMarked(1));
+		marks.reset();
+		assertEquals(errMsg1, false, marks.isMarked(2));
+		marks.reset(10);
+		assertEquals(errMsg1, 10, marks.size());
+		assertEquals(errMsg1, false, marks.isMarked(9));
+	}
+
+	@Test(timeout = 1000)
+	public void visitMarks_CheckNew() {
+		VisitMarks marks = new VisitMarks(4);
+		String errMsg1 = String.format("A new VisitMarks has marked cells");
+		for (int cell = 0; cell < 4; cell++)
+			assertEquals(errMsg1, false, marks.isMarked(cell));
+		marks.mark(3);
+		assertEquals(errMsg1, true, marks.isMarked(3));
+	}
+
+//*************************************FrozenBlock Class Tests***************************
+
+	@Test(timeout = 1000)
+	public void frozenBlock_CheckSnapshot() {
+		Block b = new Block(copyGrid(gV));
+		FrozenBlock frozen = b.freeze();
+		b.getGrid()[4][0].setStatus(1);
+		String errMsg1 = String.format("FrozenBlock snapshot is incorrect");
+		assertEquals(errMsg1, 0, frozen.getStatus(4, 0));
+		assertEquals(errMsg1, true, frozen.isVisited(1, 0));
+		assertEquals(errMsg1, true, frozen.isEntry(4, 0));
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void frozenBlock_CheckMoveRefused() {
+		FrozenBlock frozen = new Block(gU).freeze();
+		frozen.moveUp();
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void frozenBlock_CheckSetStatusRefused() {
+		FrozenBlock frozen = new Block(gU).freeze();
+		frozen.getGrid()[0][0].setStatus(1);
+	}
+
+	@Test(timeout = 20000)
+	public void frozenBlock_CheckConcurrentQueries() throws Exception {
+		final Cell[][] cells = randomGrid(60, 80, 0.4, 211);
+		final int rows = cells.length;
+		final List<Stack<ArrayList<Integer>>> expectedPaths = new ArrayList<>();
+		final boolean[] expectedEffective = new boolean[rows];
+		Block single = new Block(copyGrid(cells));
+		for (int i = 0; i < rows; i++) {
+			expectedPaths.add(Propagation.pathCalc(single, i, 0));
+			expectedEffective[i] = Propagation.isEffective(single, i, 0);
+		}
+		final boolean[] expectedAll = Propagation.entryEffectiveness(single);
+
+		final FrozenBlock shared = single.freeze();
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int offset = t;
+				results.add(pool.submit(() -> {
+					for (int k = 0; k < 200 * rows; k++) {
+						int i = (k + offset) % rows;
+						if (k % 2 == 0) {
+							Stack<ArrayList<Integer>> path = Propagation.pathCalc(shared, i, 0);
+							if (path == null ? expectedPaths.get(i) != null : !path.equals(expectedPaths.get(i)))
+								return false;
+						} else if (Propagation.isEffective(shared, i, 0, shared.getMarks()) != expectedEffective[i]) {
+							return false;
+						}
+						if (k % rows == 0 && !Arrays.equals(expectedAll, Propagation.entryEffectiveness(shared)))
+							return false;
+					}
+					return true;
+				}));
+			}
+			String errMsg1 = String.format("FrozenBlock concurrent queries are incorrect");
+			for (Future<Boolean> result : results)
+				assertEquals(errMsg1, true, result.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+//*****************************StackSafePropagation Class Tests**************************
+
+	void stackSafePropagation_CheckSameAsRecursive(int a) {
+		Block b = new Block(gRP[a]);
+		String errMsg1 = String.format("StackSafePropagation is not the same as RecursivePropagation");
+		assertEquals(errMsg1, RecursivePropagation.recursiveIsEffective(b, 1, 0),
+				StackSafePropagation.recursiveIsEffective(b, 1, 0));
+		assertEquals(errMsg1, RecursivePropagation.recursivePathCalc(b, 1, 0, new Stack<>()),
+				StackSafePropagation.recursivePathCalc(b, 1, 0, new Stack<>()));
+		assertEquals(errMsg1, resultRP[a], StackSafePropagation.recursiveIsEffective(b, 1, 0));
+	}
+
+	@Test(timeout = 1000)
+	public void stackSafePropagation_CheckSameAsRecursive_00() {
+		for (int a = 0; a < gRP.length; a++)
+			stackSafePropagation_CheckSameAsRecursive(a);
+	}
+
+	@Test(timeout = 1000)
+	public void stackSafePropagation_CheckPathCalc_03() {
+		Block b = new Block(gP[3]);
+		loadStack();
+		Stack<ArrayList<Integer>> stack = new Stack<>();
+		stack = StackSafePropagation.recursivePathCalc(b, 1, 0, stack);
+		String errMsg1 = String.format("StackSafePropagation recursivePathCalc() is incorrect");
+		assertEquals(errMsg1, true, isSameStack(s2, stack));
+	}
+
+	@Test(timeout = 5000)
+	public void stackSafePropagation_CheckRandomGrids() {
+		String errMsg1 = String.format("StackSafePropagation recursiveIsEffective() is incorrect");
+		for (int seed = 0; seed < 200; seed++) {
+			Block b = new Block(randomGrid(1 + seed % 17, 2 + seed % 13, 0.35, seed));
+			for (int i = 0; i < b.getRows(); i++)
+				assertEquals(errMsg1, Propagation.isEffective(b, i, 0), StackSafePropagation.recursiveIsEffective(b, i, 0));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void stackSafePropagation_CheckLargeOpenFloor() {
+		PackedGrid grid = new PackedGrid(2000, 2000);
+		for (int i = 0; i < 2000; i++)
+			grid.setStatus(i, 1999, 1);
+		Block b = new Block(grid);
+		String errMsg1 = String.format("StackSafePropagation on a large open floor is incorrect");
+		assertEquals(errMsg1, true, StackSafePropagation.recursiveIsEffective(b, 0, 0));
+		grid.setStatus(1000, 1999, 0);
+		Stack<ArrayList<Integer>> stack = StackSafePropagation.recursivePathCalc(b, 0, 0, new Stack<>());
+		assertEquals(errMsg1, Arrays.asList(1000, 1999), stack.peek());
+	}
+
+//*************************************CellPath Class Tests******************************
+
+	@Test(timeout = 1000)
+	public void cellPath_CheckPushPop() {
+		CellPath path = new CellPath();
+		for (int i = 0; i < 200; i++)
+			path.push(i, 2 * i);
+		path.pop();
+		String errMsg1 = String.format("CellPath push/pop is incorrect");
+		assertEquals(errMsg1, 199, path.size());
+		assertEquals(errMsg1, 198, path.peekRow());
+		assertEquals(errMsg1, 396, path.peekCol());
+		assertEquals(errMsg1, 5, path.getRow(5));
+		assertEquals(errMsg1, 10, path.getCol(5));
+		path.clear();
+		assertEquals(errMsg1, true, path.isEmpty());
+	}
+
+	@Test(timeout = 1000)
+	public void cellPath_CheckToStack() {
+		CellPath path = new CellPath();
+		path.push(1, 0);
+		path.push(1, 1);
+		Stack<ArrayList<Integer>> expected = new Stack<>();
+		expected.push(new ArrayList<>(Arrays.asList(1, 0)));
+		expected.push(new ArrayList<>(Arrays.asList(1, 1)));
+		String errMsg1 = String.format("CellPath toStack() is incorrect");
+		assertEquals(errMsg1, expected, path.toStack());
+		assertEquals(errMsg1, expected.toString(), path.toString());
+	}
+
+	void propagation_CheckFindPath(int a) {
+		Block b = new Block(gP[a]);
+		Stack<ArrayList<Integer>> expected = Propagation.pathCalc(b, 1, 0);
+		CellPath path = Propagation.findPath(b, 1, 0);
+		String errMsg1 = String.format("Propagation findPath() is incorrect");
+		assertEquals(errMsg1, expected, path == null ? null : path.toStack());
+		CellPath reused = new CellPath();
+		reused.push(7, 7);
+		assertEquals(errMsg1, expected != null, Propagation.findPath(b, 1, 0, b.getMarks(), reused));
+		assertEquals(errMsg1, expected == null ? new CellPath() : path, reused);
+	}
+
+	@Test(timeout = 1000)
+	public void propagation_CheckFindPath_00() {
+		for (int a = 0; a < gP.length; a++)
+			propagation_CheckFindPath(a);
+	}
+
+	@Test(timeout = 1000)
+	public void recursivePropagation_CheckFindPath() {
+		Block b = new Block(gP[3]);
+		loadStack();
+		CellPath path = new CellPath();
+		String errMsg1 = String.format("RecursivePropagation recursiveFindPath() is incorrect");
+		assertEquals(errMsg1, true, RecursivePropagation.recursiveFindPath(b, 1, 0, path));
+		assertEquals(errMsg1, true, isSameStack(s2, path.toStack()));
+		assertEquals(errMsg1, false, RecursivePropagation.recursiveFindPath(new Block(gP[4]), 1, 0, path));
+		assertEquals(errMsg1, 0, path.size());
+	}
+
+	@Test(timeout = 5000)
+	public void propagation_CheckFindPathWithoutGarbage() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		PackedGrid grid = new PackedGrid(200, 200);
+		for (int i = 0; i < 199; i++)
+			grid.setStatus(i, 100, 1); // a wall with a gap at the bottom
+		Block b = new Block(grid);
+		VisitMarks marks = b.getMarks();
+		CellPath path = new CellPath();
+		for (int i = 0; i < 20; i++)
+			Propagation.findPath(b, 0, 0, marks, path); // warm up and grow the path
+		long before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < 20; i++)
+			Propagation.findPath(b, 0, 0, marks, path);
+		long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+		String errMsg1 = String.format("Propagation findPath() allocated %d bytes for paths of %d cells", allocated,
+				path.size());
+		assertEquals(errMsg1, true, allocated < 20 * path.size());
+	}
+
+//*****************************Propagation Shortest Path Tests***************************
+
+	/**
+	 * Computes the fewest moves from an entry to an exit with a plain breadth first
+	 * search over the cells.
+	 */
+	private static int shortestMoves(Cell[][] cells, int startRow) {
+		int rows = cells.length, cols = cells[0].length;
+		if (cells[startRow][0].getStatus() != 0 || cells[startRow][0].getVisited())
+			return -1;
+		int[][] dist = new int[rows][cols];
+		for (int[] d : dist)
+			Arrays.fill(d, -1);
+		ArrayDeque<int[]> queue = new ArrayDeque<>();
+		dist[startRow][0] = 0;
+		queue.add(new int[] { startRow, 0 });
+		int[][] steps = { { 0, -1 }, { 0, 1 }, { -1, 0 }, { 1, 0 } };
+		while (!queue.isEmpty()) {
+			int[] cell = queue.poll();
+			for (int[] step : steps) {
+				int r = cell[0] + step[0], c = cell[1] + step[1];
+				if (r < 0 || r >= rows || c < 0 || c >= cols || dist[r][c] >= 0 || cells[r][c].getStatus() != 0
+						|| cells[r][c].getVisited())
+					continue;
+				dist[r][c] = dist[cell[0]][cell[1]] + 1;
+				if (c == cols - 1)
+					return dist[r][c];
+				queue.add(new int[] { r, c });
+			}
+		}
+		return -1;
+	}
+
+	void propagation_CheckShortestPath(Cell[][] cells) {
+		Block b = new Block(cells);
+		String errMsg1 = String.format("Propagation shortestPath() is incorrect");
+		for (int i = 0; i < b.getRows(); i++) {
+			int expected = shortestMoves(cells, i);
+			CellPath path = Propagation.shortestPath(b, i, 0);
+			assertEquals(errMsg1, expected, Propagation.shortestPathLength(b, i, 0));
+			assertEquals(errMsg1, expected < 0, path == null);
+			assertEquals(errMsg1, Propagation.isEffective(b, i, 0), path == null);
+			if (path == null)
+				continue;
+			assertEquals(errMsg1, expected + 1, path.size());
+			assertEquals(errMsg1, true, b.isEntry(path.getRow(0), path.getCol(0)));
+			assertEquals(errMsg1, true, b.isExit(path.peekRow(), path.peekCol()));
+			for (int k = 1; k < path.size(); k++) {
+				assertEquals(errMsg1, 1, Math.abs(path.getRow(k) - path.getRow(k - 1))
+						+ Math.abs(path.getCol(k) - path.getCol(k - 1)));
+				assertEquals(errMsg1, true, b.isFree(path.getRow(k), path.getCol(k)));
+			}
+		}
+	}
+
+	@Test(timeout = 1000)
+	public void propagation_CheckShortestPath_00() {
+		for (int a = 0; a < gP.length; a++)
+			propagation_CheckShortestPath(gP[a]);
+	}
+
+	@Test(timeout = 5000)
+	public void propagation_CheckShortestPath_01() {
+		for (int seed = 0; seed < 200; seed++)
+			propagation_CheckShortestPath(randomGrid(1 + seed % 17, 2 + seed % 13, 0.35, seed));
+	}
+
+	@Test(timeout = 1000)
+	public void propagation_CheckShortestPath_02() {
+		Block b = new Block(new PackedGrid(5, 5));
+		CellPath path = Propagation.shortestPath(b, 2, 0);
+		String errMsg1 = String.format("Propagation shortestPath() is incorrect");
+		assertEquals(errMsg1, "[[2, 0], [2, 1], [2, 2], [2, 3], [2, 4]]", path.toString());
+		assertEquals(errMsg1, 4, Propagation.shortestPathLength(b, 2, 0));
+	}
+
+//*****************************BitParallelPropagation Class Tests************************
+
+	void bitParallelPropagation_CheckSameAsPropagation(Cell[][] cells) {
+		Block b = new Block(cells);
+		Block packed = new Block(new PackedGrid(cells));
+		String errMsg1 = String.format("BitParallelPropagation isEffective() is incorrect");
+		for (int i = 0; i < b.getRows(); i++) {
+			boolean expected = Propagation.isEffective(b, i, 0);
+			assertEquals(errMsg1, expected, BitParallelPropagation.isEffective(b, i, 0));
+			assertEquals(errMsg1, expected, BitParallelPropagation.isEffective(packed, i, 0));
+		}
+		assertEquals(errMsg1, Propagation.isEffective(b), BitParallelPropagation.isEffective(b));
+		assertEquals(errMsg1, Propagation.isEffective(b), BitParallelPropagation.isEffective(packed));
+	}
+
+	@Test(timeout = 1000)
+	public void bitParallelPropagation_CheckSameAsPropagation_00() {
+		for (int a = 0; a < gP.length; a++)
+			bitParallelPropagation_CheckSameAsPropagation(gP[a]);
+	}
+
+	@Test(timeout = 5000)
+	public void bitParallelPropagation_CheckSameAsPropagation_01() {
+		for (int seed = 0; seed < 300; seed++)
+			bitParallelPropagation_CheckSameAsPropagation(randomGrid(1 + seed % 17, 1 + seed % 13, 0.4, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void bitParallelPropagation_CheckSameAsPropagation_02() {
+		double[] densities = { 0.3, 0.4, 0.45, 0.5 };
+		for (int seed = 0; seed < 40; seed++)
+			bitParallelPropagation_CheckSameAsPropagation(
+					randomGrid(20 + seed, 60 + 7 * seed, densities[seed % densities.length], seed));
+	}
+
+	@Test(timeout = 1000)
+	public void bitParallelPropagation_CheckLongRun() {
+		// a single corridor that runs right along row 0 across three words, back left
+		// along row 2 and right again along row 4 to the exit
+		PackedGrid grid = new PackedGrid(5, 150);
+		for (int col = 0; col < 150; col++) {
+			grid.setStatus(1, col, col == 148 ? 0 : 1);
+			grid.setStatus(3, col, col == 1 ? 0 : 1);
+		}
+		grid.setStatus(0, 149, 1);
+		grid.setStatus(2, 149, 1);
+		grid.setStatus(2, 0, 1);
+		grid.setStatus(4, 0, 1);
+		Block b = new Block(grid);
+		String errMsg1 = String.format("BitParallelPropagation isEffective() is incorrect");
+		assertEquals(errMsg1, false, BitParallelPropagation.isEffective(b, 0, 0));
+		grid.setStatus(4, 100, 1);
+		assertEquals(errMsg1, true, BitParallelPropagation.isEffective(b, 0, 0));
+		assertEquals(errMsg1, Propagation.isEffective(b), BitParallelPropagation.isEffective(b));
+	}
+
+//*****************************ParallelPropagation Class Tests************************
+
+	void parallelPropagation_CheckSameAsPropagation(Cell[][] cells, int tileSize) {
+		Block b = new Block(cells);
+		Block packed = new Block(new PackedGrid(cells));
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		String errMsg1 = String.format("ParallelPropagation entryEffectiveness() is incorrect with %d x %d tiles",
+				tileSize, tileSize);
+		boolean[] expected = entryEffectivenessByPathCalc(cells);
+		assertArrayEquals(errMsg1, expected, ParallelPropagation.entryEffectiveness(b, tileSize, pool));
+		assertArrayEquals(errMsg1, expected, ParallelPropagation.entryEffectiveness(packed, tileSize, pool));
+		assertEquals(errMsg1, Propagation.isEffective(b), ParallelPropagation.isEffective(b));
+	}
+
+	@Test(timeout = 1000)
+	public void parallelPropagation_CheckSameAsPropagation_00() {
+		for (int a = 0; a < gP.length; a++) {
+			for (int tileSize = 1; tileSize <= 4; tileSize++)
+				parallelPropagation_CheckSameAsPropagation(gP[a], tileSize);
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void parallelPropagation_CheckSameAsPropagation_01() {
+		int[] tileSizes = { 1, 2, 3, 5, 8, 256 };
+		for (int seed = 0; seed < 300; seed++)
+			parallelPropagation_CheckSameAsPropagation(randomGrid(1 + seed % 17, 1 + seed % 13, 0.4, seed),
+					tileSizes[seed % tileSizes.length]);
+	}
+
+	@Test(timeout = 5000)
+	public void parallelPropagation_CheckSameAsPropagation_02() {
+		double[] densities = { 0.3, 0.4, 0.45, 0.5 };
+		for (int seed = 0; seed < 20; seed++)
+			parallelPropagation_CheckSameAsPropagation(
+					randomGrid(40 + seed, 50 + 3 * seed, densities[seed % densities.length], seed), 7 + seed);
+	}
+
+	@Test(timeout = 1000)
+	public void parallelPropagation_CheckIsEffective() {
+		Block b = new Block(gP[2]);
+		String errMsg1 = String.format("ParallelPropagation isEffective() is incorrect");
+		for (int row = 0; row < b.getRows(); row++)
+			assertEquals(errMsg1, Propagation.isEffective(b, row, 0), ParallelPropagation.isEffective(b, row, 0));
+		assertEquals(errMsg1, true, ParallelPropagation.isEffective(b, 0, 1));
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void parallelPropagation_CheckTileSize() {
+		ParallelPropagation.entryEffectiveness(new Block(gP[0]), 0, ForkJoinPool.commonPool());
+	}
+
+//*****************************LatencyHistogram Class Tests************************
+
+	@Test(timeout = 1000)
+	public void latencyHistogram_CheckSmallValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 1; value <= 20; value++)
+			histogram.record(value);
+		String errMsg1 = String.format("LatencyHistogram percentiles of small values are incorrect");
+		assertEquals(errMsg1, 20, histogram.getCount());
+		assertEquals(errMsg1, 1, histogram.getMin());
+		assertEquals(errMsg1, 20, histogram.getMax());
+		assertEquals(errMsg1, 10.5, histogram.getMean(), 1e-9);
+		assertEquals(errMsg1, 1, histogram.getValueAtPercentile(0));
+		assertEquals(errMsg1, 10, histogram.getValueAtPercentile(50));
+		assertEquals(errMsg1, 18, histogram.getValueAtPercentile(90));
+		assertEquals(errMsg1, 20, histogram.getValueAtPercentile(100));
+	}
+
+	@Test(timeout = 1000)
+	public void latencyHistogram_CheckPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		long[] values = new long[10000];
+		Random random = new Random(7);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(random.nextDouble() * 30);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		String errMsg1 = String.format("LatencyHistogram percentiles are not within 3.2%%");
+		for (double percentile : new double[] { 1, 25, 50, 90, 99, 99.9 }) {
+			long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			long actual = histogram.getValueAtPercentile(percentile);
+			assertTrue(errMsg1, actual >= expected && actual <= expected * 1.032 + 1);
+		}
+		assertEquals(errMsg1, values[values.length - 1], histogram.getValueAtPercentile(100));
+	}
+
+	@Test(timeout = 1000)
+	public void latencyHistogram_CheckAddAndReset() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		first.record(5);
+		second.record(Long.MAX_VALUE);
+		second.record(1000);
+		first.add(second);
+		String errMsg1 = String.format("LatencyHistogram add() or reset() is incorrect");
+		assertEquals(errMsg1, 3, first.getCount());
+		assertEquals(errMsg1, 5, first.getMin());
+		assertEquals(errMsg1, Long.MAX_VALUE, first.getMax());
+		assertEquals(errMsg1, Long.MAX_VALUE, first.getValueAtPercentile(100));
+		first.reset();
+		assertEquals(errMsg1, 0, first.getCount());
+		assertEquals(errMsg1, 0, first.getValueAtPercentile(50));
+		assertEquals(errMsg1, 0, first.getMin());
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void latencyHistogram_CheckNegative() {
+		new LatencyHistogram().record(-1);
+	}
+
+//*****************************DynamicRegions Class Tests********************************
+
+	void dynamicRegions_CheckRandomUpdates(int rows, int cols, double density, long seed, int updates) {
+		Block b = new Block(randomGrid(rows, cols, density, seed));
+		DynamicRegions regions = new DynamicRegions(b);
+		Random random = new Random(seed);
+		String errMsg1 = String.format("DynamicRegions is not the same as Propagation on %d x %d, seed %d", rows,
+				cols, seed);
+		for (int k = 0; k < updates; k++) {
+			int row = random.nextInt(rows);
+			int col = random.nextInt(cols);
+			if (random.nextInt(20) == 0)
+				regions.setVisited(row, col, !b.isVisited(row, col));
+			else
+				regions.setStatus(row, col, random.nextDouble() < density ? 1 : 0);
+			assertEquals(errMsg1, Propagation.isEffective(b), regions.isEffective());
+			boolean[] expected = Propagation.entryEffectiveness(b);
+			for (int i = 0; i < rows; i++)
+				assertEquals(errMsg1, expected[i], regions.isEffective(i, 0));
+		}
+		RegionLabeling labeling = new RegionLabeling(b);
+		assertEquals(errMsg1, labeling.getRegionCount(), regions.getRegionCount());
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				int label = regions.getLabel(i, j);
+				assertEquals(errMsg1, labeling.getLabel(i, j) < 0, label < 0);
+				if (label >= 0)
+					assertEquals(errMsg1, labeling.getSize(labeling.getLabel(i, j)), regions.getSize(label));
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void dynamicRegions_CheckRandomUpdates_00() {
+		for (int seed = 0; seed < 200; seed++)
+			dynamicRegions_CheckRandomUpdates(1 + seed % 9, 1 + seed % 7, 0.4, seed, 60);
+	}
+
+	@Test(timeout = 10000)
+	public void dynamicRegions_CheckRandomUpdates_01() {
+		double[] densities = { 0.3, 0.41, 0.5 };
+		for (int seed = 0; seed < 12; seed++)
+			dynamicRegions_CheckRandomUpdates(20 + seed, 30 + 2 * seed, densities[seed % densities.length], seed, 400);
+	}
+
+	@Test(timeout = 1000)
+	public void dynamicRegions_CheckSplitAndJoin() {
+		// a wall down the middle column with a single gap in row 2
+		PackedGrid grid = new PackedGrid(5, 5);
+		for (int i = 0; i < 5; i++)
+			grid.setStatus(i, 2, i == 2 ? 0 : 1);
+		Block b = new Block(grid);
+		DynamicRegions regions = new DynamicRegions(b);
+		String errMsg1 = String.format("DynamicRegions split or join is incorrect");
+		assertEquals(errMsg1, false, regions.isEffective());
+		assertEquals(errMsg1, 1, regions.getRegionCount());
+		regions.setStatus(2, 2, 1);
+		assertEquals(errMsg1, true, regions.isEffective());
+		assertEquals(errMsg1, 2, regions.getRegionCount());
+		assertEquals(errMsg1, 10, regions.getSize(regions.getLabel(0, 0)));
+		regions.setStatus(4, 2, 0);
+		assertEquals(errMsg1, false, regions.isEffective());
+		assertEquals(errMsg1, 1, regions.getRegionCount());
+		assertEquals(errMsg1, 21, regions.getSize(regions.getLabel(0, 4)));
+		assertEquals(errMsg1, 1, grid.getStatus(2, 2));
+	}
+
+	@Test(timeout = 1000, expected = IndexOutOfBoundsException.class)
+	public void dynamicRegions_CheckOutside() {
+		new DynamicRegions(new Block(new PackedGrid(3, 3))).setStatus(3, 0, 1);
+	}
+
+//*****************************OccupancyPipeline Class Tests*****************************
+
+	@Test(timeout = 1000)
+	public void occupancyPipeline_CheckTransitions() {
+		// a wall down the middle column with a single gap in row 2
+		PackedGrid grid = new PackedGrid(5, 5);
+		for (int i = 0; i < 5; i++)
+			grid.setStatus(i, 2, i == 2 ? 0 : 1);
+		final List<CellPath> paths = new ArrayList<>();
+		final List<Boolean> answers = new ArrayList<>();
+		Block b = new Block(grid);
+		OccupancyPipeline pipeline = new OccupancyPipeline(b, (effective, path, latency) -> {
+			answers.add(effective);
+			paths.add(path);
+		});
+		String errMsg1 = String.format("OccupancyPipeline transitions are incorrect");
+		assertEquals(errMsg1, false, pipeline.isEffective());
+		long now = System.nanoTime();
+		assertEquals(errMsg1, true, pipeline.apply(new int[] { 2 }, new int[] { 2 }, new int[] { 1 }, new long[] { now }, 1));
+		// a burst that opens and closes the gap again is coalesced to its last change
+		assertEquals(errMsg1, false, pipeline.apply(new int[] { 0, 0, 0 }, new int[] { 2, 2, 2 },
+				new int[] { 0, 1, 0 }, new long[] { now, now, now }, 3));
+		assertEquals(errMsg1, Arrays.asList(true, false), answers);
+		assertEquals(errMsg1, null, paths.get(0));
+		CellPath path = paths.get(1);
+		assertEquals(errMsg1, Propagation.shortestPathLength(b, path.getRow(0), 0), path.size() - 1);
+		assertEquals(errMsg1, true, b.isExit(path.peekRow(), path.peekCol()));
+		assertEquals(errMsg1, 4, pipeline.getEventCount());
+		assertEquals(errMsg1, 2, pipeline.getAppliedCount());
+		assertEquals(errMsg1, 2, pipeline.getBatchCount());
+		assertEquals(errMsg1, 4, pipeline.getLatencies().getCount());
+	}
+
+	@Test(timeout = 5000)
+	public void occupancyPipeline_CheckQueue() throws Exception {
+		Cell[][] cells = randomGrid(30, 40, 0.41, 211);
+		Block b = new Block(copyGrid(cells));
+		Block expected = new Block(copyGrid(cells));
+		final int[] transitions = new int[1];
+		OccupancyPipeline pipeline = new OccupancyPipeline(b, (effective, path, latency) -> transitions[0]++, 16);
+		BlockingQueue<OccupancyPipeline.Event> queue = new LinkedBlockingQueue<>();
+		Random random = new Random(5);
+		int changes = 0;
+		boolean last = Propagation.isEffective(expected);
+		for (int k = 0; k < 2000; k++) {
+			int row = random.nextInt(31) - (k % 100 == 0 ? 0 : 1);
+			int col = random.nextInt(40);
+			int status = random.nextDouble() < 0.41 ? 1 : 0;
+			queue.add(new OccupancyPipeline.Event(row, col, status));
+			if (row >= 0 && row < 30)
+				expected.getGrid()[row][col].setStatus(status);
+			if (k % 7 == 0 || k == 1999) {
+				queue.add(OccupancyPipeline.Event.END);
+				changes += pipeline.run(queue);
+				boolean now = Propagation.isEffective(expected);
+				String errMsg1 = String.format("OccupancyPipeline is not the same as Propagation after %d changes", k);
+				assertEquals(errMsg1, now, pipeline.isEffective());
+				if (now != last)
+					transitions[0]--;
+				last = now;
+			}
+		}
+		String errMsg1 = String.format("OccupancyPipeline run(queue) is incorrect");
+		assertEquals(errMsg1, 2000, changes);
+		assertEquals(errMsg1, 2000, pipeline.getEventCount());
+		assertEquals(errMsg1, true, pipeline.getRejectedCount() > 0);
+		assertEquals(errMsg1, 0, transitions[0]);
+		for (int i = 0; i < 30; i++) {
+			for (int j = 0; j < 40; j++)
+				assertEquals(errMsg1, expected.getStatus(i, j), b.getStatus(i, j));
+		}
+	}
+
+	@Test(timeout = 1000)
+	public void occupancyPipeline_CheckReader() throws IOException {
+		Block b = new Block(new PackedGrid(3, 3));
+		OccupancyPipeline pipeline = new OccupancyPipeline(b, null, 2);
+		String lines = "# row col status\n0 1 1\n\n1 1 1\n2 1 1, \n2 1 0\n2 1 1\n";
+		String errMsg1 = String.format("OccupancyPipeline run(reader) is incorrect");
+		assertEquals(errMsg1, 5, pipeline.run(new BufferedReader(new StringReader(lines))));
+		assertEquals(errMsg1, true, pipeline.isEffective());
+		assertEquals(errMsg1, 1, b.getStatus(2, 1));
+		assertEquals(errMsg1, 3, pipeline.getBatchCount());
+	}
+
+	@Test(timeout = 1000)
+	public void occupancyPipeline_CheckOutOfRange() throws IOException {
+		Block b = new Block(new PackedGrid(3, 3));
+		OccupancyPipeline pipeline = new OccupancyPipeline(b, null);
+		String lines = "4294967296 0 1\n0 4294967297 1\n0 0 99999999999\n1 1 1\n";
+		String errMsg1 = String.format("OccupancyPipeline applies a change with a number out of range");
+		assertEquals(errMsg1, 4, pipeline.run(new BufferedReader(new StringReader(lines))));
+		assertEquals(errMsg1, 1, pipeline.getAppliedCount());
+		assertEquals(errMsg1, 3, pipeline.getRejectedCount());
+		assertEquals(errMsg1, 0, b.getStatus(0, 0));
+		assertEquals(errMsg1, 1, b.getStatus(1, 1));
+	}
+
+	@Test(timeout = 1000, expected = IOException.class)
+	public void occupancyPipeline_CheckBadLine() throws IOException {
+		new OccupancyPipeline(new Block(new PackedGrid(3, 3)), null)
+				.run(new BufferedReader(new StringReader("0 1\n")));
+	}
+
+//*****************************OccupancyReplay Class Tests*******************************
+
+	void occupancyReplay_CheckRandomLog(int rows, int cols, double density, long seed, int count) {
+		Cell[][] cells = randomGrid(rows, cols, density, seed);
+		Block b = new Block(copyGrid(cells));
+		Random random = new Random(seed);
+		long[] times = new long[count];
+		int[] changeRows = new int[count];
+		int[] changeCols = new int[count];
+		int[] statuses = new int[count];
+		for (int i = 0; i < count; i++) {
+			times[i] = (i == 0 ? 0 : times[i - 1]) + random.nextInt(3);
+			changeRows[i] = random.nextInt(rows);
+			changeCols[i] = random.nextInt(cols);
+			statuses[i] = random.nextDouble() < density ? 1 : 0;
+		}
+		OccupancyReplay replay = new OccupancyReplay(b, times, changeRows, changeCols, statuses, count);
+		String errMsg1 = String.format("OccupancyReplay is not the same as Propagation on %d x %d, seed %d", rows, cols,
+				seed);
+		assertEquals(errMsg1, Propagation.isEffective(b), replay.isEffectiveAfter(-1));
+		boolean[] expected = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			b.getGrid()[changeRows[i]][changeCols[i]].setStatus(statuses[i]);
+			expected[i] = Propagation.isEffective(b);
+			assertEquals(errMsg1, expected[i], replay.isEffectiveAfter(i));
+		}
+		// every interval must cover exactly the times when the last change so far left
+		// the layout not effective
+		for (int i = 0; i < count; i++) {
+			if (i + 1 < count && times[i + 1] == times[i])
+				continue;
+			boolean inside = false;
+			for (int k = 0; k < replay.getIntervalCount(); k++)
+				inside |= replay.getIntervalStart(k) <= times[i] && times[i] < replay.getIntervalEnd(k);
+			assertEquals(errMsg1, !expected[i], inside);
+		}
+		for (int k = 1; k < replay.getIntervalCount(); k++)
+			assertEquals(errMsg1, true, replay.getIntervalEnd(k - 1) < replay.getIntervalStart(k));
+		assertEquals(errMsg1, cells[0][0].getStatus(), new Block(cells).getStatus(0, 0));
+	}
+
+	@Test(timeout = 5000)
+	public void occupancyReplay_CheckRandomLog_00() {
+		for (int seed = 0; seed < 200; seed++)
+			occupancyReplay_CheckRandomLog(1 + seed % 9, 1 + seed % 7, 0.4, seed, 50);
+	}
+
+	@Test(timeout = 10000)
+	public void occupancyReplay_CheckRandomLog_01() {
+		double[] densities = { 0.3, 0.41, 0.5 };
+		for (int seed = 0; seed < 12; seed++)
+			occupancyReplay_CheckRandomLog(20 + seed, 30 + 2 * seed, densities[seed % densities.length], seed, 500);
+	}
+
+	@Test(timeout = 1000)
+	public void occupancyReplay_CheckIntervals() {
+		// a wall down the middle column with a single gap in row 2
+		PackedGrid grid = new PackedGrid(5, 5);
+		for (int i = 0; i < 5; i++)
+			grid.setStatus(i, 2, i == 2 ? 0 : 1);
+		long[] times = { 10, 20, 20, 30, 40 };
+		int[] rows = { 2, 2, 4, 4, 0 };
+		int[] cols = { 2, 2, 2, 2, 0 };
+		int[] statuses = { 1, 0, 1, 0, 1 };
+		OccupancyReplay replay = new OccupancyReplay(new Block(grid), times, rows, cols, statuses, 5);
+		String errMsg1 = String.format("OccupancyReplay intervals are incorrect");
+		assertEquals(errMsg1, 2, replay.getIntervalCount());
+		assertEquals(errMsg1, Long.MIN_VALUE, replay.getIntervalStart(0));
+		assertEquals(errMsg1, 10, replay.getIntervalEnd(0));
+		assertEquals(errMsg1, 20, replay.getIntervalStart(1));
+		assertEquals(errMsg1, Long.MAX_VALUE, replay.getIntervalEnd(1));
+		assertEquals(errMsg1, 0, grid.getStatus(2, 2));
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void occupancyReplay_CheckTimeOrder() {
+		new OccupancyReplay(new Block(new PackedGrid(3, 3)), new long[] { 2, 1 }, new int[2], new int[2], new int[2],
+				2);
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void occupancyReplay_CheckTooManyChanges() {
+		new OccupancyReplay(new Block(new PackedGrid(3, 3)), new long[0], new int[0], new int[0], new int[0], 1 << 29);
+	}
+
+//*****************************MinimumBarrier Class Tests********************************
+
+	/**
+	 * Finds the smallest number of open cells to mark to make the Block effective
+	 * by trying every set of cells, smallest first.
+	 */
+	private static int smallestBarrier(Cell[][] cells) {
+		List<int[]> open = new ArrayList<>();
+		for (int i = 0; i < cells.length; i++) {
+			for (int j = 0; j < cells[i].length; j++) {
+				if (cells[i][j].getStatus() == 0 && !cells[i][j].getVisited())
+					open.add(new int[] { i, j });
+			}
+		}
+		int best = open.size();
+		for (int subset = 0; subset < 1 << open.size(); subset++) {
+			if (Integer.bitCount(subset) >= best)
+				continue;
+			Cell[][] copy = copyGrid(cells);
+			for (int k = 0; k < open.size(); k++) {
+				if ((subset & 1 << k) != 0)
+					copy[open.get(k)[0]][open.get(k)[1]].setStatus(1);
+			}
+			if (Propagation.isEffective(new Block(copy)))
+				best = Integer.bitCount(subset);
+		}
+		return best;
+	}
+
+	void minimumBarrier_CheckSmallest(Cell[][] cells) {
+		Block b = new Block(copyGrid(cells));
+		MinimumBarrier barrier = new MinimumBarrier(b);
+		String errMsg1 = String.format("MinimumBarrier is not a smallest barrier of %d x %d", cells.length,
+				cells[0].length);
+		assertEquals(errMsg1, smallestBarrier(cells), barrier.size());
+		for (int k = 0; k < barrier.size(); k++) {
+			assertEquals(errMsg1, true, b.isFree(barrier.getRow(k), barrier.getCol(k)));
+			assertEquals(errMsg1, true, barrier.contains(barrier.getRow(k), barrier.getCol(k)));
+		}
+		barrier.apply();
+		assertEquals(errMsg1, true, Propagation.isEffective(b));
+	}
+
+	@Test(timeout = 10000)
+	public void minimumBarrier_CheckSmallest_00() {
+		for (int seed = 0; seed < 300; seed++)
+			minimumBarrier_CheckSmallest(randomGrid(1 + seed % 4, 1 + seed % 5, 0.3, seed));
+	}
+
+	@Test(timeout = 5000)
+	public void minimumBarrier_CheckLargeGrids() {
+		String errMsg1 = String.format("MinimumBarrier does not make the Block effective");
+		for (int seed = 0; seed < 10 + gP.length; seed++) {
+			Block b = new Block(seed < gP.length ? copyGrid(gP[seed]) : randomGrid(60 + seed, 80, 0.35, seed));
+			MinimumBarrier barrier = new MinimumBarrier(b);
+			assertEquals(errMsg1, Propagation.isEffective(b), barrier.size() == 0);
+			barrier.apply();
+			assertEquals(errMsg1, true, Propagation.isEffective(b));
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void minimumBarrier_CheckOpenFloor() {
+		PackedGrid grid = new PackedGrid(500, 500);
+		grid.setStatus(250, 250, 1);
+		MinimumBarrier barrier = new MinimumBarrier(new Block(grid));
+		String errMsg1 = String.format("MinimumBarrier of an open floor is incorrect");
+		assertEquals(errMsg1, 499, barrier.size()); // the rest of column 250
+		assertEquals(errMsg1, false, barrier.contains(250, 250));
+		assertEquals(errMsg1, false, barrier.contains(-1, 0));
+	}
+
+//*****************************CriticalCells Class Tests*********************************
+
+	void criticalCells_CheckBruteForce(Cell[][] cells) {
+		CriticalCells critical = new CriticalCells(new Block(cells));
+		String errMsg1 = String.format("CriticalCells is not the same as marking each cell on %d x %d", cells.length,
+				cells[0].length);
+		boolean effective = Propagation.isEffective(new Block(cells));
+		int count = 0;
+		long[] mask = critical.toBitmask();
+		for (int i = 0; i < cells.length; i++) {
+			for (int j = 0; j < cells[i].length; j++) {
+				boolean expected = false;
+				if (!effective && cells[i][j].getStatus() == 0 && !cells[i][j].getVisited()) {
+					Cell[][] copy = copyGrid(cells);
+					copy[i][j].setStatus(1);
+					expected = Propagation.isEffective(new Block(copy));
+				}
+				assertEquals(errMsg1, expected, critical.contains(i, j));
+				int cell = i * cells[i].length + j;
+				assertEquals(errMsg1, expected, (mask[cell >>> 6] & 1L << cell) != 0);
+				if (expected) {
+					assertEquals(errMsg1, i, critical.getRow(count));
+					assertEquals(errMsg1, j, critical.getCol(count++));
+				}
+			}
+		}
+		assertEquals(errMsg1, count, critical.size());
+	}
+
+	@Test(timeout = 5000)
+	public void criticalCells_CheckBruteForce_00() {
+		for (int seed = 0; seed < 400; seed++)
+			criticalCells_CheckBruteForce(randomGrid(1 + seed % 9, 1 + seed % 7, 0.3, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void criticalCells_CheckBruteForce_01() {
+		for (int a = 0; a < gP.length; a++)
+			criticalCells_CheckBruteForce(gP[a]);
+		double[] densities = { 0.2, 0.3, 0.4 };
+		for (int seed = 0; seed < 15; seed++)
+			criticalCells_CheckBruteForce(randomGrid(15 + seed, 20 + seed, densities[seed % densities.length], seed));
+	}
+
+	@Test(timeout = 5000)
+	public void criticalCells_CheckLongCorridor() {
+		// a single corridor snaking through a 997 x 1000 Block: every open cell is
+		// critical
+		PackedGrid grid = new PackedGrid(997, 1000);
+		int open = 0;
+		for (int row = 0; row < 997; row++) {
+			for (int col = 0; col < 1000; col++) {
+				boolean corridor = row % 2 == 0 ? col > 0 && col < 999 : col == (row % 4 == 1 ? 998 : 1);
+				corridor |= row == 0 && col == 0 || row == 996 && col == 999;
+				grid.setStatus(row, col, corridor ? 0 : 1);
+				open += corridor ? 1 : 0;
+			}
+		}
+		CriticalCells critical = new CriticalCells(new Block(grid));
+		String errMsg1 = String.format("CriticalCells of a long corridor is incorrect");
+		assertEquals(errMsg1, false, Propagation.isEffective(new Block(grid)));
+		assertEquals(errMsg1, open, critical.size());
+		assertEquals(errMsg1, true, critical.contains(0, 998));
+	}
+
+//*****************************StallRemovalIndex Class Tests*****************************
+
+	void stallRemovalIndex_CheckBruteForce(Cell[][] cells) {
+		StallRemovalIndex index = new StallRemovalIndex(new Block(cells));
+		String errMsg1 = String.format("StallRemovalIndex is not the same as clearing each cell on %d x %d",
+				cells.length, cells[0].length);
+		assertEquals(errMsg1, Propagation.isEffective(new Block(cells)), index.isEffective());
+		long[] mask = index.breakingStalls();
+		for (int i = 0; i < cells.length; i++) {
+			for (int j = 0; j < cells[i].length; j++) {
+				Cell[][] copy = copyGrid(cells);
+				copy[i][j].setStatus(0);
+				boolean expected = Propagation.isEffective(new Block(copy));
+				assertEquals(errMsg1, expected, index.isEffectiveWithout(i, j));
+				int cell = i * cells[i].length + j;
+				assertEquals(errMsg1, index.isEffective() && !expected, (mask[cell >>> 6] & 1L << cell) != 0);
+			}
+		}
+		assertEquals(errMsg1, index.isEffective(), index.isEffectiveWithout(-1, 0));
+	}
+
+	@Test(timeout = 5000)
+	public void stallRemovalIndex_CheckBruteForce_00() {
+		for (int seed = 0; seed < 400; seed++)
+			stallRemovalIndex_CheckBruteForce(randomGrid(1 + seed % 9, 1 + seed % 7, 0.6, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void stallRemovalIndex_CheckBruteForce_01() {
+		for (int a = 0; a < gP.length; a++)
+			stallRemovalIndex_CheckBruteForce(gP[a]);
+		double[] densities = { 0.5, 0.6, 0.7 };
+		for (int seed = 0; seed < 15; seed++)
+			stallRemovalIndex_CheckBruteForce(randomGrid(15 + seed, 20 + seed, densities[seed % densities.length], seed));
+	}
+
+//*****************************PercolationSimulator Class Tests*****************************
+
+	/**
+	 * Returns the exact probability that a random n x m layout at the given
+	 * density is effective, by checking all 2 to the n x m layouts.
+	 */
+	private static double exactEffectiveProbability(int rows, int cols, double density) {
+		double probability = 0;
+		for (int layout = 0; layout < 1 << rows * cols; layout++) {
+			Cell[][] cells = new Cell[rows][cols];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < cols; j++)
+					cells[i][j] = new Cell(layout >>> (i * cols + j) & 1, false);
+			}
+			if (Propagation.isEffective(new Block(cells))) {
+				int marked = Integer.bitCount(layout);
+				probability += Math.pow(density, marked) * Math.pow(1 - density, rows * cols - marked);
+			}
+		}
+		return probability;
+	}
+
+	@Test(timeout = 10000)
+	public void percolationSimulator_CheckExact() {
+		int[][] sizes = { { 3, 3 }, { 4, 3 }, { 2, 5 }, { 5, 1 }, { 1, 4 }, { 3, 4 } };
+		double[] densities = { 0.2, 0.4, 0.5, 0.7 };
+		for (int[] size : sizes) {
+			PercolationSimulator simulator = new PercolationSimulator(size[0], size[1], 211);
+			for (double density : densities) {
+				PercolationSimulator.Estimate estimate = simulator.estimate(density, 20000);
+				double exact = exactEffectiveProbability(size[0], size[1], density);
+				double error = 4 * Math.sqrt(exact * (1 - exact) / 20000) + 1e-9;
+				String errMsg1 = String.format("PercolationSimulator on %d x %d at %.1f gives %s, expected %.4f",
+						size[0], size[1], density, estimate, exact);
+				assertEquals(errMsg1, 20000, estimate.getLayouts());
+				assertEquals(errMsg1, exact, estimate.getProbability(), error);
+				assertTrue(errMsg1, estimate.getLower() <= estimate.getProbability());
+				assertTrue(errMsg1, estimate.getUpper() >= estimate.getProbability());
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void percolationSimulator_CheckEnds() {
+		PercolationSimulator simulator = new PercolationSimulator(100, 130, 7);
+		PercolationSimulator.Estimate[] curve = simulator.sweep(0, 1, 3, 100);
+		String errMsg1 = String.format("PercolationSimulator sweep is incorrect");
+		assertEquals(errMsg1, 3, curve.length);
+		assertEquals(errMsg1, 0.5, curve[1].getDensity(), 1e-12);
+		assertEquals(errMsg1, 0, curve[0].getEffective());
+		assertEquals(errMsg1, 100, curve[2].getEffective());
+		assertEquals(errMsg1, 0, curve[0].getLower(), 0);
+		assertTrue(errMsg1, curve[0].getUpper() > 0 && curve[0].getUpper() < 0.05);
+		assertEquals(errMsg1, 1, curve[2].getUpper(), 0);
+		// every single column layout with two open cells in a row has a path
+		assertEquals(errMsg1, 0, new PercolationSimulator(5, 1, 7).estimate(0, 10).getEffective());
+		assertEquals(errMsg1, 0, simulator.estimate(0.5, 0).getLayouts());
+	}
+
+	@Test(timeout = 10000)
+	public void percolationSimulator_CheckSeed() {
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			PercolationSimulator one = new PercolationSimulator(60, 70, 99, single);
+			PercolationSimulator three = new PercolationSimulator(60, 70, 99, pool);
+			PercolationSimulator.Estimate[] a = one.sweep(0.35, 0.45, 5, 1000);
+			PercolationSimulator.Estimate[] b = three.sweep(0.35, 0.45, 5, 1000);
+			for (int i = 0; i < a.length; i++) {
+				String errMsg1 = String.format("PercolationSimulator depends on the number of threads: %s and %s", a[i],
+						b[i]);
+				assertEquals(errMsg1, a[i].getEffective(), b[i].getEffective());
+			}
+			assertTrue(a[0].getProbability() < a[4].getProbability());
+		} finally {
+			single.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void percolationSimulator_CheckInvalid() {
+		new PercolationSimulator(10, 10, 1).estimate(1.5, 10);
+	}
+
+//*****************************ClusterLabeling Class Tests*****************************
+
+	void clusterLabeling_CheckRegions(Cell[][] cells) {
+		Block b = new Block(cells);
+		int rows = cells.length;
+		int cols = cells[0].length;
+		int[][] labels = new int[rows][];
+		int[] labelCounts = new int[rows];
+		ClusterLabeling clusters = new ClusterLabeling(b, (row, labeled) -> labels[row] = labeled.clone());
+		RegionLabeling regions = new RegionLabeling(b);
+		String errMsg1 = String.format("ClusterLabeling is not the same as RegionLabeling on %d x %d", rows, cols);
+		assertEquals(errMsg1, regions.getRegionCount(), clusters.getClusterCount());
+		int count = clusters.getClusterCount();
+		// clusters are numbered in the order of their first cell
+		int[] toCluster = new int[count];
+		Arrays.fill(toCluster, -1);
+		int[] toRegion = new int[count];
+		int[] minRow = new int[count], maxRow = new int[count], minCol = new int[count], maxCol = new int[count];
+		Arrays.fill(minRow, Integer.MAX_VALUE);
+		Arrays.fill(minCol, Integer.MAX_VALUE);
+		Arrays.fill(maxRow, -1);
+		Arrays.fill(maxCol, -1);
+		int next = 0;
+		for (int i = 0; i < rows; i++) {
+			int[] rowRegions = new int[cols + 1];
+			Arrays.fill(rowRegions, -1);
+			int rowLabels = 0;
+			for (int j = 0; j < cols; j++) {
+				int region = regions.getLabel(i, j);
+				assertEquals(errMsg1, region < 0, labels[i][j] < 0);
+				if (region < 0)
+					continue;
+				if (toCluster[region] < 0) {
+					toRegion[next] = region;
+					toCluster[region] = next++;
+				}
+				int cluster = toCluster[region];
+				minRow[cluster] = Math.min(minRow[cluster], i);
+				maxRow[cluster] = Math.max(maxRow[cluster], i);
+				minCol[cluster] = Math.min(minCol[cluster], j);
+				maxCol[cluster] = Math.max(maxCol[cluster], j);
+				// the labels of a row are numbered in the order of their leftmost cell,
+				// and a label never holds two regions
+				if (rowRegions[labels[i][j]] < 0) {
+					assertEquals(errMsg1, rowLabels++, labels[i][j]);
+					rowRegions[labels[i][j]] = region;
+				}
+				assertEquals(errMsg1, rowRegions[labels[i][j]], region);
+			}
+			labelCounts[i] = rowLabels;
+		}
+		for (int j = 0; j < cols; j++) {
+			int region = regions.getLabel(rows - 1, j);
+			assertEquals(errMsg1, region < 0 ? -1 : toCluster[region], clusters.getCluster(labels[rows - 1][j]));
+		}
+		assertEquals(errMsg1, labelCounts[rows - 1], clusters.getLabelCount());
+		int[] distribution = clusters.getSizeDistribution();
+		int total = 0;
+		for (int cluster = 0; cluster < count; cluster++) {
+			int region = toRegion[cluster];
+			assertEquals(errMsg1, regions.getSize(region), clusters.getSize(cluster));
+			assertEquals(errMsg1, regions.getEntries(region) > 0, clusters.hasEntry(cluster));
+			assertEquals(errMsg1, regions.getExits(region) > 0, clusters.hasExit(cluster));
+			assertEquals(errMsg1, regions.isLinked(region), clusters.isLinked(cluster));
+			assertEquals(errMsg1, minRow[cluster], clusters.getMinRow(cluster));
+			assertEquals(errMsg1, maxRow[cluster], clusters.getMaxRow(cluster));
+			assertEquals(errMsg1, minCol[cluster], clusters.getMinCol(cluster));
+			assertEquals(errMsg1, maxCol[cluster], clusters.getMaxCol(cluster));
+		}
+		for (int size = 0; size < distribution.length; size++)
+			total += distribution[size];
+		assertEquals(errMsg1, count, total);
+	}
+
+	@Test(timeout = 5000)
+	public void clusterLabeling_CheckRegions_00() {
+		for (int a = 0; a < gP.length; a++)
+			clusterLabeling_CheckRegions(gP[a]);
+		for (int seed = 0; seed < 400; seed++)
+			clusterLabeling_CheckRegions(randomGrid(1 + seed % 9, 1 + seed % 7, 0.4, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void clusterLabeling_CheckRegions_01() {
+		double[] densities = { 0.3, 0.41, 0.5 };
+		for (int seed = 0; seed < 15; seed++)
+			clusterLabeling_CheckRegions(randomGrid(50 + seed, 130 + seed, densities[seed % densities.length], seed));
+	}
+
+	@Test(timeout = 5000)
+	public void clusterLabeling_CheckStream() {
+		// a 3 x 200 stream: a comb whose teeth are only joined by the last row
+		ClusterLabeling clusters = new ClusterLabeling(200);
+		long[] teeth = { 0x5555555555555555L, 0x5555555555555555L, 0x5555555555555555L, 0x55L };
+		long[] full = { -1L, -1L, -1L, -1L };
+		int[] first = clusters.addRow(teeth).clone();
+		String errMsg1 = String.format("ClusterLabeling of a streamed comb is incorrect");
+		assertEquals(errMsg1, 100, clusters.getLabelCount());
+		assertEquals(errMsg1, 99, first[198]);
+		assertEquals(errMsg1, -1, first[199]);
+		clusters.addRow(teeth);
+		assertEquals(errMsg1, 100, clusters.getLabelCount());
+		int[] last = clusters.addRow(full);
+		assertEquals(errMsg1, 1, clusters.getLabelCount());
+		assertEquals(errMsg1, 0, last[199]);
+		clusters.finish();
+		assertEquals(errMsg1, 3, clusters.getRows());
+		assertEquals(errMsg1, 1, clusters.getClusterCount());
+		assertEquals(errMsg1, 400, clusters.getSize(0));
+		assertEquals(errMsg1, 0, clusters.getCluster(0));
+		assertEquals(errMsg1, -1, clusters.getCluster(-1));
+		assertEquals(errMsg1, 199, clusters.getMaxCol(0));
+		assertEquals(errMsg1, true, clusters.isLinked(0));
+		assertEquals(errMsg1, 1, clusters.getSizeDistribution()[400]);
+	}
+
+	@Test(timeout = 10000)
+	public void clusterLabeling_CheckLabelsRecycled() {
+		// 2000 rows of 1000 columns near the percolation threshold never hold more
+		// labels than a row has clusters, and every cluster is counted once
+		int cols = 1000;
+		ClusterLabeling clusters = new ClusterLabeling(cols);
+		Random random = new Random(7);
+		long[] open = new long[BitParallelPropagation.wordsPerRow(cols)];
+		long cells = 0;
+		for (int row = 0; row < 2000; row++) {
+			Arrays.fill(open, 0);
+			for (int col = 0; col < cols; col++) {
+				if (random.nextDouble() >= 0.41) {
+					open[col >>> 6] |= 1L << col;
+					cells++;
+				}
+			}
+			clusters.addRow(open);
+			String errMsg1 = String.format("ClusterLabeling keeps too many labels at row %d", row);
+			assertTrue(errMsg1, clusters.getLabelCount() <= (cols + 1) / 2);
+		}
+		clusters.finish();
+		int[] distribution = clusters.getSizeDistribution();
+		long total = 0;
+		int count = 0;
+		for (int size = 0; size < distribution.length; size++) {
+			total += (long) size * distribution[size];
+			count += distribution[size];
+		}
+		String errMsg2 = String.format("ClusterLabeling loses cells once the labels are recycled");
+		assertEquals(errMsg2, cells, total);
+		assertEquals(errMsg2, clusters.getClusterCount(), count);
+		for (int cluster = 1; cluster < clusters.getClusterCount(); cluster++)
+			assertTrue(errMsg2, clusters.getMinRow(cluster - 1) <= clusters.getMinRow(cluster));
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void clusterLabeling_CheckNotFinished() {
+		ClusterLabeling clusters = new ClusterLabeling(10);
+		clusters.addRow(new long[] { 1L });
+		clusters.getClusterCount();
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void clusterLabeling_CheckFinished() {
+		new ClusterLabeling(new Block(gP[0])).addRow(new long[] { 1L });
+	}
+
+//*****************************ColumnStreamEvaluator Class Tests*****************************
+
+	void columnStreamEvaluator_CheckColumns(Cell[][] cells) {
+		int rows = cells.length;
+		int cols = cells[0].length;
+		String errMsg1 = String.format("ColumnStreamEvaluator is not the same as Propagation on %d x %d", rows, cols);
+		assertEquals(errMsg1, Propagation.isEffective(new Block(cells)),
+				ColumnStreamEvaluator.isEffective(new Block(cells)));
+		// after each column the frontier is reachable where a Block cut after that
+		// column has an entry with a path to the cell
+		ColumnStreamEvaluator evaluator = new ColumnStreamEvaluator(rows);
+		for (int j = 0; j < cols; j++) {
+			long[] open = new long[(rows + 63) / 64];
+			for (int i = 0; i < rows; i++) {
+				if (cells[i][j].getStatus() == 0 && !cells[i][j].getVisited())
+					open[i / 64] |= 1L << i;
+			}
+			evaluator.addColumn(open);
+			Cell[][] cut = new Cell[rows][j + 1];
+			for (int i = 0; i < rows; i++)
+				cut[i] = Arrays.copyOf(cells[i], j + 1);
+			RegionLabeling regions = new RegionLabeling(new Block(cut));
+			long[] reachable = evaluator.getReachable();
+			for (int i = 0; i < rows; i++) {
+				int region = regions.getLabel(i, j);
+				boolean expected = region >= 0 && regions.getEntries(region) > 0;
+				assertEquals(errMsg1, expected, evaluator.isReachable(i));
+				assertEquals(errMsg1, expected, (reachable[i / 64] & 1L << i) != 0);
+			}
+			assertEquals(errMsg1, Propagation.isEffective(new Block(copyGrid(cut))), evaluator.isEffective());
+		}
+		assertEquals(errMsg1, cols, evaluator.getColumns());
+	}
+
+	@Test(timeout = 5000)
+	public void columnStreamEvaluator_CheckColumns_00() {
+		for (int a = 0; a < gP.length; a++)
+			columnStreamEvaluator_CheckColumns(gP[a]);
+		for (int seed = 0; seed < 400; seed++)
+			columnStreamEvaluator_CheckColumns(randomGrid(1 + seed % 9, 1 + seed % 7, 0.4, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void columnStreamEvaluator_CheckColumns_01() {
+		double[] densities = { 0.3, 0.41, 0.5 };
+		for (int seed = 0; seed < 10; seed++)
+			columnStreamEvaluator_CheckColumns(randomGrid(70 + seed, 30 + seed, densities[seed % densities.length], seed));
+		for (int seed = 0; seed < 30; seed++) {
+			Cell[][] cells = randomGrid(150 + seed, 400 + seed, densities[seed % densities.length], seed);
+			String errMsg1 = String.format("ColumnStreamEvaluator is not the same as Propagation");
+			assertEquals(errMsg1, Propagation.isEffective(new Block(cells)),
+					ColumnStreamEvaluator.isEffective(new Block(cells)));
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void columnStreamEvaluator_CheckLongStream() {
+		// a single row corridor a million columns long, cut in the last column
+		ColumnStreamEvaluator evaluator = new ColumnStreamEvaluator(3);
+		long[] middle = { 2L };
+		for (int j = 0; j < 1000000; j++)
+			evaluator.addColumn(middle);
+		String errMsg1 = String.format("ColumnStreamEvaluator of a long corridor is incorrect");
+		assertEquals(errMsg1, false, evaluator.isEffective());
+		assertEquals(errMsg1, 1, evaluator.getReachableCount());
+		evaluator.addColumn(new long[] { 5L });
+		assertEquals(errMsg1, true, evaluator.isEffective());
+		assertEquals(errMsg1, 0, evaluator.getReachableCount());
+		evaluator.addColumn(new long[] { 7L });
+		assertEquals(errMsg1, true, evaluator.isEffective());
+	}
+
+	@Test(timeout = 1000, expected = IndexOutOfBoundsException.class)
+	public void columnStreamEvaluator_CheckInvalidRow() {
+		new ColumnStreamEvaluator(5).isReachable(5);
+	}
+
+//*****************************MappedGrid Class Tests*****************************
+
+	@Test(timeout = 10000)
+	public void mappedGrid_CheckRoundTrip() throws IOException {
+		Path file = Files.createTempFile("layout", ".blk");
+		try {
+			for (int seed = 0; seed < 60; seed++) {
+				Cell[][] cells = seed < gP.length ? copyGrid(gP[seed])
+						: randomGrid(1 + seed % 9, 1 + seed * 3 % 150, 0.4, seed);
+				if (seed % 2 == 0) {
+					for (Cell[] row : cells) {
+						for (Cell cell : row)
+							cell.setVisited(false);
+					}
+				}
+				MappedGrid.write(cells, file);
+				MappedGrid grid = MappedGrid.open(file);
+				String errMsg1 = String.format("MappedGrid does not read back the written cells of grid %d", seed);
+				assertEquals(errMsg1, cells.length, grid.getRows());
+				assertEquals(errMsg1, cells[0].length, grid.getCols());
+				for (int i = 0; i < cells.length; i++) {
+					for (int j = 0; j < cells[i].length; j++) {
+						assertEquals(errMsg1, cells[i][j].getStatus(), grid.getStatus(i, j));
+						assertEquals(errMsg1, cells[i][j].getVisited(), grid.isVisited(i, j));
+					}
+				}
+				assertEquals(errMsg1, Propagation.isEffective(new Block(cells)), Propagation.isEffective(new Block(grid)));
+				assertEquals(errMsg1, Arrays.toString(entryEffectivenessByPathCalc(cells)),
+						Arrays.toString(Propagation.entryEffectiveness(new Block(grid))));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void mappedGrid_CheckLarge() throws IOException {
+		PackedGrid packed = new PackedGrid(3000, 5000);
+		Random random = new Random(211);
+		for (int i = 0; i < 3000; i++) {
+			for (int j = 0; j < 5000; j++)
+				packed.setStatus(i, j, random.nextDouble() < 0.41 ? 1 : 0);
+		}
+		Path file = Files.createTempFile("layout", ".blk");
+		try {
+			MappedGrid.write(packed, file);
+			MappedGrid grid = MappedGrid.open(file);
+			String errMsg1 = String.format("MappedGrid of a large layout is incorrect");
+			assertEquals(errMsg1, 32 + 3000L * 79 * 8, Files.size(file));
+			for (int i = 0; i < 3000; i++) {
+				for (int w = 0; w < 79; w++)
+					assertEquals(errMsg1, packed.getStatusWord(i, w), grid.getStatusWord(i, w));
+			}
+			assertEquals(errMsg1, BitParallelPropagation.isEffective(new Block(packed)),
+					BitParallelPropagation.isEffective(new Block(grid)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void mappedGrid_CheckReadOnly() throws IOException {
+		Path file = Files.createTempFile("layout", ".blk");
+		try {
+			MappedGrid.write(gP[0], file);
+			new Block(MappedGrid.open(file)).getStorage().setStatus(0, 0, 1);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout = 1000, expected = IOException.class)
+	public void mappedGrid_CheckNotLayout() throws IOException {
+		Path file = Files.createTempFile("layout", ".blk");
+		try {
+			Files.write(file, new byte[40]);
+			MappedGrid.open(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+//*****************************OffHeapGrid Class Tests*****************************
+
+	@Test(timeout = 10000)
+	public void offHeapGrid_CheckSameAsPacked() {
+		Random random = new Random(211);
+		for (int seed = 0; seed < 40; seed++) {
+			int rows = 1 + random.nextInt(40);
+			int cols = 1 + random.nextInt(200);
+			PackedGrid packed = new PackedGrid(rows, cols);
+			try (OffHeapGrid grid = new OffHeapGrid(rows, cols)) {
+				String errMsg1 = String.format("OffHeapGrid is not the same as PackedGrid on %d x %d", rows, cols);
+				for (int k = 0; k < rows * cols * 2; k++) {
+					int i = random.nextInt(rows);
+					int j = random.nextInt(cols);
+					int status = random.nextDouble() < 0.6 ? 1 : 0;
+					boolean visited = random.nextInt(30) == 0;
+					packed.setStatus(i, j, status);
+					packed.setVisited(i, j, visited);
+					grid.setStatus(i, j, status);
+					grid.setVisited(i, j, visited);
+				}
+				for (int i = 0; i < rows; i++) {
+					for (int w = 0; w < packed.getWordsPerRow(); w++) {
+						assertEquals(errMsg1, packed.getStatusWord(i, w), grid.getStatusWord(i, w));
+						assertEquals(errMsg1, packed.getVisitedWord(i, w), grid.getVisitedWord(i, w));
+					}
+				}
+				Block expected = new Block(packed);
+				Block b = new Block(grid);
+				assertEquals(errMsg1, Propagation.isEffective(expected), Propagation.isEffective(b));
+				assertEquals(errMsg1, Arrays.toString(Propagation.entryEffectiveness(expected)),
+						Arrays.toString(Propagation.entryEffectiveness(b)));
+				assertEquals(errMsg1, Arrays.toString(ParallelPropagation.entryEffectiveness(expected)),
+						Arrays.toString(ParallelPropagation.entryEffectiveness(b)));
+				assertEquals(errMsg1, BitParallelPropagation.isEffective(expected), BitParallelPropagation.isEffective(b));
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void offHeapGrid_CheckMoves() {
+		try (OffHeapGrid grid = OffHeapGrid.copyOf(new CellGrid(copyGrid(gV)))) {
+			Block b = new Block(grid);
+			Block expected = new Block(copyGrid(gV));
+			b.setStart(1, 0);
+			expected.setStart(1, 0);
+			b.moveRight();
+			expected.moveRight();
+			b.moveDown();
+			expected.moveDown();
+			String errMsg1 = String.format("OffHeapGrid moves are not the same as a Cell[][] Block");
+			for (int i = 0; i < gV.length; i++) {
+				for (int j = 0; j < gV[i].length; j++) {
+					assertEquals(errMsg1, expected.getStatus(i, j), b.getStatus(i, j));
+					assertEquals(errMsg1, expected.isVisited(i, j), b.isVisited(i, j));
+					assertEquals(errMsg1, expected.isFree(i, j), b.isFree(i, j));
+				}
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void offHeapGrid_CheckBitParallelEntries() {
+		Random random = new Random(223);
+		for (int seed = 0; seed < 40; seed++) {
+			int rows = 1 + random.nextInt(30);
+			int cols = seed % 4 == 0 ? 1 : 1 + random.nextInt(150);
+			Cell[][] cells = randomGrid(rows, cols, 0.4, seed);
+			try (OffHeapGrid grid = OffHeapGrid.copyOf(new CellGrid(cells))) {
+				Block expected = new Block(PackedGrid.copyOf(grid));
+				Block b = new Block(grid);
+				String errMsg1 = String.format("BitParallelPropagation off the heap is incorrect on %d x %d", rows, cols);
+				assertEquals(errMsg1, BitParallelPropagation.isEffective(expected), BitParallelPropagation.isEffective(grid));
+				for (int i = 0; i < rows; i++)
+					assertEquals(errMsg1, BitParallelPropagation.isEffective(expected, i, 0),
+							BitParallelPropagation.isEffective(b, i, 0));
+			}
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void offHeapGrid_CheckSearchOffHeap() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		try (OffHeapGrid small = new OffHeapGrid(3, 3)) {
+			Propagation.isEffective(new Block(small)); // warm up
+		}
+		int side = 3000;
+		try (OffHeapGrid grid = new OffHeapGrid(side, side)) {
+			for (int i = 0; i < side; i++)
+				grid.setStatus(i, side / 2, 1); // a wall across the floor
+			Block b = new Block(grid);
+			long before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+			boolean walled = Propagation.isEffective(b);
+			boolean walledFromEntry = BitParallelPropagation.isEffective(b, side - 1, 0);
+			grid.setStatus(side - 1, side / 2, 0);
+			boolean open = BitParallelPropagation.isEffective(b);
+			long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+			// the open and reached bits alone take side x side / 4 bytes on the heap
+			String errMsg1 = String.format("Searches of a %d x %d OffHeapGrid allocated %d bytes on the heap", side,
+					side, allocated);
+			assertEquals(errMsg1, true, walled);
+			assertEquals(errMsg1, true, walledFromEntry);
+			assertEquals(errMsg1, false, open);
+			assertEquals(errMsg1, true, allocated < 64 * 1024);
+		}
+	}
+
+	@Test(timeout = 1000, expected = IllegalStateException.class)
+	public void offHeapGrid_CheckClosed() {
+		OffHeapGrid grid = new OffHeapGrid(10, 10);
+		grid.close();
+		grid.close();
+		assertEquals(true, grid.isClosed());
+		grid.getStatus(0, 0);
+	}
+
+//*****************************PaddedGrid Class Tests*****************************
+
+	void paddedGrid_CheckSameAsPropagation(Cell[][] cells) {
+		Block b = new Block(cells);
+		PaddedGrid padded = new PaddedGrid(b);
+		String errMsg1 = String.format("PaddedGrid is not the same as Propagation on %d x %d", cells.length,
+				cells[0].length);
+		assertEquals(errMsg1, Propagation.isEffective(b), padded.isEffective());
+		for (int i = -1; i <= cells.length; i++) {
+			assertEquals(errMsg1, Propagation.isEffective(b, i, 0), padded.isEffective(i, 0));
+			assertEquals(errMsg1, Propagation.shortestPathLength(b, i, 0), padded.shortestPathLength(i, 0));
+		}
+		assertEquals(errMsg1, true, padded.isEffective(0, 1));
+		assertEquals(errMsg1, PaddedGrid.CLOSED, padded.getCell(padded.index(-1, -1)));
+		assertEquals(errMsg1, PaddedGrid.CLOSED, padded.getCell(padded.index(cells.length, cells[0].length)));
+	}
+
+	@Test(timeout = 5000)
+	public void paddedGrid_CheckSameAsPropagation_00() {
+		for (int a = 0; a < gP.length; a++)
+			paddedGrid_CheckSameAsPropagation(gP[a]);
+		paddedGrid_CheckSameAsPropagation(gV);
+		for (int seed = 0; seed < 400; seed++)
+			paddedGrid_CheckSameAsPropagation(randomGrid(1 + seed % 9, 1 + seed % 7, 0.4, seed));
+	}
+
+	@Test(timeout = 10000)
+	public void paddedGrid_CheckSameAsPropagation_01() {
+		double[] densities = { 0.3, 0.41, 0.5 };
+		for (int seed = 0; seed < 15; seed++)
+			paddedGrid_CheckSameAsPropagation(randomGrid(40 + seed, 70 + seed, densities[seed % densities.length], seed));
+	}
+
+	@Test(timeout = 5000)
+	public void paddedGrid_CheckCopy() {
+		Cell[][] cells = copyGrid(gV);
+		Block b = new Block(cells);
+		PaddedGrid padded = new PaddedGrid(b);
+		boolean before = padded.isEffective();
+		for (Cell[] row : cells) {
+			for (Cell cell : row)
+				cell.setStatus(0);
+		}
+		String errMsg1 = String.format("PaddedGrid follows changes to the Block");
+		assertEquals(errMsg1, before, padded.isEffective());
+		assertEquals(errMsg1, false, new PaddedGrid(b).isEffective());
+		assertEquals(errMsg1, Propagation.shortestPathLength(b, 0, 0), new PaddedGrid(b).shortestPathLength(0, 0));
+	}
+
+//*****************************Free Neighbours Tests*****************************
+
+	void freeNeighbours_CheckSameAsIsFree(String errMsg, Block b) {
+		for (int i = -1; i <= b.getRows(); i++) {
+			for (int j = -1; j <= b.getCols(); j++) {
+				int expected = 0;
+				if (b.isValid(i, j)) {
+					expected |= b.isFree(i, j - 1) ? Block.LEFT : 0;
+					expected |= b.isFree(i, j + 1) ? Block.RIGHT : 0;
+					expected |= b.isFree(i - 1, j) ? Block.UP : 0;
+					expected |= b.isFree(i + 1, j) ? Block.DOWN : 0;
+				}
+				assertEquals(errMsg + " at (" + i + ", " + j + ")", expected, b.getFreeNeighbours(i, j));
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void freeNeighbours_CheckSetStatus() {
+		for (int seed = 0; seed < 100; seed++) {
+			Cell[][] cells = randomGrid(1 + seed % 8, 1 + seed % 5, 0.4, seed);
+			Block b = new Block(cells);
+			Random random = new Random(seed);
+			String errMsg1 = String.format("Free neighbours are wrong after setStatus on seed %d", seed);
+			freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+			for (int k = 0; k < 30; k++) {
+				int i = random.nextInt(b.getRows());
+				int j = random.nextInt(b.getCols());
+				b.setStatus(i, j, random.nextInt(2));
+				freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+				Block fresh = new Block(copyGrid(cells));
+				assertEquals(errMsg1, Propagation.isEffective(fresh), Propagation.isEffective(b));
+				for (int r = 0; r < b.getRows(); r++)
+					assertEquals(errMsg1, Propagation.findPath(fresh, r, 0), Propagation.findPath(b, r, 0));
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void freeNeighbours_CheckMoves() {
+		Cell[][] cells = copyGrid(gP[0]);
+		Block b = new Block(cells);
+		String errMsg1 = String.format("Free neighbours are wrong after a move");
+		b.getFreeNeighbours(0, 0);
+		b.setCurrentRow(1);
+		b.setCurrentCol(1);
+		b.moveUp();
+		b.moveRight();
+		b.moveDown();
+		b.moveLeft();
+		freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+	}
+
+	@Test(timeout = 5000)
+	public void freeNeighbours_CheckCellChanges() {
+		Cell[][] cells = { { new Cell(0, false), new Cell(0, false), new Cell(0, false) } };
+		Block b = new Block(cells);
+		String errMsg1 = String.format("Searches miss a change made through a Cell");
+		assertEquals(errMsg1, false, Propagation.isEffective(b, 0, 0));
+		b.getGrid()[0][1].setStatus(1);
+		freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+		assertEquals(errMsg1, true, Propagation.isEffective(b, 0, 0));
+		assertEquals(errMsg1, null, Propagation.pathCalc(b, 0, 0));
+		assertEquals(errMsg1, true, RecursivePropagation.recursiveIsEffective(b, 0, 0));
+		cells[0][1].setStatus(0);
+		freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+		assertEquals(errMsg1, false, Propagation.isEffective(b, 0, 0));
+		assertEquals(errMsg1, false, RecursivePropagation.recursiveIsEffective(b, 0, 0));
+	}
+
+	@Test(timeout = 5000)
+	public void freeNeighbours_CheckGridCellChanges() {
+		PackedGrid grid = new PackedGrid(1, 3);
+		Block b = new Block(grid);
+		String errMsg1 = String.format("Searches miss a change made through a GridCell");
+		assertEquals(errMsg1, false, Propagation.isEffective(b, 0, 0));
+		Cell[][] views = b.getGrid();
+		views[0][1].setStatus(1);
+		freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+		assertEquals(errMsg1, true, Propagation.isEffective(b, 0, 0));
+		assertEquals(errMsg1, null, Propagation.pathCalc(b, 0, 0));
+		grid.setStatus(0, 1, 0);
+		freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+		assertEquals(errMsg1, false, Propagation.isEffective(b, 0, 0));
+	}
+
+	@Test(timeout = 5000)
+	public void freeNeighbours_CheckFrozenSnapshot() {
+		Cell[][] cells = copyGrid(gV);
+		Block b = new Block(cells);
+		FrozenBlock frozen = new FrozenBlock(b);
+		boolean before = Propagation.isEffective(frozen);
+		for (Cell[] row : cells) {
+			for (Cell cell : row)
+				cell.setStatus(1 - cell.getStatus());
+		}
+		freeNeighbours_CheckSameAsIsFree("Free neighbours of a FrozenBlock follow the Block", frozen);
+		assertEquals("A FrozenBlock follows the Block", before, Propagation.isEffective(frozen));
+	}
+
+	@Test(timeout = 1000, expected = IndexOutOfBoundsException.class)
+	public void freeNeighbours_CheckInvalidSetStatus() {
+		Block b = new Block(copyGrid(gV));
+		b.setStatus(b.getRows(), 0, 1);
+	}
+
+	@Test(timeout = 1000, expected = UnsupportedOperationException.class)
+	public void freeNeighbours_CheckFrozenSetStatus() {
+		FrozenBlock b = new FrozenBlock(new Block(copyGrid(gV)));
+		freeNeighbours_CheckSameAsIsFree("Free neighbours of a FrozenBlock are wrong", b);
+		b.setStatus(0, 0, 1);
+	}
+
+	@Test(timeout = 10000)
+	public void freeNeighbours_CheckGridTables() {
+		for (int seed = 0; seed < 60; seed++) {
+			Cell[][] cells = randomGrid(1 + seed % 7, 1 + seed % 9, 0.4, seed);
+			Grid[] grids = { PackedGrid.copyOf(new CellGrid(cells)), OffHeapGrid.copyOf(new CellGrid(cells)),
+					MortonGrid.copyOf(new CellGrid(cells)), RunLengthGrid.copyOf(new CellGrid(cells)) };
+			for (Grid grid : grids) {
+				Block b = new Block(grid);
+				Cell[][] views = b.getGrid();
+				Random random = new Random(seed);
+				String errMsg1 = String.format("Free neighbours of a %s are wrong on seed %d",
+						grid.getClass().getName(), seed);
+				freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+				for (int k = 0; k < 40; k++) {
+					int i = random.nextInt(b.getRows());
+					int j = random.nextInt(b.getCols());
+					int status = random.nextInt(2);
+					// every way to change a cell goes through the setStatus of the grid
+					if (k % 3 == 0)
+						b.setStatus(i, j, status);
+					else if (k % 3 == 1)
+						views[i][j].setStatus(status);
+					else
+						grid.setStatus(i, j, status);
+					freeNeighbours_CheckSameAsIsFree(errMsg1, b);
+				}
+				if (grid instanceof OffHeapGrid)
+					((OffHeapGrid) grid).close();
+			}
+		}
+	}
+
+//*****************************MortonGrid Class Tests*****************************
+
+	@Test(timeout = 5000)
+	public void mortonGrid_CheckIndexes() {
+		int[][] sizes = { { 1, 1 }, { 1, 9 }, { 9, 1 }, { 3, 5 }, { 8, 8 }, { 5, 33 }, { 70, 9 }, { 64, 64 } };
+		for (int[] size : sizes) {
+			MortonGrid grid = new MortonGrid(size[0], size[1]);
+			HashSet<Long> indexes = new HashSet<Long>();
+			String errMsg1 = String.format("MortonGrid indexes are wrong on %d x %d", size[0], size[1]);
+			for (int i = 0; i < size[0]; i++) {
+				for (int j = 0; j < size[1]; j++) {
+					long index = grid.index(i, j);
+					assertEquals(errMsg1, true, indexes.add(index));
+					assertEquals(errMsg1, i, grid.getRow(index));
+					assertEquals(errMsg1, j, grid.getCol(index));
+					if (i > 0)
+						assertEquals(errMsg1, grid.index(i - 1, j), grid.up(index));
+					if (i + 1 < size[0])
+						assertEquals(errMsg1, grid.index(i + 1, j), grid.down(index));
+					if (j > 0)
+						assertEquals(errMsg1, grid.index(i, j - 1), grid.left(index));
+					if (j + 1 < size[1])
+						assertEquals(errMsg1, grid.index(i, j + 1), grid.right(index));
+				}
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void mortonGrid_CheckSameAsPropagation() {
+		for (int seed = 0; seed < 200; seed++) {
+			Cell[][] cells = seed == 0 ? gV : randomGrid(1 + seed % 9, 1 + seed % 13, 0.4, seed);
+			Block b = new Block(cells);
+			MortonGrid grid = new MortonGrid(cells);
+			Block morton = new Block(grid);
+			String errMsg1 = String.format("A Block over a MortonGrid is not the same on seed %d", seed);
+			for (int i = 0; i < cells.length; i++) {
+				for (int j = 0; j < cells[0].length; j++) {
+					assertEquals(errMsg1, cells[i][j].getStatus(), grid.getStatus(grid.index(i, j)));
+					assertEquals(errMsg1, cells[i][j].getVisited(), grid.isVisited(grid.index(i, j)));
+				}
+			}
+			assertEquals(errMsg1, Propagation.isEffective(b), Propagation.isEffective(morton));
+			for (int i = 0; i < cells.length; i++) {
+				assertEquals(errMsg1, Propagation.findPath(b, i, 0), Propagation.findPath(morton, i, 0));
+				assertEquals(errMsg1, Propagation.shortestPathLength(b, i, 0), Propagation.shortestPathLength(morton, i, 0));
+			}
+		}
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void mortonGrid_CheckNegativeSize() {
+		new MortonGrid(-1, 4);
+	}
+
+//*****************************RunLengthGrid Class Tests*****************************
+
+	@Test(timeout = 10000)
+	public void runLengthGrid_CheckSameAsPropagation() {
+		for (int a = 0; a < gP.length; a++)
+			assertEquals("RunLengthGrid is not the same as Propagation", Propagation.isEffective(new Block(gP[a])),
+					new RunLengthGrid(gP[a]).isEffective());
+		assertEquals("RunLengthGrid is not the same as Propagation", Propagation.isEffective(new Block(gV)),
+				new RunLengthGrid(gV).isEffective());
+		for (int seed = 0; seed < 2000; seed++) {
+			Cell[][] cells = randomGrid(1 + seed % 9, 1 + seed % 11, 0.2 + (seed % 5) * 0.1, seed);
+			String errMsg1 = String.format("RunLengthGrid is not the same as Propagation on seed %d", seed);
+			assertEquals(errMsg1, Propagation.isEffective(new Block(cells)), new RunLengthGrid(cells).isEffective());
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void runLengthGrid_CheckSetStatus() {
+		for (int seed = 0; seed < 100; seed++) {
+			Cell[][] cells = randomGrid(1 + seed % 6, 1 + seed % 10, 0.4, seed);
+			RunLengthGrid grid = new RunLengthGrid(cells);
+			Block b = new Block(grid);
+			Random random = new Random(seed);
+			String errMsg1 = String.format("RunLengthGrid is not the same as the cells on seed %d", seed);
+			for (int k = 0; k < 40; k++) {
+				int i = random.nextInt(cells.length);
+				int j = random.nextInt(cells[0].length);
+				int status = random.nextInt(2);
+				boolean visited = random.nextInt(4) == 0;
+				cells[i][j].setStatus(status);
+				cells[i][j].setVisited(visited);
+				b.setStatus(i, j, status);
+				grid.setVisited(i, j, visited);
+				int runs = 0;
+				for (int r = 0; r < cells.length; r++) {
+					for (int c = 0; c < cells[0].length; c++) {
+						assertEquals(errMsg1, cells[r][c].getStatus(), grid.getStatus(r, c));
+						assertEquals(errMsg1, cells[r][c].getVisited(), grid.isVisited(r, c));
+						if (c == 0 || cells[r][c].getStatus() != cells[r][c - 1].getStatus()
+								|| cells[r][c].getVisited() != cells[r][c - 1].getVisited())
+							runs++;
+					}
+				}
+				assertEquals(errMsg1, runs, grid.getRunCount());
+				assertEquals(errMsg1, Propagation.isEffective(new Block(copyGrid(cells))), Propagation.isEffective(b));
+				assertEquals(errMsg1, Propagation.findPath(new Block(copyGrid(cells)), i, 0), Propagation.findPath(b, i, 0));
+			}
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void runLengthGrid_CheckRuns() {
+		RunLengthGrid grid = new RunLengthGrid(1000, 100000);
+		String errMsg1 = String.format("RunLengthGrid does not keep a run per open row");
+		assertEquals(errMsg1, 1000, grid.getRunCount());
+		assertEquals(errMsg1, false, grid.isEffective());
+		for (int j = 0; j < 100000; j++)
+			grid.setStatus(500, j, j == 99999 ? 0 : 1);
+		assertEquals(errMsg1, 1001, grid.getRunCount());
+		assertEquals(errMsg1, 2, grid.getRunCount(500));
+		assertEquals(errMsg1, false, grid.isEffective());
+		for (int i = 0; i < 1000; i++)
+			grid.setStatus(i, 50000, 1);
+		assertEquals(errMsg1, true, grid.isEffective());
+		assertEquals(errMsg1, true, Propagation.isEffective(new Block(grid)));
+	}
+
+	@Test(timeout = 1000, expected = IllegalArgumentException.class)
+	public void runLengthGrid_CheckNegativeSize() {
+		new RunLengthGrid(3, -1);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+/**
+ * A PackedGrid is a Grid that stores the status and the visited flag of every
+ * cell as a single bit instead of a Cell object. The bits are kept row by row in
+ * two arrays of long words, one for the status (1 for MARKED) and one for the
+ * visited flag. Every row starts on a new word, so a row of m cells takes
+ * (m + 63) / 64 words.
+ *
+ * A third array keeps the free neighbours of every cell, as getFreeNeighbours
+ * returns them, in four bits per cell: 16 cells per word, row by row. setStatus
+ * changes the four bits of the neighbours of the cell it changes, so the table
+ * is never out of date, and a search reads the free neighbours of a cell in a
+ * single lookup. A 20k x 20k Block takes about 300 MB this way, where a
+ * Cell[][] of the same size takes several gigabytes.
+ *
+ * Since a single bit is kept for the status, any non-zero status is stored as
+ * MARKED=1. A PackedGrid can be frozen, after which it can no longer be changed
+ * and can be read by many threads at the same time.
+ *
+ * @author Liying Lu
+ *
+ */
+public class PackedGrid implements Grid {
+	private final int rows;
+	private final int cols;
+	private final int wordsPerRow;
+	private final long[] status;
+	private final long[] visited;
+	private final long[] freeNeighbours; // four bits per cell, 16 cells per word
+	private volatile boolean frozen;
+
+	/**
+	 * A constructor that creates a grid of the given size where every cell is
+	 * CLEAR and not visited.
+	 *
+	 * @param rows Number of rows (n) of the grid.
+	 * @param cols Number of columns (m) of the grid.
+	 */
+	public PackedGrid(int rows, int cols) {
+		if (rows < 0 || cols < 0)
+			throw new IllegalArgumentException("Negative grid size: " + rows + " x " + cols);
+		this.rows = rows;
+		this.cols = cols;
+		this.wordsPerRow = (cols + 63) >>> 6;
+		long words = (long) rows * wordsPerRow;
+		long nibbleWords = ((long) rows * cols + 15) >>> 4;
+		if (words > Integer.MAX_VALUE - 8 || nibbleWords > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Grid is too large: " + rows + " x " + cols);
+		this.status = new long[(int) words];
+		this.visited = new long[(int) words];
+		this.freeNeighbours = new long[(int) nibbleWords];
+		// every cell is CLEAR, so every neighbour inside the grid is free
+		long cell = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++, cell++)
+				freeNeighbours[(int) (cell >>> 4)] |= (long) edgeNeighbours(row, col) << ((cell & 15) << 2);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that returns the neighbours of a cell
+	 * that are inside the grid.
+	 */
+	private int edgeNeighbours(int row, int col) {
+		int free = 0;
+		if (col > 0)
+			free |= Block.LEFT;
+		if (col + 1 < cols)
+			free |= Block.RIGHT;
+		if (row > 0)
+			free |= Block.UP;
+		if (row + 1 < rows)
+			free |= Block.DOWN;
+		return free;
+	}
+
+	/**
+	 * A constructor that creates a grid with the same status and visited values
+	 * as the given two-dimensional array of Cell.
+	 *
+	 * @param cells A n by m array of Cell
+	 */
+	public PackedGrid(Cell[][] cells) {
+		this(cells.length, cells.length == 0 ? 0 : cells[0].length);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				setStatus(row, col, cells[row][col].getStatus());
+				setVisited(row, col, cells[row][col].getVisited());
+			}
+		}
+	}
+
+	/**
+	 * This method creates a PackedGrid with the same status and visited values as
+	 * any other grid.
+	 *
+	 * @param grid Grid to copy.
+	 * @return A new PackedGrid holding a copy of the grid.
+	 */
+	public static PackedGrid copyOf(Grid grid) {
+		PackedGrid copy = new PackedGrid(grid.getRows(), grid.getCols());
+		for (int row = 0; row < copy.rows; row++) {
+			for (int col = 0; col < copy.cols; col++) {
+				copy.setStatus(row, col, grid.getStatus(row, col));
+				copy.setVisited(row, col, grid.isVisited(row, col));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * This method freezes the grid. Any later attempt to change the status or the
+	 * visited flag of a cell throws an UnsupportedOperationException.
+	 *
+	 * @return this grid
+	 */
+	public PackedGrid freeze() {
+		frozen = true;
+		return this;
+	}
+
+	/**
+	 * A method that returns if the grid is frozen.
+	 *
+	 * @return True if the grid can no longer be changed, otherwise false.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * This method serves as a helper method that refuses to change a frozen grid.
+	 */
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new UnsupportedOperationException("The grid is frozen");
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of long words used for each row.
+	 *
+	 * @return the wordsPerRow
+	 */
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * A getter that returns 64 status bits of a row at once. Bit i of word w is the
+	 * status of the cell in column 64 x w + i; the bits past the last column are
+	 * always 0.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the status bits, 1 for MARKED
+	 */
+	public long getStatusWord(int row, int word) {
+		return status[row * wordsPerRow + word];
+	}
+
+	/**
+	 * A getter that returns 64 visited bits of a row at once, in the same order as
+	 * getStatusWord.
+	 *
+	 * @param row  Row number of the cells.
+	 * @param word Index of the word within the row.
+	 * @return the visited bits, 1 for visited
+	 */
+	public long getVisitedWord(int row, int word) {
+		return visited[row * wordsPerRow + word];
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return (int) (status[row * wordsPerRow + (col >>> 6)] >>> col) & 1;
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		checkNotFrozen();
+		int word = row * wordsPerRow + (col >>> 6);
+		boolean free = status == 0;
+		if (((this.status[word] & 1L << col) == 0) == free)
+			return;
+		if (free)
+			this.status[word] &= ~(1L << col);
+		else
+			this.status[word] |= 1L << col;
+		// the cell is the right neighbour of the cell on its left, and so on
+		long cell = (long) row * cols + col;
+		if (col > 0)
+			setFreeNeighbour(cell - 1, Block.RIGHT, free);
+		if (col + 1 < cols)
+			setFreeNeighbour(cell + 1, Block.LEFT, free);
+		if (row > 0)
+			setFreeNeighbour(cell - cols, Block.DOWN, free);
+		if (row + 1 < rows)
+			setFreeNeighbour(cell + cols, Block.UP, free);
+	}
+
+	/**
+	 * This method serves as a helper method that sets or clears one of the free
+	 * neighbours of a cell in the table.
+	 */
+	private void setFreeNeighbour(long cell, int neighbour, boolean free) {
+		int word = (int) (cell >>> 4);
+		long bit = (long) neighbour << ((cell & 15) << 2);
+		if (free)
+			freeNeighbours[word] |= bit;
+		else
+			freeNeighbours[word] &= ~bit;
+	}
+
+	/**
+	 * A getter that returns the free neighbours of a cell from the table.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return The CLEAR neighbours of the cell.
+	 */
+	@Override
+	public int getFreeNeighbours(int row, int col) {
+		long cell = (long) row * cols + col;
+		return (int) (freeNeighbours[(int) (cell >>> 4)] >>> ((cell & 15) << 2)) & 15;
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return (visited[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		checkNotFrozen();
+		int word = row * wordsPerRow + (col >>> 6);
+		if (visited)
+			this.visited[word] |= 1L << col;
+		else
+			this.visited[word] &= ~(1L << col);
+	}
+
+}
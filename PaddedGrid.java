@@ -0,0 +1,229 @@
+/**
+ * A PaddedGrid is a copy of the open cells of a Block laid out for searches
+ * that never check bounds. The layout is surrounded by a border of cells that
+ * are always closed, and the cells are numbered row by row in a single array
+ * that includes the border, so the neighbours of the cell at index i are at i -
+ * 1, i + 1, i - width and i + width, and a search can step to any of them
+ * without asking if the cell is inside the layout: the border stops it like a
+ * MARKED cell. Each cell is kept in a byte, CLOSED for the border and for the
+ * cells that are MARKED or visited, OPEN for the other cells and EXIT for the
+ * open cells of the right column, so reaching an exit needs no column check
+ * either.
+ *
+ * The copy is taken when the PaddedGrid is created and does not follow later
+ * changes to the Block. The searches keep their visited cells in a VisitMarks of
+ * their own and can be run any number of times on the same PaddedGrid, but not
+ * from several threads at once.
+ *
+ * @author Liying Lu
+ *
+ */
+public class PaddedGrid {
+	public static final byte CLOSED = 0;
+	public static final byte OPEN = 1;
+	public static final byte EXIT = 2;
+
+	private final Block area;
+	private final int rows;
+	private final int cols;
+	private final int width;
+	private final byte[] cells;
+	private final int[] steps; // up, right, down, left
+	private final VisitMarks marks;
+	private int[] work; // the stack or queue of the searches
+
+	/**
+	 * A constructor that copies the open cells of the given block.
+	 *
+	 * @param area Block to copy.
+	 */
+	public PaddedGrid(Block area) {
+		this.area = area;
+		rows = area.getRows();
+		cols = area.getCols();
+		width = cols + 2;
+		if ((long) (rows + 2) * width > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to pad: " + rows + " x " + cols);
+		cells = new byte[(rows + 2) * width];
+		steps = new int[] { -width, 1, width, -1 };
+		long[] open = new long[BitParallelPropagation.wordsPerRow(cols)];
+		for (int row = 0; row < rows; row++) {
+			BitParallelPropagation.openRow(area, row, open, 0);
+			int first = index(row, 0);
+			for (int col = 0; col < cols; col++) {
+				if ((open[col >>> 6] & 1L << col) != 0)
+					cells[first + col] = OPEN;
+			}
+			if (cols > 0 && cells[first + cols - 1] == OPEN)
+				cells[first + cols - 1] = EXIT;
+		}
+		marks = new VisitMarks(cells.length);
+	}
+
+	/**
+	 * A getter that returns the block the grid was copied from.
+	 *
+	 * @return the area
+	 */
+	public Block getArea() {
+		return area;
+	}
+
+	/**
+	 * A getter that returns the number of cells in a row of the padded array,
+	 * which is m + 2. It is the step from a cell to the cell below it.
+	 *
+	 * @return the width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * This method returns the index of a cell of the Block in the padded array.
+	 *
+	 * @param row Row number of the cell, from -1 to n.
+	 * @param col Column number of the cell, from -1 to m.
+	 * @return the index of the cell
+	 */
+	public int index(int row, int col) {
+		return (row + 1) * width + col + 1;
+	}
+
+	/**
+	 * A getter that returns the kind of a cell: CLOSED, OPEN or EXIT.
+	 *
+	 * @param index Index of the cell in the padded array.
+	 * @return the kind of the cell
+	 */
+	public byte getCell(int index) {
+		return cells[index];
+	}
+
+	/**
+	 * Given the entry in the left column of the given row, this method determines
+	 * if the social distancing is effective from that entry. It gives the same
+	 * answer as Propagation.isEffective(area, startRow, startCol) for the Block as
+	 * it was copied.
+	 *
+	 * @param startRow Starting row number of the Block.
+	 * @param startCol Starting column number of the Block.
+	 * @return True if no path leads from the entry to an exit, otherwise false.
+	 */
+	public boolean isEffective(int startRow, int startCol) {
+		// No path can be found if the entry is not valid
+		if (startCol != 0 || startRow < 0 || startRow >= rows || cells[index(startRow, 0)] == CLOSED)
+			return true;
+		int[] stack = work();
+		marks.reset();
+		int start = index(startRow, 0);
+		marks.mark(start);
+		stack[0] = start;
+		int top = 1;
+		// the start is not checked for an exit, since a path needs a second cell
+		// when the entry is an exit itself
+		while (top > 0) {
+			int cell = stack[--top];
+			for (int step : steps) {
+				int next = cell + step;
+				if (cells[next] == CLOSED || marks.isMarked(next))
+					continue;
+				if (cells[next] == EXIT)
+					return false;
+				marks.mark(next);
+				stack[top++] = next;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method determines if the social distancing is effective for every
+	 * entry at once by searching from all the entries together. It gives the same
+	 * answer as Propagation.isEffective(area) for the Block as it was copied.
+	 *
+	 * @return True if no entry has a path to an exit, otherwise false.
+	 */
+	public boolean isEffective() {
+		if (cols == 1) {
+			// every entry is an exit too, so a path is two open cells in a row
+			for (int row = 1; row < rows; row++) {
+				if (cells[index(row, 0)] != CLOSED && cells[index(row - 1, 0)] != CLOSED)
+					return false;
+			}
+			return true;
+		}
+		int[] stack = work();
+		marks.reset();
+		int top = 0;
+		for (int row = 0; row < rows; row++) {
+			int entry = index(row, 0);
+			if (cells[entry] != CLOSED) {
+				marks.mark(entry);
+				stack[top++] = entry;
+			}
+		}
+		while (top > 0) {
+			int cell = stack[--top];
+			for (int step : steps) {
+				int next = cell + step;
+				if (cells[next] == CLOSED || marks.isMarked(next))
+					continue;
+				if (cells[next] == EXIT)
+					return false;
+				marks.mark(next);
+				stack[top++] = next;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method returns the number of moves on a shortest path from the given
+	 * entry to an exit, or -1 if there is no path, like
+	 * Propagation.shortestPathLength(area, startRow, startCol). The cells are
+	 * searched breadth first, one distance at a time.
+	 *
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @return The number of moves from the entry to the nearest exit, or -1.
+	 */
+	public int shortestPathLength(int startRow, int startCol) {
+		if (startCol != 0 || startRow < 0 || startRow >= rows || cells[index(startRow, 0)] == CLOSED)
+			return -1;
+		int[] queue = work();
+		marks.reset();
+		int start = index(startRow, 0);
+		marks.mark(start);
+		queue[0] = start;
+		int head = 0;
+		int tail = 1;
+		for (int moves = 1; head < tail; moves++) {
+			int end = tail; // the cells at moves - 1 from the entry
+			while (head < end) {
+				int cell = queue[head++];
+				for (int step : steps) {
+					int next = cell + step;
+					if (cells[next] == CLOSED || marks.isMarked(next))
+						continue;
+					if (cells[next] == EXIT)
+						return moves;
+					marks.mark(next);
+					queue[tail++] = next;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the stack or queue of the
+	 * searches, which never holds a cell twice.
+	 */
+	private int[] work() {
+		if (work == null)
+			work = new int[cells.length];
+		return work;
+	}
+
+}
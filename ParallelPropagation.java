@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ParallelPropagation class answers the same questions as the Propagation
+ * class, but uses every core of the machine. The Block is split into square
+ * tiles, and the tiles are labeled at the same time on a ForkJoinPool: inside a
+ * tile two open cells (CLEAR and not visited) get the same label if they are
+ * connected within the tile. Only the labels on the border of a tile are kept,
+ * because a region that does not touch the border of its tile cannot reach an
+ * entry or an exit of the Block. The border labels of neighbouring tiles are
+ * then joined with a union-find over all the tiles, and an entry is effective
+ * if its label is not joined with the label of any exit.
+ *
+ * @author Liying Lu
+ *
+ */
+public class ParallelPropagation {
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * A Tile is a rectangle of the Block together with the labels of the cells on
+	 * its four sides. The labels go from 0 to count - 1 inside the tile, -1 for a
+	 * cell that is not open, and start at offset in the union-find of the whole
+	 * Block.
+	 */
+	private static final class Tile {
+		final int firstRow, firstCol, height, width;
+		int[] top, bottom, left, right;
+		int count, offset;
+
+		Tile(int firstRow, int firstCol, int height, int width) {
+			this.firstRow = firstRow;
+			this.firstCol = firstCol;
+			this.height = height;
+			this.width = width;
+		}
+	}
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective from the given entry. It gives the same answer as
+	 * Propagation.isEffective(area, startRow, startCol), but labels the whole
+	 * Block to do so, so entryEffectiveness(area) should be used to check many
+	 * entries.
+	 *
+	 * @param area     A Block to inspect.
+	 * @param startRow Starting row number of the Block.
+	 * @param startCol Starting column number of the Block.
+	 * @return True if the social distancing is effective in the Block, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area, int startRow, int startCol) {
+		// No path can be found if the entry is not valid
+		if (!area.isEntry(startRow, startCol))
+			return true;
+		return entryEffectiveness(area)[startRow];
+	}
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective for every entry at once. It gives the same answer as
+	 * Propagation.isEffective(area).
+	 *
+	 * @param area A Block to inspect.
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area) {
+		for (boolean effective : entryEffectiveness(area)) {
+			if (!effective)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Given a Block this method determines for each entry of the Block if the
+	 * social distancing is effective, using tiles of DEFAULT_TILE_SIZE on the
+	 * common ForkJoinPool.
+	 *
+	 * @param area A Block to inspect.
+	 * @return An array with one value for each row of the Block, true if the entry
+	 *         in that row has no path to an exit.
+	 */
+	public static boolean[] entryEffectiveness(Block area) {
+		return entryEffectiveness(area, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Given a Block this method determines for each entry of the Block if the
+	 * social distancing is effective, i.e. the element at index i is the same as
+	 * Propagation.isEffective(area, i, 0). The tiles are labeled by the tasks of
+	 * the given pool. The Block must not be changed while this method runs.
+	 *
+	 * @param area     A Block to inspect.
+	 * @param tileSize Number of rows and columns of a tile.
+	 * @param pool     Pool to label the tiles in.
+	 * @return An array with one value for each row of the Block, true if the entry
+	 *         in that row has no path to an exit.
+	 */
+	public static boolean[] entryEffectiveness(Block area, int tileSize, ForkJoinPool pool) {
+		if (tileSize < 1)
+			throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+		int rows = area.getRows();
+		int cols = area.getCols();
+		Grid grid = area.getStorage();
+		boolean[] effective = new boolean[rows];
+		Arrays.fill(effective, true);
+		if (cols == 1) {
+			// in a single column the entry is an exit too, so a path needs one more cell
+			for (int row = 1; row < rows; row++) {
+				if (isOpen(grid, row - 1, 0) && isOpen(grid, row, 0)) {
+					effective[row - 1] = false;
+					effective[row] = false;
+				}
+			}
+			return effective;
+		}
+		if (rows == 0 || cols == 0)
+			return effective;
+
+		int tileRows = (rows + tileSize - 1) / tileSize;
+		int tileCols = (cols + tileSize - 1) / tileSize;
+		if ((long) tileRows * tileCols > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Tile size is too small for the block: " + tileSize);
+		Tile[] tiles = new Tile[tileRows * tileCols];
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			for (int tileCol = 0; tileCol < tileCols; tileCol++) {
+				int firstRow = tileRow * tileSize;
+				int firstCol = tileCol * tileSize;
+				tiles[tileRow * tileCols + tileCol] = new Tile(firstRow, firstCol,
+						Math.min(tileSize, rows - firstRow), Math.min(tileSize, cols - firstCol));
+			}
+		}
+
+		// label the tiles in parallel
+		pool.invoke(new LabelTask(grid, tiles, 0, tiles.length));
+
+		// number the border labels of all the tiles one after the other
+		long total = 0;
+		for (Tile tile : tiles) {
+			tile.offset = (int) total;
+			total += tile.count;
+		}
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to label: " + rows + " x " + cols);
+		int[] parent = new int[(int) total];
+		for (int label = 0; label < parent.length; label++)
+			parent[label] = label;
+
+		// join the labels that meet across the sides of neighbouring tiles
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			for (int tileCol = 0; tileCol < tileCols; tileCol++) {
+				Tile tile = tiles[tileRow * tileCols + tileCol];
+				if (tileCol + 1 < tileCols) {
+					Tile right = tiles[tileRow * tileCols + tileCol + 1];
+					join(parent, tile, tile.right, right, right.left);
+				}
+				if (tileRow + 1 < tileRows) {
+					Tile below = tiles[(tileRow + 1) * tileCols + tileCol];
+					join(parent, tile, tile.bottom, below, below.top);
+				}
+			}
+		}
+
+		// flag the labels joined with an exit, then look up every entry
+		boolean[] exit = new boolean[parent.length];
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			Tile tile = tiles[tileRow * tileCols + tileCols - 1];
+			for (int label : tile.right) {
+				if (label >= 0)
+					exit[find(parent, tile.offset + label)] = true;
+			}
+		}
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			Tile tile = tiles[tileRow * tileCols];
+			for (int row = 0; row < tile.height; row++) {
+				int label = tile.left[row];
+				if (label >= 0 && exit[find(parent, tile.offset + label)])
+					effective[tile.firstRow + row] = false;
+			}
+		}
+		return effective;
+	}
+
+	/**
+	 * A LabelTask labels a range of tiles, splitting the range in two until a
+	 * single tile is left.
+	 */
+	private static final class LabelTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Grid grid;
+		private final Tile[] tiles;
+		private final int from, to;
+
+		LabelTask(Grid grid, Tile[] tiles, int from, int to) {
+			this.grid = grid;
+			this.tiles = tiles;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				label(grid, tiles[from]);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new LabelTask(grid, tiles, from, middle), new LabelTask(grid, tiles, middle, to));
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that labels the cells of a tile with a
+	 * union-find over the tile, and keeps the labels of the cells on its sides.
+	 * Only the regions that touch a side get a label.
+	 */
+	private static void label(Grid grid, Tile tile) {
+		int height = tile.height;
+		int width = tile.width;
+		int[] parent = new int[height * width];
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				int cell = row * width + col;
+				if (!isOpen(grid, tile.firstRow + row, tile.firstCol + col)) {
+					parent[cell] = -1;
+					continue;
+				}
+				parent[cell] = cell;
+				if (col > 0 && parent[cell - 1] >= 0)
+					union(parent, cell - 1, cell);
+				if (row > 0 && parent[cell - width] >= 0)
+					union(parent, cell - width, cell);
+			}
+		}
+
+		// give the roots on the sides numbers from 0, in the order they are met
+		int[] numbers = new int[height * width];
+		Arrays.fill(numbers, -1);
+		tile.top = new int[width];
+		tile.bottom = new int[width];
+		tile.left = new int[height];
+		tile.right = new int[height];
+		for (int col = 0; col < width; col++) {
+			tile.top[col] = number(parent, numbers, tile, col);
+			tile.bottom[col] = number(parent, numbers, tile, (height - 1) * width + col);
+		}
+		for (int row = 0; row < height; row++) {
+			tile.left[row] = number(parent, numbers, tile, row * width);
+			tile.right[row] = number(parent, numbers, tile, row * width + width - 1);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that returns the number of the region
+	 * of a cell in a tile, giving the region the next number if it has none yet.
+	 */
+	private static int number(int[] parent, int[] numbers, Tile tile, int cell) {
+		if (parent[cell] < 0)
+			return -1;
+		int root = find(parent, cell);
+		if (numbers[root] < 0)
+			numbers[root] = tile.count++;
+		return numbers[root];
+	}
+
+	/**
+	 * This method serves as a helper method that joins the labels of two tiles
+	 * that face each other along a side.
+	 */
+	private static void join(int[] parent, Tile tile, int[] side, Tile next, int[] nextSide) {
+		for (int i = 0; i < side.length; i++) {
+			if (side[i] >= 0 && nextSide[i] >= 0)
+				union(parent, tile.offset + side[i], next.offset + nextSide[i]);
+		}
+	}
+
+	/**
+	 * This method serves as a helper method that tells if a cell is CLEAR and not
+	 * visited.
+	 */
+	private static boolean isOpen(Grid grid, int row, int col) {
+		return grid.getStatus(row, col) == 0 && !grid.isVisited(row, col);
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of an element and
+	 * halves the path to it on the way.
+	 */
+	private static int find(int[] parent, int element) {
+		while (parent[element] != element) {
+			parent[element] = parent[parent[element]];
+			element = parent[element];
+		}
+		return element;
+	}
+
+	/**
+	 * This method serves as a helper method that joins the sets of two elements.
+	 * The root with the smaller index becomes the root of both.
+	 */
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA < rootB)
+			parent[rootB] = rootA;
+		else if (rootB < rootA)
+			parent[rootA] = rootB;
+	}
+
+}
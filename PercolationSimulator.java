@@ -0,0 +1,368 @@
+/**
+ * On Mac/Linux:
+ *  javac -cp .:junit-cs211.jar *.java                        # compile everything
+ *  java PercolationSimulator                                 # 500 x 500, density 0.30 to 0.50
+ *  java PercolationSimulator 500 500 0.35 0.45 21 2000 211   # rows, columns, first and last
+ *                                                            # density, densities, layouts
+ *                                                            # per density, seed
+ *
+ * On windows replace colons with semicolons: (: with ;)
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The PercolationSimulator estimates how likely a market layout policy is to
+ * keep the social distancing effective. The policy is "MARK every cell with
+ * probability p": the simulator generates many random Blocks of the same size
+ * at a density p, checks each of them for every entry at once, and reports the
+ * fraction of effective layouts together with a 95% confidence interval. A
+ * sweep does the same for evenly spaced densities, which gives the whole
+ * effective-probability curve; on large Blocks it rises steeply around the
+ * percolation threshold, close to a density of 0.41.
+ *
+ * The layouts are never built as Blocks. Each one is drawn straight into the
+ * open cells bitmask used by BitParallelPropagation, 64 cells at a time: a cell
+ * is open with probability 1 - p, and a word of such bits is made from 16 random
+ * words by going through the binary digits of 1 - p from the lowest, ORing in a
+ * random word for a 1 and ANDing for a 0. The density is therefore rounded to a
+ * multiple of 1 / 65536.
+ *
+ * The layouts are split into batches of BATCH_SIZE that run at the same time
+ * on a ForkJoinPool. Every batch has its own SplittableRandom, split from the
+ * random of the simulator in the order of the batches, and its own two bitmasks
+ * that are reused for all its layouts, so the result only depends on the seed
+ * and not on the number of threads or the order the batches run in.
+ *
+ * @author Liying Lu
+ *
+ */
+public class PercolationSimulator {
+	public static final int BATCH_SIZE = 64;
+	public static final double Z_95 = 1.959963984540054;
+	private static final int PRECISION = 16;
+
+	private final int rows;
+	private final int cols;
+	private final ForkJoinPool pool;
+	private final SplittableRandom random;
+
+	/**
+	 * An Estimate is the outcome of the simulation at one density: the number of
+	 * layouts checked and how many of them were effective.
+	 */
+	public static final class Estimate {
+		private final double density;
+		private final int layouts;
+		private final int effective;
+
+		/**
+		 * A constructor for the outcome of a simulation.
+		 *
+		 * @param density   Probability of a cell being MARKED.
+		 * @param layouts   Number of layouts checked.
+		 * @param effective Number of them where the social distancing is effective.
+		 */
+		public Estimate(double density, int layouts, int effective) {
+			if (layouts < 0 || effective < 0 || effective > layouts)
+				throw new IllegalArgumentException("Invalid counts: " + effective + " of " + layouts);
+			this.density = density;
+			this.layouts = layouts;
+			this.effective = effective;
+		}
+
+		/**
+		 * A getter that returns the density of the layouts.
+		 *
+		 * @return the density
+		 */
+		public double getDensity() {
+			return density;
+		}
+
+		/**
+		 * A getter that returns the number of layouts checked.
+		 *
+		 * @return the layouts
+		 */
+		public int getLayouts() {
+			return layouts;
+		}
+
+		/**
+		 * A getter that returns the number of effective layouts.
+		 *
+		 * @return the effective layouts
+		 */
+		public int getEffective() {
+			return effective;
+		}
+
+		/**
+		 * A getter that returns the fraction of effective layouts, the estimate of
+		 * the probability that a layout at this density is effective.
+		 *
+		 * @return the probability, or NaN if no layout was checked
+		 */
+		public double getProbability() {
+			return layouts == 0 ? Double.NaN : (double) effective / layouts;
+		}
+
+		/**
+		 * A getter that returns the lower end of the 95% Wilson score interval of
+		 * the probability. Unlike the usual interval of plus or minus 1.96 standard
+		 * errors, it stays inside 0 to 1 and is not empty when every layout, or no
+		 * layout, is effective.
+		 *
+		 * @return the lower end of the interval
+		 */
+		public double getLower() {
+			return wilson(-1);
+		}
+
+		/**
+		 * A getter that returns the upper end of the 95% Wilson score interval of
+		 * the probability.
+		 *
+		 * @return the upper end of the interval
+		 */
+		public double getUpper() {
+			return wilson(1);
+		}
+
+		/**
+		 * This method serves as a helper method that returns an end of the Wilson
+		 * score interval.
+		 */
+		private double wilson(int sign) {
+			if (layouts == 0 || sign < 0 && effective == 0 || sign > 0 && effective == layouts)
+				return sign < 0 ? 0 : 1;
+			double p = getProbability();
+			double z2 = Z_95 * Z_95;
+			double center = p + z2 / (2.0 * layouts);
+			double spread = Z_95 * Math.sqrt(p * (1 - p) / layouts + z2 / (4.0 * layouts * layouts));
+			double end = (center + sign * spread) / (1 + z2 / layouts);
+			return Math.min(1, Math.max(0, end));
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.4f %8d %8d %.4f [%.4f, %.4f]", density, layouts, effective, getProbability(),
+					getLower(), getUpper());
+		}
+	}
+
+	/**
+	 * A Batch checks a range of batches of layouts, splitting the range in two
+	 * until a single batch is left.
+	 */
+	private final class Batch extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+		private final SplittableRandom[] randoms;
+		private final int first, last, layouts;
+		private final long bits;
+
+		Batch(SplittableRandom[] randoms, int first, int last, int layouts, long bits) {
+			this.randoms = randoms;
+			this.first = first;
+			this.last = last;
+			this.layouts = layouts;
+			this.bits = bits;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (last - first > 1) {
+				int middle = (first + last) >>> 1;
+				Batch right = new Batch(randoms, middle, last, layouts, bits);
+				right.fork();
+				int left = new Batch(randoms, first, middle, layouts, bits).compute();
+				return left + right.join();
+			}
+			int count = Math.min(BATCH_SIZE, layouts - first * BATCH_SIZE);
+			return runBatch(randoms[first], count, bits);
+		}
+	}
+
+	/**
+	 * A constructor that simulates Blocks of the given size on the common
+	 * ForkJoinPool.
+	 *
+	 * @param n    Number of rows of the Blocks.
+	 * @param m    Number of columns of the Blocks.
+	 * @param seed Seed of the random layouts.
+	 */
+	public PercolationSimulator(int n, int m, long seed) {
+		this(n, m, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * A constructor that simulates Blocks of the given size on the given pool.
+	 *
+	 * @param n    Number of rows of the Blocks.
+	 * @param m    Number of columns of the Blocks.
+	 * @param seed Seed of the random layouts.
+	 * @param pool Pool to run the layouts on.
+	 */
+	public PercolationSimulator(int n, int m, long seed, ForkJoinPool pool) {
+		if (n <= 0 || m <= 0)
+			throw new IllegalArgumentException("Invalid Block size: " + n + " x " + m);
+		if ((long) n * BitParallelPropagation.wordsPerRow(m) > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to simulate: " + n + " x " + m);
+		this.rows = n;
+		this.cols = m;
+		this.pool = pool;
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * A getter that returns the number of rows of the Blocks.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns of the Blocks.
+	 *
+	 * @return the cols
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * This method checks the given number of random layouts at the given density
+	 * and returns how many of them were effective. Each call draws new layouts.
+	 *
+	 * @param density Probability of a cell being MARKED, from 0 to 1.
+	 * @param layouts Number of layouts to check.
+	 * @return The estimate at this density.
+	 */
+	public Estimate estimate(double density, int layouts) {
+		if (!(density >= 0 && density <= 1))
+			throw new IllegalArgumentException("Invalid density: " + density);
+		if (layouts < 0)
+			throw new IllegalArgumentException("Invalid number of layouts: " + layouts);
+		int batches = (int) (((long) layouts + BATCH_SIZE - 1) / BATCH_SIZE);
+		if (batches == 0)
+			return new Estimate(density, 0, 0);
+		SplittableRandom[] randoms = new SplittableRandom[batches];
+		for (int batch = 0; batch < batches; batch++)
+			randoms[batch] = random.split();
+		int effective = pool.invoke(new Batch(randoms, 0, batches, layouts, openBits(density)));
+		return new Estimate(density, layouts, effective);
+	}
+
+	/**
+	 * This method estimates the probability of an effective layout for count
+	 * evenly spaced densities from first to last, both included.
+	 *
+	 * @param first   The first density.
+	 * @param last    The last density.
+	 * @param count   Number of densities, at least 1.
+	 * @param layouts Number of layouts to check at each density.
+	 * @return The estimates in the order of the densities.
+	 */
+	public Estimate[] sweep(double first, double last, int count, int layouts) {
+		if (count <= 0)
+			throw new IllegalArgumentException("Invalid number of densities: " + count);
+		Estimate[] curve = new Estimate[count];
+		for (int i = 0; i < count; i++) {
+			double density = count == 1 ? first : first + (last - first) * i / (count - 1);
+			curve[i] = estimate(density, layouts);
+		}
+		return curve;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the probability of a
+	 * cell being open, 1 - density, as a fraction of 2 to the PRECISION.
+	 */
+	private static long openBits(double density) {
+		return Math.round((1 - density) * (1L << PRECISION));
+	}
+
+	/**
+	 * This method serves as a helper method that checks a batch of layouts with
+	 * the same two bitmasks and returns the number of effective ones.
+	 */
+	private int runBatch(SplittableRandom random, int count, long bits) {
+		int wordsPerRow = BitParallelPropagation.wordsPerRow(cols);
+		long[] open = new long[rows * wordsPerRow];
+		long[] reached = new long[open.length];
+		int effective = 0;
+		for (int layout = 0; layout < count; layout++) {
+			fill(random, open, wordsPerRow, bits);
+			if (BitParallelPropagation.isEffective(open, reached, rows, cols))
+				effective++;
+		}
+		return effective;
+	}
+
+	/**
+	 * This method serves as a helper method that draws a random layout into the
+	 * open cells bitmask: each cell is open with probability bits / 2 to the
+	 * PRECISION.
+	 */
+	private void fill(SplittableRandom random, long[] open, int wordsPerRow, long bits) {
+		long lastWord = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+		if (bits <= 0 || bits >= 1L << PRECISION) {
+			long word = bits <= 0 ? 0 : -1L;
+			for (int row = 0; row < rows; row++) {
+				for (int w = 0; w < wordsPerRow; w++)
+					open[row * wordsPerRow + w] = w == wordsPerRow - 1 ? word & lastWord : word;
+			}
+			return;
+		}
+		// the digits below the lowest 1 would only AND into a word of zeros
+		int lowest = Long.numberOfTrailingZeros(bits);
+		for (int row = 0; row < rows; row++) {
+			for (int w = 0; w < wordsPerRow; w++) {
+				long word = 0;
+				for (int digit = lowest; digit < PRECISION; digit++) {
+					if ((bits >>> digit & 1) != 0)
+						word |= random.nextLong();
+					else
+						word &= random.nextLong();
+				}
+				open[row * wordsPerRow + w] = w == wordsPerRow - 1 ? word & lastWord : word;
+			}
+		}
+	}
+
+	/**
+	 * The main method runs a sweep and prints the curve, one density per line:
+	 * the density, the layouts checked, the effective ones, the estimated
+	 * probability and its 95% interval, followed by the number of layouts checked
+	 * per second.
+	 *
+	 * @param args rows, columns, first density, last density, number of
+	 *             densities, layouts per density and seed, all optional.
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		double first = args.length > 2 ? Double.parseDouble(args[2]) : 0.30;
+		double last = args.length > 3 ? Double.parseDouble(args[3]) : 0.50;
+		int count = args.length > 4 ? Integer.parseInt(args[4]) : 21;
+		int layouts = args.length > 5 ? Integer.parseInt(args[5]) : 1000;
+		long seed = args.length > 6 ? Long.parseLong(args[6]) : 211;
+
+		PercolationSimulator simulator = new PercolationSimulator(n, m, seed);
+		simulator.estimate(first, BATCH_SIZE * ForkJoinPool.getCommonPoolParallelism()); // warm up
+		System.out.printf("%d x %d, %d layouts per density, %d threads%n", n, m, layouts,
+				ForkJoinPool.getCommonPoolParallelism());
+		System.out.println("density  layouts effective    p   95% interval");
+		long start = System.nanoTime();
+		for (Estimate estimate : simulator.sweep(first, last, count, layouts))
+			System.out.println(estimate);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%.0f layouts per second%n", (double) count * layouts / seconds);
+	}
+
+}
@@ -11,6 +11,9 @@ import java.util.Stack;
  *
  */
 public class Propagation {
+	// the moves left, right, up, down, in the same order as pathCalc tries them
+	private static final int[] ROW_STEPS = { 0, 0, -1, 1 };
+	private static final int[] COL_STEPS = { -1, 1, 0, 0 };
 
 	/**
 	 * Given a Block we need a method that determines if the social distancing
@@ -25,13 +28,76 @@ public class Propagation {
 	public static boolean isEffective(Block area, int startRow, int startCol) {
 
 		// check that there is not a path to get from the given entry to an exit
-		if (pathCalc(area, startRow, startCol) == null)
+		if (findPath(area, startRow, startCol) == null)
 			return true;
 		else
 			return false; // if there is a path found, the block is not effective
 
 	}
 
+	/**
+	 * This method does the same check as isEffective(area, startRow, startCol), but
+	 * remembers the visited cells in the given marks, so that each thread can
+	 * search a shared Block with marks of its own.
+	 * 
+	 * @param area     A Block to inspect.
+	 * @param startRow Starting row number of the Block.
+	 * @param startCol Starting column number of the Block.
+	 * @param marks    Marks to keep the visited cells in.
+	 * @return True if the social distancing is effective in the Block, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area, int startRow, int startCol, VisitMarks marks) {
+		return !findPath(area, startRow, startCol, marks, new CellPath());
+	}
+
+	/**
+	 * Given a Block this method determines if the social distancing enforced in
+	 * the Block is effective for every entry at once. Instead of searching a path
+	 * from each entry, it labels the connected regions of the Block once, so the
+	 * whole check takes time linear in the number of cells. A Block over a
+	 * RunLengthGrid is checked on its runs instead, and a Block over an
+	 * OffHeapGrid by BitParallelPropagation, which keeps nothing per cell on the
+	 * heap.
+	 * 
+	 * @param area A Block to inspect.
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public static boolean isEffective(Block area) {
+		if (area.getStorage() instanceof RunLengthGrid)
+			return ((RunLengthGrid) area.getStorage()).isEffective();
+		if (area.getStorage() instanceof OffHeapGrid)
+			return BitParallelPropagation.isEffective((OffHeapGrid) area.getStorage());
+		RegionLabeling regions = new RegionLabeling(area);
+		for (int row = 0; row < area.getRows(); row++) {
+			int region = regions.getLabel(row, 0);
+			if (region >= 0 && regions.isLinked(region))
+				return false; // this entry shares a region with an exit
+		}
+		return true;
+	}
+
+	/**
+	 * Given a Block this method determines for each entry of the Block if the
+	 * social distancing is effective, i.e. the element at index i is the same as
+	 * isEffective(area, i, 0). All the entries are answered with a single labeling
+	 * of the Block.
+	 * 
+	 * @param area A Block to inspect.
+	 * @return An array with one value for each row of the Block, true if the entry
+	 *         in that row has no path to an exit.
+	 */
+	public static boolean[] entryEffectiveness(Block area) {
+		RegionLabeling regions = new RegionLabeling(area);
+		boolean[] effective = new boolean[area.getRows()];
+		for (int row = 0; row < effective.length; row++) {
+			int region = regions.getLabel(row, 0);
+			effective[row] = region < 0 || !regions.isLinked(region);
+		}
+		return effective;
+	}
+
 	/**
 	 * This method accepts a row and a column index as the starting position. If the
 	 * starting position is a valid entry to the area, then checks if there exits a
@@ -39,6 +105,8 @@ public class Propagation {
 	 * given valid entry to one of the exits, and this method would only return one
 	 * of the paths. The method returns an ArrayList of each cell's row number and
 	 * column number along the path. If there is no path the method returns null.
+	 * The search keeps the cells it visits in the marks of the area and does not
+	 * change the Block, so the same Block can be searched again right away.
 	 * 
 	 * @param area     Block to find the path.
 	 * @param startRow Row index of the starting position
@@ -47,75 +115,101 @@ public class Propagation {
 	 *         along the path. Returns null if there is no path.
 	 */
 	public static Stack<ArrayList<Integer>> pathCalc(Block area, int startRow, int startCol) {
-		// No path can be found if the entry is not valid
-		if (!area.isEntry(startRow, startCol))
+		return pathCalc(area, startRow, startCol, area.getMarks());
+	}
+
+	/**
+	 * This method does the same search as pathCalc(area, startRow, startCol), but
+	 * remembers the visited cells in the given marks. The marks are reset before
+	 * the search starts.
+	 * 
+	 * @param area     Block to find the path.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @param marks    Marks to keep the visited cells in.
+	 * @return Returns an ArrayList of each cell's row number and column number
+	 *         along the path. Returns null if there is no path.
+	 */
+	public static Stack<ArrayList<Integer>> pathCalc(Block area, int startRow, int startCol, VisitMarks marks) {
+		CellPath path = new CellPath();
+		if (findPath(area, startRow, startCol, marks, path))
+			return path.toStack();
+		else
 			return null;
+	}
 
-		area.setStart(startRow, startCol); // sets the starting position of the area
+	/**
+	 * This method does the same search as pathCalc(area, startRow, startCol), but
+	 * returns the path as a CellPath, which keeps the positions in a primitive
+	 * array instead of one ArrayList per position.
+	 * 
+	 * @param area     Block to find the path.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @return The path from the entry to an exit, or null if there is no path.
+	 */
+	public static CellPath findPath(Block area, int startRow, int startCol) {
+		CellPath path = new CellPath();
+		if (findPath(area, startRow, startCol, area.getMarks(), path))
+			return path;
+		else
+			return null;
+	}
+
+	/**
+	 * This method does the same search as pathCalc(area, startRow, startCol), but
+	 * remembers the visited cells in the given marks and keeps the path in the
+	 * given CellPath. Both are cleared before the search starts, so a caller that
+	 * reuses them does not create any object during the search.
+	 * 
+	 * @param area     Block to find the path.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @param marks    Marks to keep the visited cells in.
+	 * @param path     CellPath to keep the path in.
+	 * @return True if a path is found, otherwise false.
+	 */
+	public static boolean findPath(Block area, int startRow, int startCol, VisitMarks marks, CellPath path) {
+		path.clear();
+
+		// No path can be found if the entry is not valid
+		if (!area.isEntry(startRow, startCol))
+			return false;
 
-		// Continue to find a path if the entry is valid.
-		Stack<ArrayList<Integer>> path = new Stack<ArrayList<Integer>>(); // keeps track of the path taken
+		marks.reset(area.getRows() * area.getCols()); // forget the cells visited by the last search
 
-		updatePath(area, path); // add the starting position to the path.
+		path.push(startRow, startCol); // add the starting position to the path.
 
 		int currentRow = startRow;
 		int currentCol = startCol;
-		// int count = 0;
-		// System.out.println(count + " Initial path: " + path.toString());
-		// boolean pathFound = false;
 
 		while (true) {
 
-			// try one of the direction
-			if (area.isFree(currentRow, currentCol - 1) && !area.isVisited(currentRow, currentCol - 1)) {
-				area.moveLeft();
-				updatePath(area, path);
-			} else if (area.isFree(currentRow, currentCol + 1) && !area.isVisited(currentRow, currentCol + 1)) {
-				area.moveRight();
-				updatePath(area, path);
-			} else if (area.isFree(currentRow - 1, currentCol) && !area.isVisited(currentRow - 1, currentCol)) {
-				area.moveUp();
-				updatePath(area, path);
-			} else if (area.isFree(currentRow + 1, currentCol) && !area.isVisited(currentRow + 1, currentCol)) {
-				area.moveDown();
-				updatePath(area, path);
+			// try one of the direction: left, right, up and down
+			int direction = nextDirection(area, currentRow, currentCol, marks);
+			if (direction >= 0) {
+				marks.mark(area.indexOf(currentRow, currentCol)); // the current cell is visited
+				currentRow += ROW_STEPS[direction];
+				currentCol += COL_STEPS[direction];
+				path.push(currentRow, currentCol);
 			} else { // if no other cells around the current cell is not visited.
 				// Stopping condition: if no path found at this step, move back to the previous
 				// position
 				if (currentRow == startRow && currentCol == startCol) {
-					// System.out.println("No path is found.");
-					return null;
+					path.clear();
+					return false;
 				}
 
 				// backtracking
-				// System.out.println("Backtracking");
 				path.pop(); // remove the current position in path
-				ArrayList<Integer> previousPos = path.peek();
-
-				if (previousPos.get(1) + 1 == currentCol) {
-					area.moveLeft();
-				} else if (previousPos.get(1) - 1 == currentCol) {
-					area.moveRight();
-				} else if (previousPos.get(0) + 1 == currentRow) {
-					area.moveUp();
-				} else if (previousPos.get(0) - 1 == currentRow) {
-					area.moveDown();
-				}
+				marks.mark(area.indexOf(currentRow, currentCol));
+				currentRow = path.peekRow();
+				currentCol = path.peekCol();
 			}
 
-			// update the current row and column index 
-			currentRow = area.getCurrentRow();
-			currentCol = area.getCurrentCol();
-			// check the path at each iteration.
-			// System.out.println(++count + " Intermediate path after push: " +
-			// path.toString());
-
 			// stopping condition: if an exit is reached.
-			if (area.isExit(area.getCurrentRow(), area.getCurrentCol())) {
-				// System.out.println("A path is found.");
-				// System.out.println("Final path:" + path.toString()); // check the returned
-				// path.
-				return path;
+			if (area.isExit(currentRow, currentCol) && !marks.isMarked(area.indexOf(currentRow, currentCol))) {
+				return true;
 			}
 
 		}
@@ -123,19 +217,125 @@ public class Propagation {
 	}
 
 	/**
-	 * This method serves as a helper method that updates the visited cells in the
-	 * path.
+	 * This method serves as a helper method that returns the first direction from
+	 * a cell to an open neighbour, in the order left, right, up and down, or -1 if
+	 * no neighbour is open. Only the free neighbours of the cell are checked for
+	 * visited cells, and they are taken from the Block in a single call, the
+	 * bits of LEFT, RIGHT, UP and DOWN being in the same order as ROW_STEPS and
+	 * COL_STEPS.
+	 */
+	private static int nextDirection(Block area, int row, int col, VisitMarks marks) {
+		int free = area.getFreeNeighbours(row, col);
+		while (free != 0) {
+			int direction = Integer.numberOfTrailingZeros(free);
+			int nextRow = row + ROW_STEPS[direction];
+			int nextCol = col + COL_STEPS[direction];
+			if (!area.isVisited(nextRow, nextCol) && !marks.isMarked(area.indexOf(nextRow, nextCol)))
+				return direction;
+			free &= free - 1; // the next free neighbour
+		}
+		return -1;
+	}
+
+	/**
+	 * This method returns a shortest path from the given entry to an exit, i.e. one
+	 * with the fewest moves, or null if there is no path. Unlike pathCalc, which
+	 * returns whichever path its search happens to find first, this method searches
+	 * the Block breadth first from the entry, one distance at a time, and stops at
+	 * the first exit it reaches. The number of moves on the path is size() - 1.
+	 * 
+	 * @param area     Block to find the path.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @return A shortest path from the entry to an exit, or null if there is no
+	 *         path.
+	 */
+	public static CellPath shortestPath(Block area, int startRow, int startCol) {
+		int cols = area.getCols();
+		int[] parent = new int[area.getRows() * cols];
+		int exit = breadthFirstSearch(area, startRow, startCol, parent);
+		if (exit < 0)
+			return null;
+
+		// walk back from the exit to the entry, then push the cells in reverse
+		int length = 0;
+		for (int cell = exit; cell >= 0; cell = parent[cell])
+			length++;
+		int[] cells = new int[length];
+		for (int cell = exit, i = length - 1; cell >= 0; cell = parent[cell], i--)
+			cells[i] = cell;
+		CellPath path = new CellPath();
+		for (int cell : cells)
+			path.push(cell / cols, cell % cols);
+		return path;
+	}
+
+	/**
+	 * This method returns the number of moves on a shortest path from the given
+	 * entry to an exit, or -1 if there is no path.
+	 * 
+	 * @param area     Block to find the path.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @return The number of moves from the entry to the nearest exit, or -1.
+	 */
+	public static int shortestPathLength(Block area, int startRow, int startCol) {
+		int[] parent = new int[area.getRows() * area.getCols()];
+		int exit = breadthFirstSearch(area, startRow, startCol, parent);
+		if (exit < 0)
+			return -1;
+		int moves = 0;
+		for (int cell = parent[exit]; cell >= 0; cell = parent[cell])
+			moves++;
+		return moves;
+	}
+
+	/**
+	 * This method serves as a helper method that searches the Block breadth first
+	 * from the given entry. The cells waiting to be expanded are kept in a queue of
+	 * cell indexes, and the cell each one was reached from is kept in parent (-1
+	 * for the entry). The visited cells are kept in the marks of the area.
 	 * 
-	 * @param area Block to be visited.
-	 * @param path A stack of arrayLists of visited positions.
+	 * @param area     Block to search.
+	 * @param startRow Row index of the starting position
+	 * @param startCol Column index of the starting position.
+	 * @param parent   An array with one element per cell to keep the parents in.
+	 * @return The index of the first exit reached, or -1 if there is none.
 	 */
-	private static void updatePath(Block area, Stack<ArrayList<Integer>> path) {
-		int currentRow = area.getCurrentRow();
-		int currentCol = area.getCurrentCol();
-		ArrayList<Integer> currentPos = new ArrayList<Integer>();
-		currentPos.add(currentRow);
-		currentPos.add(currentCol);
-		path.push(currentPos);
+	private static int breadthFirstSearch(Block area, int startRow, int startCol, int[] parent) {
+		// No path can be found if the entry is not valid
+		if (!area.isEntry(startRow, startCol))
+			return -1;
+
+		int cols = area.getCols();
+		VisitMarks marks = area.getMarks();
+		marks.reset(parent.length);
+		int[] queue = new int[parent.length];
+		int head = 0;
+		int tail = 0;
+
+		int start = area.indexOf(startRow, startCol);
+		parent[start] = -1;
+		marks.mark(start);
+		queue[tail++] = start;
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / cols;
+			int col = cell % cols;
+			for (int direction = 0; direction < 4; direction++) {
+				int nextRow = row + ROW_STEPS[direction];
+				int nextCol = col + COL_STEPS[direction];
+				if (!area.isOpen(nextRow, nextCol, marks))
+					continue;
+				int next = cell + ROW_STEPS[direction] * cols + COL_STEPS[direction];
+				parent[next] = cell;
+				if (nextCol == cols - 1)
+					return next; // the first exit reached is the nearest one
+				marks.mark(next);
+				queue[tail++] = next;
+			}
+		}
+		return -1;
 	}
 
 	/*
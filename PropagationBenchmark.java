@@ -0,0 +1,335 @@
+/**
+ * On Mac/Linux:
+ *  javac -cp .:junit-cs211.jar *.java                    # compile everything
+ *  java -Xss1g -Xmx8g PropagationBenchmark               # run the whole suite
+ *  java -Xss1g -Xmx8g PropagationBenchmark 1000 0.5 bit  # sides up to 1000, half a
+ *                                                        # second per run, engines
+ *                                                        # whose name has "bit"
+ *
+ * On windows replace colons with semicolons: (: with ;)
+ */
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
+/**
+ * The PropagationBenchmark measures the speed of the Block moves and of every
+ * propagation engine on square Blocks from 10 x 10 up to 10000 x 10000, for
+ * these layout families:
+ *
+ * open - an open floor with no walls inside.
+ *
+ * maze - a maze with a single path between any two of its rooms, so that a
+ * search has to walk down every dead end.
+ *
+ * comb - a corridor along the bottom row with a one cell wide tooth going up
+ * from every other column, the layout where the backtracking of
+ * RecursivePropagation goes deepest.
+ *
+ * random-D - every cell is MARKED with probability D. At 0.41 the Block is
+ * close to the percolation threshold, where the open regions are the largest
+ * and most twisted.
+ *
+ * The right column of the open, maze and comb layouts is MARKED, so there is no
+ * exit and the search has to visit every cell it can reach. The single entry
+ * searches start at the lowest open cell of the left column. Each engine is
+ * run for a given time on each Block, and the suite prints the number of
+ * operations and of layout cells per second, the 50th, 90th and 99th
+ * percentile and the largest time of an operation, and the bytes allocated by
+ * the benchmark thread per operation (the work done by the threads of
+ * ParallelPropagation is not included). Runs where the recursion of
+ * RecursivePropagation overflows the Java stack or its backtracking gets lost
+ * are reported as such. The PaddedGrid engines marked (built) reuse the grid
+ * built by their warm up operation, so they time the search without the copy
+ * of the Block, and the Morton engines run Propagation.isEffective (a depth
+ * first search) and Propagation.shortestPath (a breadth first search) on a copy
+ * of the Block over a MortonGrid, to compare with the same searches on the
+ * PackedGrid rows.
+ *
+ * The classes of this project are in the default package, which JMH cannot
+ * generate benchmarks for, so this suite is a plain program that follows the
+ * same steps: a warm up operation, then timed operations measured one by one.
+ *
+ * @author Liying Lu
+ *
+ */
+public class PropagationBenchmark {
+	private static final int[] SIDES = { 10, 30, 100, 300, 1000, 3000, 10000 };
+	private static final double[] DENSITIES = { 0.3, 0.41, 0.5 };
+	private static final long SEED = 211;
+
+	/**
+	 * An Engine is one of the operations to measure on a Block.
+	 */
+	private interface Engine {
+		Object run(Block area, int entryRow);
+	}
+
+	public static void main(String args[]) {
+		int maxSide = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+		String filter = args.length > 2 ? args[2].toLowerCase() : "";
+		long runNanos = (long) (seconds * 1e9);
+
+		List<String> names = new ArrayList<String>();
+		List<Engine> engines = new ArrayList<Engine>();
+		names.add("Propagation.pathCalc");
+		engines.add((area, entry) -> Propagation.pathCalc(area, entry, 0));
+		names.add("Recursive.recursivePathCalc");
+		engines.add((area, entry) -> RecursivePropagation.recursivePathCalc(area, entry, 0,
+				new Stack<ArrayList<Integer>>()));
+		names.add("StackSafe.recursivePathCalc");
+		engines.add((area, entry) -> StackSafePropagation.recursivePathCalc(area, entry, 0,
+				new Stack<ArrayList<Integer>>()));
+		names.add("Propagation.isEffective");
+		engines.add((area, entry) -> Propagation.isEffective(area, entry, 0));
+		names.add("Padded.isEffective");
+		engines.add((area, entry) -> new PaddedGrid(area).isEffective(entry, 0));
+		names.add("Padded.isEffective(built)");
+		PaddedGrid[] padded = new PaddedGrid[1]; // built by the warm up operation of each Block
+		engines.add((area, entry) -> paddedGrid(padded, area).isEffective(entry, 0));
+		names.add("Morton.isEffective(built)");
+		Block[] morton = new Block[2]; // a Block and its copy over a MortonGrid
+		engines.add((area, entry) -> Propagation.isEffective(mortonBlock(morton, area), entry, 0));
+		names.add("Propagation.shortestPath");
+		engines.add((area, entry) -> Propagation.shortestPath(area, entry, 0));
+		names.add("Morton.shortestPath(built)");
+		engines.add((area, entry) -> Propagation.shortestPath(mortonBlock(morton, area), entry, 0));
+		names.add("Propagation.isEffective(all)");
+		engines.add((area, entry) -> Propagation.isEffective(area));
+		names.add("Padded.isEffective(all)");
+		engines.add((area, entry) -> new PaddedGrid(area).isEffective());
+		names.add("Padded.shortestPath(built)");
+		engines.add((area, entry) -> paddedGrid(padded, area).shortestPathLength(entry, 0));
+		names.add("BitParallel.isEffective(all)");
+		engines.add((area, entry) -> BitParallelPropagation.isEffective(area));
+		names.add("Parallel.isEffective(all)");
+		engines.add((area, entry) -> ParallelPropagation.isEffective(area));
+
+		System.out.printf("%-30s %-12s %6s %12s %14s %10s %10s %10s %10s %12s%n", "engine", "layout", "side",
+				"ops/s", "cells/s", "p50 us", "p90 us", "p99 us", "max us", "bytes/op");
+		for (int side : SIDES) {
+			if (side > maxSide)
+				break;
+			if ("block.move".contains(filter))
+				runMoves(side, runNanos);
+			List<String> layouts = new ArrayList<String>();
+			List<PackedGrid> grids = new ArrayList<PackedGrid>();
+			layouts.add("open");
+			grids.add(openFloor(side));
+			layouts.add("maze");
+			grids.add(maze(side));
+			layouts.add("comb");
+			grids.add(comb(side));
+			for (double density : DENSITIES) {
+				layouts.add("random-" + density);
+				grids.add(random(side, density));
+			}
+			for (int l = 0; l < layouts.size(); l++) {
+				Block area = new Block(grids.get(l));
+				int entry = entryRow(area);
+				for (int e = 0; e < engines.size(); e++) {
+					Engine engine = engines.get(e);
+					if (names.get(e).toLowerCase().contains(filter))
+						run(names.get(e), layouts.get(l), side, runNanos, () -> engine.run(area, entry));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the PaddedGrid kept in the holder if it was built for the given
+	 * Block, or builds and keeps a new one, so that the engines marked (built)
+	 * only time the search.
+	 */
+	private static PaddedGrid paddedGrid(PaddedGrid[] holder, Block area) {
+		if (holder[0] == null || holder[0].getArea() != area)
+			holder[0] = new PaddedGrid(area);
+		return holder[0];
+	}
+
+	/**
+	 * Returns a copy of the given Block over a MortonGrid, kept in the holder
+	 * after the first call for that Block, so that the Morton engines run the same
+	 * searches as the row by row ones on a Z-ordered grid.
+	 */
+	private static Block mortonBlock(Block[] holder, Block area) {
+		if (holder[0] != area) {
+			holder[0] = area;
+			holder[1] = new Block(MortonGrid.copyOf(area.getStorage()));
+		}
+		return holder[1];
+	}
+
+	/**
+	 * Times the Block moves: each operation walks a fresh open floor row by row,
+	 * right along one row and left along the next, with one move per cell.
+	 */
+	private static void runMoves(int side, long runNanos) {
+		run("Block.move", "open", side, runNanos, () -> {
+			Block area = new Block(new PackedGrid(side, side));
+			area.setStart(0, 0);
+			for (int row = 0; row < side; row++) {
+				for (int col = 1; col < side; col++) {
+					if (row % 2 == 0)
+						area.moveRight();
+					else
+						area.moveLeft();
+				}
+				area.moveDown();
+			}
+			return area;
+		});
+	}
+
+	/**
+	 * An Operation is one timed call.
+	 */
+	private interface Operation {
+		Object run();
+	}
+
+	/**
+	 * Times one operation: runs it once to warm up, then again and again until the
+	 * given time is over, and prints the result.
+	 */
+	private static void run(String name, String layout, int side, long runNanos, Operation operation) {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		LatencyHistogram latencies = new LatencyHistogram();
+		try {
+			operation.run(); // warm up
+			long allocated = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			long elapsed;
+			do {
+				long before = System.nanoTime();
+				operation.run();
+				long after = System.nanoTime();
+				latencies.record(after - before);
+				elapsed = after - start;
+			} while (elapsed < runNanos);
+			allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+			long operations = latencies.getCount();
+			double perSecond = operations * 1e9 / elapsed;
+			System.out.printf("%-30s %-12s %6d %12.1f %14.0f %10.1f %10.1f %10.1f %10.1f %12d%n", name, layout, side,
+					perSecond, perSecond * side * side, latencies.getValueAtPercentile(50) / 1e3,
+					latencies.getValueAtPercentile(90) / 1e3, latencies.getValueAtPercentile(99) / 1e3,
+					latencies.getMax() / 1e3, allocated / operations);
+		} catch (StackOverflowError e) {
+			System.out.printf("%-30s %-12s %6d %12s%n", name, layout, side, "stack overflow");
+		} catch (EmptyStackException e) {
+			System.out.printf("%-30s %-12s %6d %12s%n", name, layout, side, "lost in backtracking");
+		}
+	}
+
+	/**
+	 * Returns the lowest open row of the left column, or the last row if none is
+	 * open.
+	 */
+	private static int entryRow(Block area) {
+		for (int row = area.getRows() - 1; row >= 0; row--) {
+			if (area.isEntry(row, 0))
+				return row;
+		}
+		return area.getRows() - 1;
+	}
+
+	/**
+	 * Creates a side x side floor that is all CLEAR except the right column.
+	 */
+	private static PackedGrid openFloor(int side) {
+		PackedGrid grid = new PackedGrid(side, side);
+		for (int row = 0; row < side; row++)
+			grid.setStatus(row, side - 1, 1);
+		return grid;
+	}
+
+	/**
+	 * Creates a side x side floor with a corridor along the bottom row and a tooth
+	 * going up from every odd column.
+	 */
+	private static PackedGrid comb(int side) {
+		PackedGrid grid = openFloor(side);
+		for (int row = 0; row < side - 1; row++) {
+			for (int col = 0; col < side - 1; col += 2)
+				grid.setStatus(row, col, 1);
+		}
+		return grid;
+	}
+
+	/**
+	 * Creates a side x side maze. The rooms are the cells with an even row and
+	 * column, and the walls between them are knocked down by a depth first walk
+	 * that goes to a random unvisited room next to the current one, and goes back
+	 * when there is none.
+	 */
+	private static PackedGrid maze(int side) {
+		PackedGrid grid = new PackedGrid(side, side);
+		for (int row = 0; row < side; row++) {
+			for (int col = 0; col < side; col++)
+				grid.setStatus(row, col, 1);
+		}
+		int roomRows = (side + 1) / 2;
+		int roomCols = side / 2; // keep the right column MARKED
+		if (roomCols == 0)
+			return grid;
+		Random random = new Random(SEED);
+		boolean[] seen = new boolean[roomRows * roomCols];
+		int[] stack = new int[roomRows * roomCols];
+		int top = 0;
+		stack[top++] = 0;
+		seen[0] = true;
+		grid.setStatus(0, 0, 0);
+		int[] choices = new int[4];
+		while (top > 0) {
+			int room = stack[top - 1];
+			int roomRow = room / roomCols;
+			int roomCol = room % roomCols;
+			int found = 0;
+			if (roomRow > 0 && !seen[room - roomCols])
+				choices[found++] = room - roomCols;
+			if (roomRow + 1 < roomRows && !seen[room + roomCols])
+				choices[found++] = room + roomCols;
+			if (roomCol > 0 && !seen[room - 1])
+				choices[found++] = room - 1;
+			if (roomCol + 1 < roomCols && !seen[room + 1])
+				choices[found++] = room + 1;
+			if (found == 0) {
+				top--;
+				continue;
+			}
+			int next = choices[random.nextInt(found)];
+			int nextRow = next / roomCols;
+			int nextCol = next % roomCols;
+			grid.setStatus(roomRow + nextRow, roomCol + nextCol, 0); // the wall between the rooms
+			grid.setStatus(2 * nextRow, 2 * nextCol, 0);
+			seen[next] = true;
+			stack[top++] = next;
+		}
+		return grid;
+	}
+
+	/**
+	 * Creates a side x side floor where every cell is MARKED with the given
+	 * probability.
+	 */
+	private static PackedGrid random(int side, double density) {
+		PackedGrid grid = new PackedGrid(side, side);
+		Random random = new Random(SEED);
+		for (int row = 0; row < side; row++) {
+			for (int col = 0; col < side; col++) {
+				if (random.nextDouble() < density)
+					grid.setStatus(row, col, 1);
+			}
+		}
+		return grid;
+	}
+
+}
@@ -14,169 +14,229 @@ import java.util.ArrayList;
 public class RecursivePropagation {
 	// public static int count = 0;
 
+	// the directions left, right, up and down, in the order of the bits of
+	// Block.getFreeNeighbours
+	private static final int[] ROW_STEPS = { 0, 0, -1, 1 };
+	private static final int[] COL_STEPS = { -1, 1, 0, 0 };
+	// the order to advance in: up, right, down, left
+	private static final int[] FORWARD = { 2, 1, 3, 0 };
+	// for every set of free neighbours, the first one in the order to backtrack
+	// in: left, down, right, up; -1 if there is none
+	private static final int[] BACKWARD = new int[16];
+
+	static {
+		int[] order = { 0, 3, 1, 2 };
+		for (int free = 0; free < 16; free++) {
+			BACKWARD[free] = -1;
+			for (int i = order.length - 1; i >= 0; i--) {
+				if ((free & 1 << order[i]) != 0)
+					BACKWARD[free] = order[i];
+			}
+		}
+	}
+
 	/**
 	 * This method determines if the area has an effective social distancing barrier
-	 * in a recursive manner. The given row and column index are set as the starting
-	 * position once if the indexes are valid entry and the starting position of the
-	 * area is not set. The algorithm returns false if the given row and column
-	 * indexes are of a valid exit. If not, the algorithm recursively try to move to
-	 * one of the unvisited cells in either up, right, down, left direction. If the
-	 * algorithm hits a wall and has no unvisited cells in neither direction, it
-	 * backtracks to the first empty cell in either left, down, right, up direction.
-	 * Note that backtracking chooses the direction in a reverse order of how it
-	 * would advance. Finally, if the algorithm backtracks to the starting position,
-	 * no path is found in the area. The algorithm then returns true because there
-	 * is no path from an entry to an exit, indicating effective social distancing.
+	 * in a recursive manner. The given row and column index are the starting
+	 * position and have to be a valid entry. The algorithm returns false if the
+	 * current row and column indexes are of a valid exit. If not, the algorithm
+	 * recursively try to move to one of the unvisited cells in either up, right,
+	 * down, left direction. If the algorithm hits a wall and has no unvisited cells
+	 * in neither direction, it backtracks to the first empty cell in either left,
+	 * down, right, up direction. Note that backtracking chooses the direction in a
+	 * reverse order of how it would advance. Finally, if the algorithm backtracks to
+	 * the starting position, no path is found in the area. The algorithm then
+	 * returns true because there is no path from an entry to an exit, indicating
+	 * effective social distancing. The visited cells are kept in the marks of the
+	 * area, so the Block is not changed by the search.
 	 * 
 	 * @param area Block to determine its effectiveness.
-	 * @param row  Row index of the current row of the area.
-	 * @param col  Column index of the current column of the area.
+	 * @param row  Row index of the starting position.
+	 * @param col  Column index of the starting position.
 	 * @return True if no path is found and effective, otherwise false.
 	 */
 	public static boolean recursiveIsEffective(Block area, int row, int col) {
+		// no path can be found if the entry is not valid
+		if (!area.isEntry(row, col))
+			return true;
 
-		// sets the starting position of the area
-		if ((area.getStartRow() < 0 || area.getStartCol() < 0) && area.isEntry(row, col)) {
-			// count = 0;
-			area.setStart(row, col);
-			// System.out.println("Starting position: " + area.getCurrentRow() + " " +
-			// area.getCurrentCol());
-		}
+		VisitMarks marks = area.getMarks();
+		marks.reset(area.getRows() * area.getCols()); // forget the cells visited by the last search
+		return recursiveIsEffective(area, marks, row, col, row, col);
+	}
+
+	/**
+	 * This method serves as the recursive step of recursiveIsEffective.
+	 * 
+	 * @param area     Block to determine its effectiveness.
+	 * @param marks    Cells visited by the search.
+	 * @param startRow Row index of the starting position.
+	 * @param startCol Column index of the starting position.
+	 * @param row      Row index of the current position.
+	 * @param col      Column index of the current position.
+	 * @return True if no path is found and effective, otherwise false.
+	 */
+	private static boolean recursiveIsEffective(Block area, VisitMarks marks, int startRow, int startCol, int row,
+			int col) {
 
 		// Step 1: If you are at an exit cell, you are done. If not move to step 2.
-		if (area.isExit(row, col)) {
-			// System.out.println("A path is found. Ineffective.");
+		if (area.isExit(row, col) && !marks.isMarked(area.indexOf(row, col))) {
 			return false;
 		}
 		// If not at exit cell, try to move to another cell.
 		else {
-			if (area.isFree(row - 1, col) && !area.isVisited(row - 1, col)) { // try to move up
-				area.moveUp();
-			} else if (area.isFree(row, col + 1) && !area.isVisited(row, col + 1)) { // if cannot move up, try to move
-																						// to the right
-				area.moveRight();
-			} else if (area.isFree(row + 1, col) && !area.isVisited(row + 1, col)) { // if cannot move up or right, try
-																						// to move down
-				area.moveDown();
-			} else if (area.isFree(row, col - 1) && !area.isVisited(row, col - 1)) { // if cannot move up, right, or
-																						// down, try to move to the left
-				area.moveLeft();
+			int nextRow = row;
+			int nextCol = col;
+			int free = area.getFreeNeighbours(row, col);
+			// try to move up, right, down or left
+			int direction = forward(area, marks, row, col, free);
+			if (direction >= 0) {
+				nextRow += ROW_STEPS[direction];
+				nextCol += COL_STEPS[direction];
 			} else {
 
 				// backtracks to the starting position, so no path is found, therefore
 				// effective.
-				if (area.getCurrentRow() == area.getStartRow() && area.getCurrentCol() == area.getStartCol())
+				if (row == startRow && col == startCol)
 					return true;
 
 				// Backtrack to the first cell available to move into. The order of the
 				// direction is reversed
 				// as the above statements so as to prevent being stuck between two cells.
-				if (area.isFree(row, col - 1)) {
-					area.moveLeft();
-				} else if (area.isFree(row + 1, col)) {
-					area.moveDown();
-				} else if (area.isFree(row, col + 1)) {
-					area.moveRight();
-				} else if (area.isFree(row - 1, col)) {
-					area.moveUp();
+				int back = BACKWARD[free];
+				if (back >= 0) {
+					nextRow += ROW_STEPS[back];
+					nextCol += COL_STEPS[back];
 				}
 
 			} // end if-else loop
-				// System.out.println(count + " Intermediate position: " + area.getCurrentRow()
-				// + " " + area.getCurrentCol());
-			return recursiveIsEffective(area, area.getCurrentRow(), area.getCurrentCol());
+			if (nextRow != row || nextCol != col)
+				marks.mark(area.indexOf(row, col)); // the cell we leave is visited
+			return recursiveIsEffective(area, marks, startRow, startCol, nextRow, nextCol);
 		} // end else
 
 	}
 
 	/**
 	 * This method recursively calculates and returns the path from a given valid
-	 * entry to an exit if there is one, otherwise returns null.
+	 * entry to an exit if there is one, otherwise returns null. The visited cells
+	 * are kept in the marks of the area, so the Block is not changed by the
+	 * search.
 	 * 
 	 * @param area Block to find a path in.
-	 * @param row  Row index of the current position.
-	 * @param col  Column index of the current position.
+	 * @param row  Row index of the starting position.
+	 * @param col  Column index of the starting position.
 	 * @param path A stack of ArrayLists of the position (row, column) in the path.
 	 * @return A path from the valid given entry to an exit, otherwise null.
 	 */
 	public static Stack<ArrayList<Integer>> recursivePathCalc(Block area, int row, int col,
 			Stack<ArrayList<Integer>> path) {
-		// count++;
-		// sets the starting position of the area and the first position in the path
-		if ((area.getStartRow() < 0 || area.getStartCol() < 0) && area.isEntry(row, col)) {
-			// count = 0;
-			area.setStart(row, col);
-			updatePath(area, path);
-			// System.out.println("Initial path: " + path);
-		}
+		CellPath cells = new CellPath();
+		if (recursiveFindPath(area, row, col, cells))
+			return cells.pushTo(path);
+		else
+			return null;
+	}
+
+	/**
+	 * This method does the same search as recursivePathCalc, but keeps the path in
+	 * the given CellPath, which is cleared before the search starts. A caller that
+	 * reuses the CellPath does not create any object during the search.
+	 * 
+	 * @param area Block to find a path in.
+	 * @param row  Row index of the starting position.
+	 * @param col  Column index of the starting position.
+	 * @param path CellPath to keep the path in.
+	 * @return True if a path is found, otherwise false.
+	 */
+	public static boolean recursiveFindPath(Block area, int row, int col, CellPath path) {
+		path.clear();
+
+		// no path can be found if the entry is not valid
+		if (!area.isEntry(row, col))
+			return false;
+
+		VisitMarks marks = area.getMarks();
+		marks.reset(area.getRows() * area.getCols()); // forget the cells visited by the last search
+		path.push(row, col); // the first position in the path
+		return recursiveFindPath(area, marks, row, col, row, col, path);
+	}
+
+	/**
+	 * This method serves as the recursive step of recursiveFindPath.
+	 * 
+	 * @param area     Block to find a path in.
+	 * @param marks    Cells visited by the search.
+	 * @param startRow Row index of the starting position.
+	 * @param startCol Column index of the starting position.
+	 * @param row      Row index of the current position.
+	 * @param col      Column index of the current position.
+	 * @param path     The positions (row, column) in the path.
+	 * @return True if a path is found, otherwise false.
+	 */
+	private static boolean recursiveFindPath(Block area, VisitMarks marks, int startRow, int startCol, int row,
+			int col, CellPath path) {
 
 		// A path is found if the exit cell is reached.
-		if (area.isExit(row, col)) {
-			// System.out.println("A path is found.");
-			// System.out.println("Final path:" + path.toString());
-			return path;
+		if (area.isExit(row, col) && !marks.isMarked(area.indexOf(row, col))) {
+			return true;
 		}
 
 		// If not at exit cell, try to move to another cell.
 		else {
-			if (area.isFree(row - 1, col) && !area.isVisited(row - 1, col)) { // try to move up
-				area.moveUp();
-				updatePath(area, path);
-			} else if (area.isFree(row, col + 1) && !area.isVisited(row, col + 1)) { // if cannot move up, try to move
-																						// to the right
-				area.moveRight();
-				updatePath(area, path);
-			} else if (area.isFree(row + 1, col) && !area.isVisited(row + 1, col)) { // if cannot move up or right, try
-																						// to move down
-				area.moveDown();
-				updatePath(area, path);
-			} else if (area.isFree(row, col - 1) && !area.isVisited(row, col - 1)) { // if cannot move up, right, or
-																						// down, try to move to the left
-				area.moveLeft();
-				updatePath(area, path);
+			int nextRow = row;
+			int nextCol = col;
+			int free = area.getFreeNeighbours(row, col);
+			// try to move up, right, down or left
+			int direction = forward(area, marks, row, col, free);
+			if (direction >= 0) {
+				nextRow += ROW_STEPS[direction];
+				nextCol += COL_STEPS[direction];
+				path.push(nextRow, nextCol);
 			} else {
 
 				// backtracks to the starting position, so no path is found
-				if (area.getCurrentRow() == area.getStartRow() && area.getCurrentCol() == area.getStartCol())
-					return null;
+				if (row == startRow && col == startCol) {
+					path.clear();
+					return false;
+				}
 
 				path.pop(); // remove current position
 
 				// Backtrack to the first cell available to move into. The order of the
 				// direction is reversed as the above statements so as to prevent being stuck
 				// between two cells.
-				if (area.isFree(row, col - 1)) {
-					area.moveLeft();
-				} else if (area.isFree(row + 1, col)) {
-					area.moveDown();
-				} else if (area.isFree(row, col + 1)) {
-					area.moveRight();
-				} else if (area.isFree(row - 1, col)) {
-					area.moveUp();
+				int back = BACKWARD[free];
+				if (back >= 0) {
+					nextRow += ROW_STEPS[back];
+					nextCol += COL_STEPS[back];
 				}
 
 			} // end if-else loop
-				// System.out.println(count + " Intermediate path: " + path);
-				// call recursivePathCalc to calculate the next position.
-			return recursivePathCalc(area, area.getCurrentRow(), area.getCurrentCol(), path);
+			if (nextRow != row || nextCol != col)
+				marks.mark(area.indexOf(row, col)); // the cell we leave is visited
+			// call recursiveFindPath to calculate the next position.
+			return recursiveFindPath(area, marks, startRow, startCol, nextRow, nextCol, path);
 		} // end else
 
 	}
 
 	/**
-	 * This method serves as a helper method that updates the visited cells in the
-	 * path.
-	 * 
-	 * @param area Block to be visited.
-	 * @param path A stack of arrayLists of visited positions.
+	 * This method serves as a helper method that returns the first direction to
+	 * an open neighbour of a cell, in the order up, right, down and left, or -1 if
+	 * no neighbour is open. Only the free neighbours are checked for visited
+	 * cells.
 	 */
-	private static void updatePath(Block area, Stack<ArrayList<Integer>> path) {
-		int currentRow = area.getCurrentRow();
-		int currentCol = area.getCurrentCol();
-		ArrayList<Integer> currentPos = new ArrayList<Integer>();
-		currentPos.add(currentRow);
-		currentPos.add(currentCol);
-		path.push(currentPos);
+	private static int forward(Block area, VisitMarks marks, int row, int col, int free) {
+		for (int direction : FORWARD) {
+			if ((free & 1 << direction) == 0)
+				continue;
+			int nextRow = row + ROW_STEPS[direction];
+			int nextCol = col + COL_STEPS[direction];
+			if (!area.isVisited(nextRow, nextCol) && !marks.isMarked(area.indexOf(nextRow, nextCol)))
+				return direction;
+		}
+		return -1;
 	}
 
 	/*
@@ -0,0 +1,190 @@
+/**
+ * A RegionLabeling splits the cells of a Block into connected regions. Two
+ * cells are in the same region if a person can walk from one to the other
+ * through CLEAR cells that are not visited, moving up, down, left or right. The
+ * labeling is done in a single scan of the grid using a union-find over the
+ * cells, so it takes time linear in the number of cells. For each region it
+ * remembers its size and how many entry cells (left column) and exit cells
+ * (right column) it contains, which is enough to tell if the region links an
+ * entry to an exit.
+ *
+ * @author Liying Lu
+ *
+ */
+public class RegionLabeling {
+	private final int rows;
+	private final int cols;
+	private final int[] labels;
+	private final int[] sizes;
+	private final int[] entries;
+	private final int[] exits;
+
+	/**
+	 * A constructor that labels the regions of the given block.
+	 *
+	 * @param area Block to label.
+	 */
+	public RegionLabeling(Block area) {
+		rows = area.getRows();
+		cols = area.getCols();
+		if ((long) rows * cols > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Block is too large to label: " + rows + " x " + cols);
+		Grid grid = area.getStorage();
+		int[] parent = new int[rows * cols];
+
+		// first pass: join every open cell with its open left and upper neighbours
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int cell = row * cols + col;
+				if (grid.getStatus(row, col) != 0 || grid.isVisited(row, col)) {
+					parent[cell] = -1;
+					continue;
+				}
+				parent[cell] = cell;
+				if (col > 0 && parent[cell - 1] >= 0)
+					union(parent, cell - 1, cell);
+				if (row > 0 && parent[cell - cols] >= 0)
+					union(parent, cell - cols, cell);
+			}
+		}
+
+		// second pass: give each region a number from 0 to count - 1, kept by its
+		// root encoded below -1, then copy it from the root to every cell
+		int count = 0;
+		for (int cell = 0; cell < parent.length; cell++) {
+			if (parent[cell] == cell)
+				parent[cell] = -2 - count++;
+		}
+		for (int cell = 0; cell < parent.length; cell++) {
+			if (parent[cell] >= 0)
+				parent[cell] = parent[find(parent, cell)];
+		}
+		sizes = new int[count];
+		entries = new int[count];
+		exits = new int[count];
+		for (int cell = 0; cell < parent.length; cell++) {
+			if (parent[cell] == -1)
+				continue;
+			int region = -2 - parent[cell];
+			parent[cell] = region;
+			sizes[region]++;
+			if (cell % cols == 0)
+				entries[region]++;
+			if (cell % cols == cols - 1)
+				exits[region]++;
+		}
+		labels = parent;
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of a cell and
+	 * halves the path to it on the way. A root is a cell whose parent is itself, or
+	 * a cell holding an encoded region number once the regions are numbered.
+	 */
+	private static int find(int[] parent, int cell) {
+		while (parent[cell] >= 0 && parent[cell] != cell) {
+			int next = parent[cell];
+			if (parent[next] >= 0 && parent[next] != next)
+				parent[cell] = parent[next];
+			cell = next;
+		}
+		return cell;
+	}
+
+	/**
+	 * This method serves as a helper method that joins the regions of two cells.
+	 * The root with the smaller index becomes the root of both.
+	 */
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA < rootB)
+			parent[rootB] = rootA;
+		else if (rootB < rootA)
+			parent[rootA] = rootB;
+	}
+
+	/**
+	 * A getter that returns the number of rows of the labeled block.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * A getter that returns the number of columns of the labeled block.
+	 *
+	 * @return the cols
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of regions.
+	 *
+	 * @return the number of regions
+	 */
+	public int getRegionCount() {
+		return sizes.length;
+	}
+
+	/**
+	 * A getter that returns the region of a cell. MARKED, visited and invalid
+	 * cells are not in any region and return -1.
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return The region number of the cell, or -1.
+	 */
+	public int getLabel(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols)
+			return -1;
+		return labels[row * cols + col];
+	}
+
+	/**
+	 * A getter that returns the number of cells in a region.
+	 *
+	 * @param region Region number.
+	 * @return the size of the region
+	 */
+	public int getSize(int region) {
+		return sizes[region];
+	}
+
+	/**
+	 * A getter that returns the number of entry cells in a region.
+	 *
+	 * @param region Region number.
+	 * @return the number of entry cells
+	 */
+	public int getEntries(int region) {
+		return entries[region];
+	}
+
+	/**
+	 * A getter that returns the number of exit cells in a region.
+	 *
+	 * @param region Region number.
+	 * @return the number of exit cells
+	 */
+	public int getExits(int region) {
+		return exits[region];
+	}
+
+	/**
+	 * A method that returns if a region links an entry to a different exit cell.
+	 * In a block with a single column every cell is both an entry and an exit, so
+	 * the region must have at least two cells.
+	 *
+	 * @param region Region number.
+	 * @return True if a person entering the region can leave it through an exit.
+	 */
+	public boolean isLinked(int region) {
+		return entries[region] > 0 && exits[region] > 0 && sizes[region] >= 2;
+	}
+
+}
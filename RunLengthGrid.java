@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * A RunLengthGrid is a Grid that stores every row as runs of cells with the
+ * same status and visited flag, instead of one value per cell. A floor made of
+ * long CLEAR aisles and a few rows of stalls takes a few runs per row, so the
+ * memory used grows with the number of runs and not with the area.
+ *
+ * A row is kept as the column where each run starts, in increasing order and
+ * starting at 0, and the kind of each run: the status in bit 0 and the visited
+ * flag in bit 1. Two runs next to each other never have the same kind. Reading
+ * a cell looks up its run with a binary search, and changing a cell splits or
+ * joins the runs around it, which takes time linear in the runs of the row.
+ *
+ * isEffective answers the same question as Propagation.isEffective(area)
+ * directly on the runs: the open runs (CLEAR and not visited) of two rows next
+ * to each other are joined in a union-find when their columns overlap, so the
+ * time taken grows with the number of runs as well. Propagation.isEffective
+ * uses it for a Block over a RunLengthGrid.
+ *
+ * @author Liying Lu
+ *
+ */
+public class RunLengthGrid implements Grid {
+	private static final int STATUS = 1;
+	private static final int VISITED = 2;
+	private static final byte ENTRY = 1;
+	private static final byte EXIT = 2;
+
+	private final int rows;
+	private final int cols;
+	private final int[][] starts; // the first column of each run of a row
+	private final byte[][] kinds; // the status and visited flag of each run of a row
+
+	/**
+	 * A constructor that creates a grid of the given size where every cell is
+	 * CLEAR and not visited, a single run per row.
+	 *
+	 * @param rows Number of rows (n) of the grid.
+	 * @param cols Number of columns (m) of the grid.
+	 */
+	public RunLengthGrid(int rows, int cols) {
+		if (rows < 0 || cols < 0)
+			throw new IllegalArgumentException("Negative grid size: " + rows + " x " + cols);
+		this.rows = rows;
+		this.cols = cols;
+		starts = new int[rows][];
+		kinds = new byte[rows][];
+		for (int row = 0; row < rows; row++) {
+			starts[row] = cols == 0 ? new int[0] : new int[] { 0 };
+			kinds[row] = cols == 0 ? new byte[0] : new byte[] { 0 };
+		}
+	}
+
+	/**
+	 * A constructor that creates a grid with the same status and visited values
+	 * as the given two-dimensional array of Cell.
+	 *
+	 * @param cells A n by m array of Cell
+	 */
+	public RunLengthGrid(Cell[][] cells) {
+		this(cells.length, cells.length == 0 ? 0 : cells[0].length);
+		int[] rowKinds = new int[cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++)
+				rowKinds[col] = kind(cells[row][col].getStatus(), cells[row][col].getVisited());
+			setRow(row, rowKinds);
+		}
+	}
+
+	/**
+	 * This method creates a RunLengthGrid with the same status and visited values
+	 * as any other grid.
+	 *
+	 * @param grid Grid to copy.
+	 * @return A new RunLengthGrid holding a copy of the grid.
+	 */
+	public static RunLengthGrid copyOf(Grid grid) {
+		RunLengthGrid copy = new RunLengthGrid(grid.getRows(), grid.getCols());
+		int[] rowKinds = new int[copy.cols];
+		for (int row = 0; row < copy.rows; row++) {
+			for (int col = 0; col < copy.cols; col++)
+				rowKinds[col] = kind(grid.getStatus(row, col), grid.isVisited(row, col));
+			copy.setRow(row, rowKinds);
+		}
+		return copy;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the kind of a cell.
+	 */
+	private static int kind(int status, boolean visited) {
+		return (status != 0 ? STATUS : 0) | (visited ? VISITED : 0);
+	}
+
+	/**
+	 * This method serves as a helper method that encodes a whole row from the kind
+	 * of each of its cells.
+	 */
+	private void setRow(int row, int[] rowKinds) {
+		int count = 0;
+		for (int col = 0; col < cols; col++) {
+			if (col == 0 || rowKinds[col] != rowKinds[col - 1])
+				count++;
+		}
+		int[] rowStarts = new int[count];
+		byte[] runKinds = new byte[count];
+		int run = 0;
+		for (int col = 0; col < cols; col++) {
+			if (col == 0 || rowKinds[col] != rowKinds[col - 1]) {
+				rowStarts[run] = col;
+				runKinds[run++] = (byte) rowKinds[col];
+			}
+		}
+		starts[row] = rowStarts;
+		kinds[row] = runKinds;
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * A getter that returns the number of runs of a row.
+	 *
+	 * @param row Row number of the runs.
+	 * @return the number of runs
+	 */
+	public int getRunCount(int row) {
+		return starts[row].length;
+	}
+
+	/**
+	 * A getter that returns the number of runs of the whole grid.
+	 *
+	 * @return the number of runs
+	 */
+	public long getRunCount() {
+		long count = 0;
+		for (int row = 0; row < rows; row++)
+			count += starts[row].length;
+		return count;
+	}
+
+	/**
+	 * This method serves as a helper method that returns the run holding a cell.
+	 */
+	private int runOf(int row, int col) {
+		int[] rowStarts = starts[row];
+		int low = 0;
+		int high = rowStarts.length - 1;
+		// the last run that starts at or before the column
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (rowStarts[middle] <= col)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * This method serves as a helper method that changes the kind of a single
+	 * cell, splitting its run and joining it with the runs around it as needed.
+	 */
+	private void setKind(int row, int col, int kind) {
+		int run = runOf(row, col);
+		int[] rowStarts = starts[row];
+		byte[] runKinds = kinds[row];
+		if (runKinds[run] == kind)
+			return;
+		int count = rowStarts.length;
+		int end = run + 1 < count ? rowStarts[run + 1] : cols; // the column after the run
+		// the row as three parts: the runs before the cell, the cell, and the runs
+		// after it, where the runs around the cell are cut at the cell
+		int[] newStarts = new int[count + 2];
+		byte[] newKinds = new byte[count + 2];
+		int size = 0;
+		for (int r = 0; r < run; r++) {
+			newStarts[size] = rowStarts[r];
+			newKinds[size++] = runKinds[r];
+		}
+		if (rowStarts[run] < col) {
+			newStarts[size] = rowStarts[run];
+			newKinds[size++] = runKinds[run];
+		}
+		if (size > 0 && newKinds[size - 1] == kind) {
+			// joined with the run on the left
+		} else {
+			newStarts[size] = col;
+			newKinds[size++] = (byte) kind;
+		}
+		if (col + 1 < end) {
+			newStarts[size] = col + 1;
+			newKinds[size++] = runKinds[run];
+		}
+		for (int r = run + 1; r < count; r++) {
+			if (newKinds[size - 1] == runKinds[r])
+				continue; // joined with the run on the right
+			newStarts[size] = rowStarts[r];
+			newKinds[size++] = runKinds[r];
+		}
+		starts[row] = Arrays.copyOf(newStarts, size);
+		kinds[row] = Arrays.copyOf(newKinds, size);
+	}
+
+	@Override
+	public int getStatus(int row, int col) {
+		return kinds[row][runOf(row, col)] & STATUS;
+	}
+
+	@Override
+	public void setStatus(int row, int col, int status) {
+		int kind = kinds[row][runOf(row, col)];
+		setKind(row, col, (kind & ~STATUS) | (status != 0 ? STATUS : 0));
+	}
+
+	@Override
+	public boolean isVisited(int row, int col) {
+		return (kinds[row][runOf(row, col)] & VISITED) != 0;
+	}
+
+	@Override
+	public void setVisited(int row, int col, boolean visited) {
+		int kind = kinds[row][runOf(row, col)];
+		setKind(row, col, (kind & ~VISITED) | (visited ? VISITED : 0));
+	}
+
+	/**
+	 * This method determines if the social distancing of the grid is effective
+	 * for every entry, working on the runs instead of the cells. It gives the same
+	 * answer as Propagation.isEffective(area) for a Block over the grid.
+	 *
+	 * @return True if no entry has a path to an exit, otherwise false.
+	 */
+	public boolean isEffective() {
+		if (rows == 0 || cols == 0)
+			return true;
+		int total = 0;
+		for (int row = 0; row < rows; row++) {
+			for (byte kind : kinds[row]) {
+				if (kind == 0)
+					total++;
+			}
+		}
+		// the open runs are numbered row by row
+		int[] parent = new int[total];
+		byte[] touches = new byte[total];
+		int[] runStarts = new int[total];
+		int[] runEnds = new int[total]; // the last column of each run
+		int previous = 0; // the first open run of the row above
+		int next = 0;
+		for (int row = 0; row < rows; row++) {
+			int first = next;
+			int[] rowStarts = starts[row];
+			byte[] runKinds = kinds[row];
+			for (int run = 0; run < rowStarts.length; run++) {
+				if (runKinds[run] != 0)
+					continue;
+				int end = run + 1 < rowStarts.length ? rowStarts[run + 1] - 1 : cols - 1;
+				parent[next] = next;
+				runStarts[next] = rowStarts[run];
+				runEnds[next] = end;
+				if (rowStarts[run] == 0)
+					touches[next] |= ENTRY;
+				if (end == cols - 1)
+					touches[next] |= EXIT;
+				// in a single column every entry is an exit too, so a path needs a second
+				// cell, which only the row above can give
+				if (cols > 1 && touches[next] == (ENTRY | EXIT))
+					return false;
+				next++;
+			}
+			// join the open runs of the two rows whose columns overlap, walking both
+			// rows from left to right
+			int above = previous;
+			int below = first;
+			while (above < first && below < next) {
+				if (runStarts[above] <= runEnds[below] && runStarts[below] <= runEnds[above]) {
+					if (cols == 1)
+						return false;
+					if (union(parent, touches, above, below) == (ENTRY | EXIT))
+						return false;
+				}
+				if (runEnds[above] < runEnds[below])
+					above++;
+				else
+					below++;
+			}
+			previous = first;
+		}
+		return true;
+	}
+
+	/**
+	 * This method serves as a helper method that joins the sets of two runs and
+	 * returns what the joined set touches.
+	 */
+	private static int union(int[] parent, byte[] touches, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA != rootB) {
+			parent[rootB] = rootA;
+			touches[rootA] |= touches[rootB];
+		}
+		return touches[rootA];
+	}
+
+	/**
+	 * This method serves as a helper method that finds the root of a run and
+	 * halves the path to it on the way.
+	 */
+	private static int find(int[] parent, int run) {
+		while (parent[run] != run) {
+			parent[run] = parent[parent[run]];
+			run = parent[run];
+		}
+		return run;
+	}
+
+}
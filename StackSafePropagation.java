@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Stack;
+
+/**
+ * The StackSafePropagation class has the same functionality and the same
+ * methods as the RecursivePropagation class, so it can be used in its place.
+ * RecursivePropagation calls itself once for every move, including every
+ * backtracking move, so a large open floor overflows the Java stack. Here the
+ * positions of the path are kept in an explicit stack (a CellPath) instead,
+ * and the search runs in a loop with a constant Java stack depth. The search
+ * tries the directions in the same order (up, right, down, left), so on the
+ * layouts where RecursivePropagation backtracks along the path it came from
+ * (such as the ones in P5Tester) both give the same answers and paths. This
+ * class always backtracks along the path, so it also finishes on layouts where
+ * the backtracking of RecursivePropagation goes back and forth between two
+ * cells, and it can handle grids of any size that fits in memory.
+ *
+ * @author Liying Lu
+ *
+ */
+public class StackSafePropagation {
+
+	/**
+	 * This method determines if the area has an effective social distancing barrier
+	 * starting from the given entry, in place of
+	 * RecursivePropagation.recursiveIsEffective.
+	 *
+	 * @param area Block to determine its effectiveness.
+	 * @param row  Row index of the starting position.
+	 * @param col  Column index of the starting position.
+	 * @return True if no path is found and effective, otherwise false.
+	 */
+	public static boolean recursiveIsEffective(Block area, int row, int col) {
+		return !recursiveFindPath(area, row, col, new CellPath());
+	}
+
+	/**
+	 * This method calculates and returns the path from a given valid entry to an
+	 * exit if there is one, otherwise returns null, in place of
+	 * RecursivePropagation.recursivePathCalc.
+	 *
+	 * @param area Block to find a path in.
+	 * @param row  Row index of the starting position.
+	 * @param col  Column index of the starting position.
+	 * @param path A stack of ArrayLists of the position (row, column) in the path.
+	 * @return A path from the valid given entry to an exit, otherwise null.
+	 */
+	public static Stack<ArrayList<Integer>> recursivePathCalc(Block area, int row, int col,
+			Stack<ArrayList<Integer>> path) {
+		CellPath cells = new CellPath();
+		if (recursiveFindPath(area, row, col, cells))
+			return cells.pushTo(path);
+		else
+			return null;
+	}
+
+	/**
+	 * This method searches a path from the given entry to an exit and keeps it in
+	 * the given CellPath, which also serves as the stack of the search and is
+	 * cleared before the search starts. The search never changes the Block: the
+	 * visited cells are kept in the marks of the area.
+	 *
+	 * @param area     Block to find a path in.
+	 * @param startRow Row index of the starting position.
+	 * @param startCol Column index of the starting position.
+	 * @param path     CellPath to keep the path in.
+	 * @return True if a path is found, otherwise false.
+	 */
+	public static boolean recursiveFindPath(Block area, int startRow, int startCol, CellPath path) {
+		path.clear();
+
+		// no path can be found if the entry is not valid
+		if (!area.isEntry(startRow, startCol))
+			return false;
+
+		VisitMarks marks = area.getMarks();
+		marks.reset(area.getRows() * area.getCols()); // forget the cells visited by the last search
+		path.push(startRow, startCol);
+
+		int row = startRow;
+		int col = startCol;
+		while (true) {
+			int cell = area.indexOf(row, col);
+
+			// A path is found if the exit cell is reached.
+			if (area.isExit(row, col) && !marks.isMarked(cell))
+				return true;
+
+			if (area.isOpen(row - 1, col, marks)) { // try to move up
+				row--;
+			} else if (area.isOpen(row, col + 1, marks)) { // if cannot move up, try to move to the right
+				col++;
+			} else if (area.isOpen(row + 1, col, marks)) { // if cannot move up or right, try to move down
+				row++;
+			} else if (area.isOpen(row, col - 1, marks)) { // if cannot move up, right, or down, try to move to the left
+				col--;
+			} else {
+				// backtracks to the starting position, so no path is found
+				if (path.size() == 1) {
+					path.clear();
+					return false;
+				}
+
+				// backtrack to the previous position in the path
+				marks.mark(cell);
+				path.pop();
+				row = path.peekRow();
+				col = path.peekCol();
+				continue;
+			}
+			marks.mark(cell); // the cell we leave is visited
+			path.push(row, col);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/**
+ * A StallRemovalIndex answers "would the social distancing still be effective
+ * if this stall were removed", i.e. if this MARKED cell were set to CLEAR, for
+ * any cell of a Block in constant time. It is built from a single
+ * RegionLabeling of the Block.
+ *
+ * Clearing a MARKED cell joins the cell with the regions of its up to four open
+ * neighbours and changes nothing else. If no region of the Block links an entry
+ * to an exit now, the Block stays effective unless the joined region has both
+ * an entry cell and an exit cell (counting the cleared cell itself) and at least
+ * two cells. If a region already links an entry to an exit, clearing a cell
+ * cannot cut it, so the Block stays not effective.
+ *
+ * The index describes the Block as it was when the index was built; it has to
+ * be built again after the Block changes.
+ *
+ * @author Liying Lu
+ *
+ */
+public class StallRemovalIndex {
+	private final Block area;
+	private final Grid grid;
+	private final RegionLabeling regions;
+	private final boolean effective;
+
+	/**
+	 * A constructor that labels the regions of the given block once.
+	 *
+	 * @param area Block to inspect.
+	 */
+	public StallRemovalIndex(Block area) {
+		this.area = area;
+		this.grid = area.getStorage();
+		this.regions = new RegionLabeling(area);
+		boolean linked = false;
+		for (int region = 0; region < regions.getRegionCount() && !linked; region++)
+			linked = regions.isLinked(region);
+		this.effective = !linked;
+	}
+
+	/**
+	 * A getter that returns the block the index was built for.
+	 *
+	 * @return the area
+	 */
+	public Block getArea() {
+		return area;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block is
+	 * effective for every entry, like Propagation.isEffective(area).
+	 *
+	 * @return True if no entry of the Block has a path to an exit, otherwise
+	 *         false.
+	 */
+	public boolean isEffective() {
+		return effective;
+	}
+
+	/**
+	 * This method determines if the social distancing enforced in the Block would
+	 * still be effective for every entry after the given cell is set to CLEAR. For
+	 * a cell that is not MARKED, or is visited and would stay closed, or is not
+	 * valid, the answer is the same as isEffective().
+	 *
+	 * @param row Row number of the cell.
+	 * @param col Column number of the cell.
+	 * @return True if no entry would have a path to an exit, otherwise false.
+	 */
+	public boolean isEffectiveWithout(int row, int col) {
+		if (!effective || !isStall(row, col))
+			return effective;
+		int cols = regions.getCols();
+		int left = regions.getLabel(row, col - 1);
+		int right = regions.getLabel(row, col + 1);
+		int up = regions.getLabel(row - 1, col);
+		int down = regions.getLabel(row + 1, col);
+		boolean entry = col == 0;
+		boolean exit = col == cols - 1;
+		int size = 1;
+		// add each distinct neighbouring region once
+		if (left >= 0) {
+			entry |= regions.getEntries(left) > 0;
+			exit |= regions.getExits(left) > 0;
+			size += regions.getSize(left);
+		}
+		if (right >= 0 && right != left) {
+			entry |= regions.getEntries(right) > 0;
+			exit |= regions.getExits(right) > 0;
+			size += regions.getSize(right);
+		}
+		if (up >= 0 && up != left && up != right) {
+			entry |= regions.getEntries(up) > 0;
+			exit |= regions.getExits(up) > 0;
+			size += regions.getSize(up);
+		}
+		if (down >= 0 && down != left && down != right && down != up) {
+			entry |= regions.getEntries(down) > 0;
+			exit |= regions.getExits(down) > 0;
+			size += regions.getSize(down);
+		}
+		return !(entry && exit && size >= 2);
+	}
+
+	/**
+	 * This method serves as a helper method that returns if a cell is a stall that
+	 * would open when it is set to CLEAR: valid, MARKED and not visited.
+	 */
+	private boolean isStall(int row, int col) {
+		return area.isValid(row, col) && grid.getStatus(row, col) != 0 && !grid.isVisited(row, col);
+	}
+
+	/**
+	 * This method answers isEffectiveWithout for every MARKED cell at once and
+	 * returns the stalls whose removal alone would give an entry a path to an
+	 * exit, as a bitmask over the cells numbered row by row (row x m + column):
+	 * bit i of word w is set if removing the stall in cell 64 x w + i breaks the
+	 * containment. If the Block is not effective already, no bit is set.
+	 *
+	 * @return A bitmask of (n x m + 63) / 64 words.
+	 */
+	public long[] breakingStalls() {
+		int rows = regions.getRows();
+		int cols = regions.getCols();
+		long[] mask = new long[(int) (((long) rows * cols + 63) >>> 6)];
+		if (!effective)
+			return mask;
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				if (!isEffectiveWithout(row, col)) {
+					int cell = row * cols + col;
+					mask[cell >>> 6] |= 1L << cell;
+				}
+			}
+		}
+		return mask;
+	}
+
+}
@@ -0,0 +1,83 @@
+import java.util.Arrays;
+
+/**
+ * A VisitMarks keeps track of the cells visited by one search through a Block
+ * without writing to the Block itself. Every cell has a stamp, and a cell is
+ * marked if its stamp equals the current epoch. Starting a new search only
+ * moves to the next epoch, so forgetting all the marks of the previous search
+ * takes constant time and the same VisitMarks can be reused for any number of
+ * searches.
+ *
+ * @author Liying Lu
+ *
+ */
+public class VisitMarks {
+	private int[] stamps;
+	private int epoch;
+
+	/**
+	 * A constructor that creates the marks for a grid with the given number of
+	 * cells. No cell is marked initially.
+	 *
+	 * @param size Number of cells (n x m) of the grid.
+	 */
+	public VisitMarks(int size) {
+		stamps = new int[size];
+		epoch = 1; // the stamps start at 0, so no cell is marked
+	}
+
+	/**
+	 * A getter that returns the number of cells the marks can hold.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return stamps.length;
+	}
+
+	/**
+	 * This method forgets all the marks by moving to the next epoch. The stamps
+	 * are only cleared when the epoch counter wraps around.
+	 */
+	public void reset() {
+		epoch++;
+		if (epoch == 0) {
+			Arrays.fill(stamps, 0);
+			epoch = 1;
+		}
+	}
+
+	/**
+	 * This method forgets all the marks and makes sure there is room for the given
+	 * number of cells.
+	 *
+	 * @param size Number of cells (n x m) of the grid.
+	 */
+	public void reset(int size) {
+		if (stamps.length < size) {
+			stamps = new int[size];
+			epoch = 0;
+		}
+		reset();
+	}
+
+	/**
+	 * This method marks a cell as visited in the current search.
+	 *
+	 * @param cell Index of the cell (row x m + column).
+	 */
+	public void mark(int cell) {
+		stamps[cell] = epoch;
+	}
+
+	/**
+	 * This method checks if a cell is visited in the current search.
+	 *
+	 * @param cell Index of the cell (row x m + column).
+	 * @return True if the cell is marked, otherwise false.
+	 */
+	public boolean isMarked(int cell) {
+		return stamps[cell] == epoch;
+	}
+
+}